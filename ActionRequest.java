@@ -0,0 +1,137 @@
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A game action decoded straight from form bytes into primitives.
+ * Only the small fixed vocabulary of the game form is understood
+ * (action, x, y, dir); anything unusual makes parse() return false so the
+ * caller can fall back to the general form decoder. A "name" action always
+ * takes that path, since its free-text field needs full decoding.
+ * Instances are mutable and meant to be reused by one thread.
+ */
+public final class ActionRequest {
+    // same order as Metrics.ACTIONS
+    public static final int NONE = -1;
+    public static final int NEW = 0;
+    public static final int DIR = 1;
+    public static final int PLACE = 2;
+    public static final int ATTACK = 3;
+    public static final int PRACTICE = 4;
+    public static final int UNDO = 5;
+    public static final int NAME = 6;
+    public static final int HINT = 7;
+
+    private static final byte[] KEY_ACTION = ascii("action");
+    private static final byte[] KEY_X = ascii("x");
+    private static final byte[] KEY_Y = ascii("y");
+    private static final byte[] KEY_DIR = ascii("dir");
+    private static final byte[][] ACTION_NAMES = { ascii("new"), ascii("dir"), ascii("place"), ascii("attack"),
+                                                    ascii("practice"), ascii("undo"), ascii("name"),
+                                                    ascii("hint") };
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final byte[][] DIRECTION_NAMES = new byte[DIRECTIONS.length][];
+
+    static {
+        for (int i = 0; i < DIRECTIONS.length; i++) {
+            DIRECTION_NAMES[i] = ascii(DIRECTIONS[i].name());
+        }
+    }
+
+    private int action;
+    private int x;
+    private int y;
+    private Direction dir;
+    private String name;
+
+    public int getAction() { return action; }
+    public int getX() { return x; }
+    public int getY() { return y; }
+    public Direction getDir() { return dir; }
+    public String getName() { return name; }
+
+    public void set(int action, int x, int y, Direction dir) {
+        this.action = action;
+        this.x = x;
+        this.y = y;
+        this.dir = dir;
+        this.name = null;
+    }
+
+    // the player name of a NAME action, set by the general decoder
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Parses an application/x-www-form-urlencoded body such as
+     * "action=attack&x=3&y=4". Returns false when the body holds escapes,
+     * non-numeric coordinates, a place/attack without both coordinates, or
+     * is a NAME action.
+     */
+    public boolean parse(byte[] buf, int off, int len) {
+        action = NONE;
+        x = -1;
+        y = -1;
+        dir = null;
+        name = null;
+
+        int end = off + len;
+        int i = off;
+        while (i < end) {
+            int keyStart = i;
+            while (i < end && buf[i] != '=' && buf[i] != '&') {
+                if (buf[i] == '%' || buf[i] == '+') return false;
+                i++;
+            }
+            int keyEnd = i;
+            int valStart = i < end && buf[i] == '=' ? ++i : i;
+            while (i < end && buf[i] != '&') {
+                if (buf[i] == '%' || buf[i] == '+') return false;
+                i++;
+            }
+            int valEnd = i;
+            i++;   // skip '&'
+
+            if (matches(buf, keyStart, keyEnd, KEY_ACTION)) {
+                action = NONE;
+                for (int a = 0; a < ACTION_NAMES.length; a++) {
+                    if (matches(buf, valStart, valEnd, ACTION_NAMES[a])) action = a;
+                }
+            } else if (matches(buf, keyStart, keyEnd, KEY_X)) {
+                if ((x = digits(buf, valStart, valEnd)) < 0) return false;
+            } else if (matches(buf, keyStart, keyEnd, KEY_Y)) {
+                if ((y = digits(buf, valStart, valEnd)) < 0) return false;
+            } else if (matches(buf, keyStart, keyEnd, KEY_DIR)) {
+                dir = null;
+                for (int d = 0; d < DIRECTIONS.length; d++) {
+                    if (matches(buf, valStart, valEnd, DIRECTION_NAMES[d])) dir = DIRECTIONS[d];
+                }
+            }
+        }
+        if (action == NAME) return false;
+        return (action != PLACE && action != ATTACK) || (x >= 0 && y >= 0);
+    }
+
+    private static boolean matches(byte[] buf, int from, int to, byte[] word) {
+        if (to - from != word.length) return false;
+        for (int i = 0; i < word.length; i++) {
+            if (buf[from + i] != word[i]) return false;
+        }
+        return true;
+    }
+
+    // a small non-negative decimal, or -1
+    private static int digits(byte[] buf, int from, int to) {
+        if (from == to || to - from > 6) return -1;
+        int v = 0;
+        for (int i = from; i < to; i++) {
+            int d = buf[i] - '0';
+            if (d < 0 || d > 9) return -1;
+            v = v * 10 + d;
+        }
+        return v;
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,91 @@
+import java.util.Random;
+
+/**
+ * A headless game between two AttackStrategy instances.
+ * Each side gets a random fleet; step() fires one shot for whichever side is
+ * on turn. Nothing here touches Swing, so it can run on any thread.
+ */
+public class AiMatch {
+    private static final GameObserver SILENT = msg -> {};
+
+    private final GameBoard[] boards = { new GameBoard(), new GameBoard() };
+    private final CPUPlayer[] players;
+    private final String[] names;
+    private int turn;
+    private int shots;
+    private int winner = -1;
+
+    // side 0 attacks boards[1] and vice versa; firstToMove picks who opens
+    public AiMatch(AttackStrategy a, AttackStrategy b, int firstToMove, Random random) {
+        this.players = new CPUPlayer[] { new CPUPlayer(a), new CPUPlayer(b) };
+        this.names = new String[] { a.getClass().getSimpleName(), b.getClass().getSimpleName() };
+        this.turn = firstToMove;
+
+        ShipFactory shipFactory = new ShipFactory(SILENT);
+        FleetPlacer placer = new FleetPlacer(random);
+        placer.placeFleet(boards[0], shipFactory, false);
+        placer.placeFleet(boards[1], shipFactory, true);
+    }
+
+    // fires one shot for the side on turn; returns the attacked position or null once over
+    public Position step() {
+        if (isOver()) return null;
+
+        CPUPlayer player = players[turn];
+        GameBoard target = boards[1 - turn];
+        Position pos = player.determineAttackPosition(target);
+        boolean hit = target.receiveAttack(pos);
+
+        String shipType = null;
+        boolean isSunk = false;
+        if (hit) {
+            Ship ship = target.getShipAt(pos);
+            shipType = ship.getType();
+            isSunk = ship.isSunk();
+        }
+        player.recordAttackResult(pos, hit, shipType, isSunk);
+        shots++;
+
+        if (hit && target.isAllShipsSunk()) {
+            winner = turn;
+        } else {
+            turn = 1 - turn;
+        }
+        return pos;
+    }
+
+    // plays to the end and returns the winning side
+    public int playOut() {
+        while (!isOver()) {
+            step();
+        }
+        return winner;
+    }
+
+    public boolean isOver() {
+        return winner >= 0;
+    }
+
+    // 0 or 1, or -1 while the game is running
+    public int getWinner() {
+        return winner;
+    }
+
+    // the side that fires next
+    public int getTurn() {
+        return turn;
+    }
+
+    public int getShots() {
+        return shots;
+    }
+
+    // the board side 'side' defends
+    public GameBoard getBoard(int side) {
+        return boards[side];
+    }
+
+    public String getName(int side) {
+        return names[side];
+    }
+}
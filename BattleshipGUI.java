@@ -1,11 +1,12 @@
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.ActionListener;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 public class BattleshipGUI extends JFrame {
     private GameController controller;
-    private JPanel playerBoardPanel;
-    private JPanel enemyBoardPanel;
+    private BoardComponent playerBoardView;
+    private BoardComponent enemyBoardView;
     private JTextArea gameLog;
     private Direction currentDirection = Direction.EAST;
     private JLabel placementInstructions;
@@ -21,8 +22,8 @@ public class BattleshipGUI extends JFrame {
         setLayout(new BorderLayout());
 
         // create boards
-        playerBoardPanel = createBoard(true);
-        enemyBoardPanel = createBoard(false);
+        playerBoardView = createBoard(true);
+        enemyBoardView = createBoard(false);
 
         // game log
         gameLog = new JTextArea(10, 40);
@@ -43,13 +44,18 @@ public class BattleshipGUI extends JFrame {
 
         directionPanel.add(rotateButton);
 
+        // opens an AI-vs-AI window for watching strategies
+        JButton spectateButton = new JButton("Spectate AI vs AI");
+        spectateButton.addActionListener(e -> new SpectatorFrame().setVisible(true));
+        directionPanel.add(spectateButton);
+
         // layout
         JPanel boardsPanel = new JPanel(new GridLayout(1, 2, 50, 0));
         boardsPanel.setBorder(BorderFactory.createEmptyBorder(10, 20, 10, 20));
 
-        boardsPanel.add(createBoardPanel(playerBoardPanel, "Your Fleet"));
+        boardsPanel.add(createBoardPanel(playerBoardView, "Your Fleet"));
         boardsPanel.add(Box.createRigidArea(new Dimension(20, 0)));
-        boardsPanel.add(createBoardPanel(enemyBoardPanel, "Enemy Waters"));
+        boardsPanel.add(createBoardPanel(enemyBoardView, "Enemy Waters"));
 
         JPanel topPanel = new JPanel(new BorderLayout());
         topPanel.add(placementInstructions, BorderLayout.NORTH);
@@ -59,9 +65,6 @@ public class BattleshipGUI extends JFrame {
         add(boardsPanel, BorderLayout.CENTER);
         add(logScrollPane, BorderLayout.SOUTH);
 
-        makeButtonsSquare(playerBoardPanel);
-        makeButtonsSquare(enemyBoardPanel);
-
         updatePlacementInstructions();
         updateBoardColors();
 
@@ -86,8 +89,10 @@ public class BattleshipGUI extends JFrame {
         if (controller == null) return;
 
         if (controller.isPlacementPhase()) {
+            int length = controller.getCurrentShipTypeToPlace().getLength();
             if (controller.tryPlacePlayerShip(pos, currentDirection)) {
-                updateBoardColors();
+                // only the new ship's cells changed
+                playerBoardView.markDirty(pos, currentDirection, length);
                 updatePlacementInstructions();
                 if (!controller.isPlacementPhase()) {
                     enableEnemyBoard(true);
@@ -105,6 +110,11 @@ public class BattleshipGUI extends JFrame {
             return;
         }
 
+        // already attacked cells are not clickable
+        if (controller.getEnemyBoard().isHit(pos)) {
+            return;
+        }
+
         // set processing flag to prevent multiple clicks
         processingTurn = true;
 
@@ -119,28 +129,21 @@ public class BattleshipGUI extends JFrame {
             return;
         }
 
-        // add delay before CPU's turn using SwingWorker
-        // I used AI to help me write this section of SwingWorker
-        new SwingWorker<Void, Void>() {
-            @Override
-            protected Void doInBackground() throws Exception {
-                // 1-second delay
-                Thread.sleep(1000);
-                return null;
-            }
-
-            @Override
-            protected void done() {
-                // CPU's turn after delay
-                Position cpuAttack = controller.cpuAttack();
-                if (cpuAttack != null) {  // Check if move was made (not game over)
-                    updatePlayerBoard(cpuAttack, controller.isHit(cpuAttack));
-                    log("Enemy attacked " + cpuAttack);
-                }
-                // Reset processing flag
-                processingTurn = false;
-            }
-        }.execute();
+        // CPU's turn: the move is decided on the compute executor after a
+        // 1-second delay (no thread sleeps), then applied back on the EDT
+        controller.cpuAttackAsync(
+                        CompletableFuture.delayedExecutor(1, TimeUnit.SECONDS, ComputeExecutor.get()),
+                        SwingUtilities::invokeLater)
+                .whenComplete((cpuAttack, err) -> SwingUtilities.invokeLater(() -> {
+                    if (cpuAttack != null) {  // Check if move was made (not game over)
+                        updatePlayerBoard(cpuAttack, controller.isHit(cpuAttack));
+                        log("Enemy attacked " + cpuAttack);
+                    } else if (err != null) {
+                        log("Enemy move failed: " + err.getMessage());
+                    }
+                    // Reset processing flag
+                    processingTurn = false;
+                }));
     }
 
     // displays game over pop-up
@@ -160,67 +163,21 @@ public class BattleshipGUI extends JFrame {
         if (controller == null) return;
 
         log("Revealing enemy ship positions...");
-
-        for (int y = 0; y < 10; y++) {
-            for (int x = 0; x < 10; x++) {
-                Position pos = new Position(x, y);
-                JButton button = (JButton) enemyBoardPanel.getComponent(y * 10 + x);
-
-                // if position has a ship and hasn't been hit yet
-                if (controller.getEnemyBoard().isOccupied(pos) && !controller.getEnemyBoard().isHit(pos)) {
-                    button.setBackground(Color.DARK_GRAY);
-                }
-            }
-        }
+        enemyBoardView.revealShips();
     }
 
     private void enableEnemyBoard(boolean enable) {
-        for (Component comp : enemyBoardPanel.getComponents()) {
-            if (comp instanceof JButton) {
-                comp.setEnabled(enable);
-            }
-        }
+        enemyBoardView.setEnabled(enable);
     }
 
     private void updateBoardColors() {
         if (controller == null) return;
 
-        for (int y = 0; y < 10; y++) {
-            for (int x = 0; x < 10; x++) {
-                Position pos = new Position(x, y);
-                JButton playerButton = (JButton) playerBoardPanel.getComponent(y * 10 + x);
-                JButton enemyButton = (JButton) enemyBoardPanel.getComponent(y * 10 + x);
-
-                // player board
-                playerButton.setBackground(Color.BLUE);
-                if (controller.getPlayerBoard().isOccupied(pos)) {
-                    playerButton.setBackground(Color.DARK_GRAY);
-                }
-
-                // enemy board
-                enemyButton.setBackground(Color.BLUE);
-                if (controller.getEnemyBoard().isHit(pos)) {
-                    enemyButton.setBackground(controller.getEnemyBoard().checkHit(pos) != null ?
-                            Color.YELLOW : Color.GRAY);
-                }
-            }
-        }
-    }
-
-    private void makeButtonsSquare(JPanel boardPanel) {
-        for (Component comp : boardPanel.getComponents()) {
-            if (comp instanceof JButton) {
-                JButton button = (JButton) comp;
-                Dimension size = button.getPreferredSize();
-                int max = Math.max(size.width, size.height);
-                button.setPreferredSize(new Dimension(max, max));
-                button.setMinimumSize(new Dimension(max, max));
-                button.setMaximumSize(new Dimension(max, max));
-            }
-        }
+        playerBoardView.setBoard(controller.getPlayerBoard());
+        enemyBoardView.setBoard(controller.getEnemyBoard());
     }
 
-    private JPanel createBoardPanel(JPanel board, String title) {
+    private JPanel createBoardPanel(JComponent board, String title) {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
         JLabel titleLabel = new JLabel(title, JLabel.CENTER);
@@ -230,52 +187,23 @@ public class BattleshipGUI extends JFrame {
         return panel;
     }
 
-    private JPanel createBoard(boolean isPlayerBoard) {
-        JPanel board = new JPanel(new GridLayout(10, 10, 1, 1));
-        board.setBorder(BorderFactory.createLineBorder(Color.BLACK));
-
-        // remove all existing components first
-        board.removeAll();
-
-        for (int y = 0; y < 10; y++) {
-            for (int x = 0; x < 10; x++) {
-                Position pos = new Position(x, y);
-                JButton button = new JButton();
-                button.setOpaque(true);
-                button.setBorderPainted(false);
-                button.setBackground(Color.CYAN);
-
-                // identify the button
-                button.setActionCommand(pos.toString());
+    private BoardComponent createBoard(boolean isPlayerBoard) {
+        BoardComponent board = new BoardComponent(isPlayerBoard);
 
-                // add listener only if not already present
-                for (ActionListener al : button.getActionListeners()) {
-                    button.removeActionListener(al);
-                }
-
-                if (isPlayerBoard) {
-                    button.addActionListener(e -> handlePlayerBoardClick(pos));
-                } else {
-                    button.addActionListener(e -> handleAttackClick(pos));
-                }
-
-                board.add(button);
-            }
+        if (isPlayerBoard) {
+            board.setClickHandler(this::handlePlayerBoardClick);
+        } else {
+            board.setClickHandler(this::handleAttackClick);
         }
         return board;
     }
 
-
-
     private void updateEnemyBoard(Position pos, boolean hit) {
-        JButton button = (JButton) enemyBoardPanel.getComponent(pos.getY() * 10 + pos.getX());
-        button.setBackground(hit ? Color.RED : Color.GRAY);
-        button.setEnabled(false);
+        enemyBoardView.markDirty(pos);
     }
 
     private void updatePlayerBoard(Position pos, boolean hit) {
-        JButton button = (JButton) playerBoardPanel.getComponent(pos.getY() * 10 + pos.getX());
-        button.setBackground(hit ? Color.RED : Color.GRAY);
+        playerBoardView.markDirty(pos);
     }
 
     private void log(String message) {
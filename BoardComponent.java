@@ -0,0 +1,226 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.function.Consumer;
+
+/**
+ * Paints a whole 10x10 board in one component.
+ * Cells are drawn into a cached image; an event only redraws the cells it
+ * touched and repaints their rectangles, so fast replays stay cheap on the EDT.
+ * All methods must be called on the EDT.
+ */
+public class BoardComponent extends JComponent {
+    private static final int SIZE = 10;
+    private static final int CELL = 40;
+    private static final int GAP = 1;
+
+    private static final Color WATER = Color.BLUE;
+    private static final Color SHIP = Color.DARK_GRAY;
+    private static final Color HIT = Color.RED;
+    private static final Color MISS = Color.GRAY;
+    private static final Color GRID = Color.BLACK;
+
+    // per-cell states used for snapshots, indexed y * 10 + x
+    public static final byte WATER_STATE = 0;
+    public static final byte SHIP_STATE = 1;
+    public static final byte HIT_STATE = 2;
+    public static final byte MISS_STATE = 3;
+
+    private final boolean showShips;
+    private boolean revealShips = false;
+    private GameBoard board;
+    private byte[] snapshot;
+    private Consumer<Position> clickHandler;
+
+    // pixel cache of the whole board, rebuilt only when the board or size changes
+    private BufferedImage cache;
+    private int cellSize = CELL;
+
+    public BoardComponent(boolean showShips) {
+        this.showShips = showShips;
+        setPreferredSize(new Dimension(SIZE * CELL + GAP, SIZE * CELL + GAP));
+        setOpaque(true);
+
+        // press and release in the same cell is a click, like a button; mouseClicked
+        // would drop it whenever the mouse moves a pixel in between
+        addMouseListener(new MouseAdapter() {
+            private int pressed = -1;
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                pressed = cellAt(e);
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                int cell = cellAt(e);
+                boolean click = cell >= 0 && cell == pressed;
+                pressed = -1;
+                if (click && isEnabled() && clickHandler != null) {
+                    clickHandler.accept(Position.of(cell));
+                }
+            }
+        });
+    }
+
+    // the Grid cell under the mouse, or -1 off the board
+    private int cellAt(MouseEvent e) {
+        int x = e.getX() / cellSize;
+        int y = e.getY() / cellSize;
+        return e.getX() >= 0 && e.getY() >= 0 && x < SIZE && y < SIZE ? Grid.index(x, y) : -1;
+    }
+
+    public void setClickHandler(Consumer<Position> handler) {
+        this.clickHandler = handler;
+    }
+
+    // swaps in a new board and redraws everything once
+    public void setBoard(GameBoard board) {
+        this.board = board;
+        this.snapshot = null;
+        this.revealShips = false;
+        cache = null;
+        repaint();
+    }
+
+    // shows hidden ships that were never hit, e.g. after the player loses
+    public void revealShips() {
+        revealShips = true;
+        if (board == null) return;
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                Cell cell = board.cell(Grid.index(x, y));
+                if (cell.hasShip() && !cell.isHit()) {
+                    markDirty(x, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws from a snapshot instead of a live board, for boards owned by
+     * another thread. Only cells that differ from the previous snapshot are
+     * redrawn, however many shots happened in between.
+     */
+    public void showSnapshot(byte[] states) {
+        board = null;
+        if (snapshot == null) {
+            snapshot = states.clone();
+            markAllDirty();
+            return;
+        }
+        for (int i = 0; i < snapshot.length; i++) {
+            if (snapshot[i] != states[i]) {
+                snapshot[i] = states[i];
+                markDirty(i % SIZE, i / SIZE);
+            }
+        }
+    }
+
+    // encodes a cell the way a board with these settings would draw it
+    public static byte stateOf(Cell cell, boolean showShips) {
+        if (cell.isHit()) {
+            return cell.hasShip() ? HIT_STATE : MISS_STATE;
+        }
+        return cell.hasShip() && showShips ? SHIP_STATE : WATER_STATE;
+    }
+
+    // redraws a single cell into the cache and repaints only its rectangle
+    public void markDirty(int x, int y) {
+        if (cache == null) {
+            repaint();
+            return;
+        }
+        Graphics2D g = cache.createGraphics();
+        try {
+            paintCell(g, x, y);
+        } finally {
+            g.dispose();
+        }
+        repaint(x * cellSize, y * cellSize, cellSize + GAP, cellSize + GAP);
+    }
+
+    public void markDirty(Position pos) {
+        markDirty(pos.getX(), pos.getY());
+    }
+
+    // marks every cell a ship of this length covers, used after placement
+    public void markDirty(Position start, Direction dir, int length) {
+        int cells = Math.min(length, Grid.reach(start.getCell(), dir) + 1);
+        for (int i = 0, c = start.getCell(); i < cells; i++, c += Grid.step(dir)) {
+            markDirty(Grid.x(c), Grid.y(c));
+        }
+    }
+
+    // redraws every cell, e.g. when a new controller is attached
+    public void markAllDirty() {
+        cache = null;
+        repaint();
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        super.setEnabled(enabled);
+        setCursor(enabled ? Cursor.getPredefinedCursor(Cursor.HAND_CURSOR) : Cursor.getDefaultCursor());
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        int newCellSize = Math.max(1, (Math.min(getWidth(), getHeight()) - GAP) / SIZE);
+        if (cache == null || newCellSize != cellSize) {
+            cellSize = newCellSize;
+            rebuildCache();
+        }
+
+        // only the clip (the dirty rectangles) is actually copied to screen
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            g.drawImage(cache, 0, 0, null);
+        } else {
+            g.drawImage(cache, clip.x, clip.y, clip.x + clip.width, clip.y + clip.height,
+                    clip.x, clip.y, clip.x + clip.width, clip.y + clip.height, null);
+        }
+    }
+
+    private void rebuildCache() {
+        int px = SIZE * cellSize + GAP;
+        cache = new BufferedImage(px, px, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = cache.createGraphics();
+        try {
+            g.setColor(GRID);
+            g.fillRect(0, 0, px, px);
+            for (int y = 0; y < SIZE; y++) {
+                for (int x = 0; x < SIZE; x++) {
+                    paintCell(g, x, y);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private void paintCell(Graphics2D g, int x, int y) {
+        g.setColor(cellColor(x, y));
+        g.fillRect(x * cellSize + GAP, y * cellSize + GAP, cellSize - GAP, cellSize - GAP);
+    }
+
+    private Color cellColor(int x, int y) {
+        byte state;
+        if (snapshot != null) {
+            state = snapshot[y * SIZE + x];
+        } else if (board != null) {
+            state = stateOf(board.cell(Grid.index(x, y)), showShips || revealShips);
+        } else {
+            state = WATER_STATE;
+        }
+
+        return switch (state) {
+            case SHIP_STATE -> SHIP;
+            case HIT_STATE -> HIT;
+            case MISS_STATE -> MISS;
+            default -> WATER;
+        };
+    }
+}
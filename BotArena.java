@@ -0,0 +1,133 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Benchmarks an external bot against SmartCPUStrategy.
+ * Many games run at once against one bot process. Each round advances every
+ * game until the bot is on turn, sends all SHOOT requests in one write and
+ * then collects the answers, so process I/O is paid per round, not per shot.
+ *
+ * Usage: java BotArena [games] [concurrent] -- <bot command...>
+ */
+public class BotArena {
+    private static final int BOT = 0;
+    private static final long ANSWER_SECONDS = 10;
+
+    private final ExternalBot bot;
+    private final int games;
+    private final int concurrent;
+    private final Random random = new Random();
+
+    private int started;
+    private int botWins;
+    private long totalShots;
+    private int invalidMoves;
+    private long rounds;
+
+    private static class Game {
+        final int id;
+        final ExternalBotStrategy strategy;
+        final AiMatch match;
+        CompletableFuture<Position> answer;
+
+        Game(int id, ExternalBotStrategy strategy, AiMatch match) {
+            this.id = id;
+            this.strategy = strategy;
+            this.match = match;
+        }
+    }
+
+    public BotArena(ExternalBot bot, int games, int concurrent) {
+        this.bot = bot;
+        this.games = games;
+        this.concurrent = concurrent;
+    }
+
+    public void run() throws Exception {
+        List<Game> active = new ArrayList<>();
+        long start = System.nanoTime();
+
+        while (started < games || !active.isEmpty()) {
+            while (active.size() < concurrent && started < games) {
+                int id = started++;
+                ExternalBotStrategy strategy = new ExternalBotStrategy(bot, id);
+                AiMatch match = new AiMatch(strategy, new SmartCPUStrategy(), id % 2, random);
+                active.add(new Game(id, strategy, match));
+            }
+
+            // let the built-in side move until every game waits on the bot
+            for (Game g : active) {
+                while (!g.match.isOver() && g.match.getTurn() != BOT) {
+                    g.match.step();
+                }
+            }
+
+            for (Game g : active) {
+                if (!g.match.isOver()) g.answer = bot.shoot(g.id);
+            }
+            bot.flush();
+            rounds++;
+
+            for (int i = active.size() - 1; i >= 0; i--) {
+                Game g = active.get(i);
+                if (g.answer != null) {
+                    Position pos;
+                    try {
+                        pos = g.answer.get(ANSWER_SECONDS, TimeUnit.SECONDS);
+                    } catch (ExecutionException | TimeoutException e) {
+                        pos = null;   // counted as an invalid move, like a bad cell
+                    }
+                    g.strategy.prefetch(pos);
+                    g.answer = null;
+                    g.match.step();
+                }
+                if (g.match.isOver()) {
+                    finish(g);
+                    active.remove(i);
+                }
+            }
+        }
+
+        bot.flush();
+        print(System.nanoTime() - start);
+    }
+
+    private void finish(Game g) throws IOException {
+        if (g.match.getWinner() == BOT) botWins++;
+        totalShots += g.match.getShots();
+        invalidMoves += g.strategy.getInvalidMoves();
+        bot.endGame(g.id);
+    }
+
+    private void print(long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("Games:         %d (%d at a time)%n", games, concurrent);
+        System.out.printf("Bot wins:      %d (%.1f%%) vs SmartCPUStrategy%n", botWins, 100.0 * botWins / games);
+        System.out.printf("Avg shots:     %.1f per game%n", (double) totalShots / games);
+        System.out.printf("Invalid moves: %d%n", invalidMoves);
+        System.out.printf("Rounds:        %d%n", rounds);
+        System.out.printf("Elapsed:       %.2f s (%.0f games/s)%n", seconds, games / seconds);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int sep = Arrays.asList(args).indexOf("--");
+        if (sep < 0 || sep == args.length - 1) {
+            System.err.println("Usage: java BotArena [games] [concurrent] -- <bot command...>");
+            System.exit(1);
+        }
+        int games = sep > 0 ? Integer.parseInt(args[0]) : 1000;
+        int concurrent = sep > 1 ? Integer.parseInt(args[1]) : 64;
+        List<String> command = Arrays.asList(args).subList(sep + 1, args.length);
+
+        try (ExternalBot bot = new ExternalBot(command)) {
+            new BotArena(bot, games, concurrent).run();
+        }
+    }
+}
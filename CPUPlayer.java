@@ -1,29 +1,83 @@
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class CPUPlayer {
     private AttackStrategy strategy;
     private List<Position> attackHistory;
 
+    // the server's opponent: -Dbattleship.cpuStrategy=density for DensityAttackStrategy, smart otherwise
     public CPUPlayer() {
-        this.strategy = new SmartCPUStrategy();
+        this("density".equals(System.getProperty("battleship.cpuStrategy"))
+                ? new DensityAttackStrategy()
+                : new SmartCPUStrategy());
+    }
+
+    public CPUPlayer(AttackStrategy strategy) {
+        this.strategy = strategy;
         this.attackHistory = new ArrayList<>();
     }
 
     // finds the next attack position
     public Position determineAttackPosition(GameBoard board) {
+        GameEvents.AiDecision event = new GameEvents.AiDecision();
+        event.begin();
         Position nextAttack;
+        int proposals = 0;
 
         // makes sure it doesnt attack a position thats already hit
         do {
             nextAttack = strategy.getNextAttackPosition(board, attackHistory);
+            proposals++;
         } while (board.isHit(nextAttack));
 
         // record this attack
         attackHistory.add(nextAttack);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.strategy = strategy.getClass().getSimpleName();
+            event.candidates = countOpenCells(board);
+            event.proposals = proposals;
+            event.commit();
+        }
         return nextAttack;
     }
 
+    // true when moves can go through HeatmapBatch instead of the compute executor
+    public boolean isBatchable() {
+        return strategy instanceof DensityAttackStrategy;
+    }
+
+    // same move as determineAttackPosition, scored together with other sessions' pending moves;
+    // the decision time and AiDecision event cover the wait for the batch as well
+    public CompletableFuture<Position> determineAttackPositionBatched(GameBoard board) {
+        GameEvents.AiDecision event = new GameEvents.AiDecision();
+        event.begin();
+        long start = System.nanoTime();
+        return HeatmapBatch.submit(board).thenApply(pos -> {
+            attackHistory.add(pos);
+            Metrics.CPU_DECISION.observe(System.nanoTime() - start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.strategy = strategy.getClass().getSimpleName();
+                event.candidates = countOpenCells(board);
+                event.proposals = 1;
+                event.commit();
+            }
+            return pos;
+        });
+    }
+
+    // cells the strategy could still have picked; only counted when the JFR event is recorded
+    private static int countOpenCells(GameBoard board) {
+        int open = 0;
+        for (int c = 0; c < Grid.CELLS; c++) {
+            if (!board.isHit(c)) open++;
+        }
+        return open;
+    }
+
 
     public void recordAttackResult(Position pos, boolean hit, String shipType, boolean isSunk) {
         // record the attack in history
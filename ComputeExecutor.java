@@ -0,0 +1,52 @@
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared thread pool for CPU move decisions.
+ * Keeps slow AI work off HTTP request threads and the Swing event thread.
+ * Server moves also reserve one of a fixed number of in-flight slots
+ * (-Dbattleship.maxCpuMoves, default 4 per core) so overload is refused
+ * instead of piling up in the pool's queue.
+ */
+public final class ComputeExecutor {
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    private static final ExecutorService POOL = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors()),
+            r -> {
+                Thread t = new Thread(r, "cpu-move-" + threadCount.incrementAndGet());
+                // daemon so the pool never keeps the GUI or server alive on exit
+                t.setDaemon(true);
+                return t;
+            });
+
+    private static final int MAX_IN_FLIGHT = Integer.getInteger("battleship.maxCpuMoves",
+            4 * Math.max(1, Runtime.getRuntime().availableProcessors()));
+    private static final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+
+    private ComputeExecutor() {}
+
+    public static Executor get() {
+        return POOL;
+    }
+
+    // reserves a slot for one CPU move; false when the limit is reached
+    public static boolean tryAcquireMove() {
+        return inFlight.tryAcquire();
+    }
+
+    public static void releaseMove() {
+        inFlight.release();
+    }
+
+    public static int getMovesInFlight() {
+        return MAX_IN_FLIGHT - inFlight.availablePermits();
+    }
+
+    public static int getMaxMovesInFlight() {
+        return MAX_IN_FLIGHT;
+    }
+}
@@ -0,0 +1,129 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Shoots at the open cell covered by the most placements of the ships still
+ * afloat. A placement is possible when it crosses no miss and no cell of a
+ * sunk ship; placements through unsunk hits count HIT_WEIGHT times extra
+ * per hit, so a hit pulls the next shots around it.
+ *
+ * It only reads what the page shows a human (shots, hits and sunk ships),
+ * keeps no state between moves, and breaks ties on the lowest cell, so the
+ * batched path in HeatmapBatch picks exactly the same shot.
+ */
+public class DensityAttackStrategy implements AttackStrategy {
+    static final int CELLS = 100;
+    static final int HIT_WEIGHT = 32;
+
+    // every horizontal and vertical placement of every ship type:
+    // cells are start, start + step, ... for the ship's length
+    static final int[] PLACEMENT_SHIP;
+    static final int[] PLACEMENT_START;
+    static final int[] PLACEMENT_STEP;
+    static final int PLACEMENTS;
+
+    static {
+        int count = 0;
+        for (int s = 0; s < Replay.SHIPS; s++) count += 2 * 10 * (11 - Replay.shipLength(s));
+        PLACEMENTS = count;
+        PLACEMENT_SHIP = new int[count];
+        PLACEMENT_START = new int[count];
+        PLACEMENT_STEP = new int[count];
+        int p = 0;
+        for (int s = 0; s < Replay.SHIPS; s++) {
+            int len = Replay.shipLength(s);
+            for (int a = 0; a < 10; a++) {
+                for (int b = 0; b + len <= 10; b++) {
+                    PLACEMENT_SHIP[p] = s; PLACEMENT_START[p] = a * 10 + b; PLACEMENT_STEP[p] = 1; p++;    // row a
+                    PLACEMENT_SHIP[p] = s; PLACEMENT_START[p] = b * 10 + a; PLACEMENT_STEP[p] = 10; p++;   // column a
+                }
+            }
+        }
+    }
+
+    private final int[] shot = new int[CELLS];
+    private final int[] blocked = new int[CELLS];
+    private final int[] hits = new int[CELLS];
+    private final int[] alive = new int[Replay.SHIPS];
+    private final int[] density = new int[CELLS];
+
+    @Override
+    public Position getNextAttackPosition(GameBoard board, List<Position> history) {
+        encode(board, shot, blocked, hits, alive);
+        density(blocked, hits, alive, density);
+        int cell = best(shot, density);
+        return Position.of(cell);
+    }
+
+    // what a shooter can see of one cell, as SHOT | BLOCKED | HIT bits
+    static final int SHOT = 1, BLOCKED = 2, HIT = 4;
+
+    /**
+     * Reads board into the single-board arrays: shot cells, blocked cells
+     * (misses and sunk ships), unsunk hits, and ships still afloat.
+     */
+    static void encode(GameBoard board, int[] shot, int[] blocked, int[] hits, int[] alive) {
+        Arrays.fill(alive, 1);
+        for (int c = 0; c < CELLS; c++) {
+            Cell cell = board.cell(c);
+            int state = cellState(cell);
+            shot[c] = state & SHOT;
+            blocked[c] = (state & BLOCKED) >> 1;
+            hits[c] = (state & HIT) >> 2;
+            if (isSunkShip(cell)) alive[shipIndex(cell.getShip().getLength())] = 0;
+        }
+    }
+
+    static int cellState(Cell cell) {
+        if (!cell.isHit()) return 0;
+        if (!cell.hasShip() || cell.getShip().isSunk()) return SHOT | BLOCKED;
+        return SHOT | HIT;
+    }
+
+    static boolean isSunkShip(Cell cell) {
+        return cell.isHit() && cell.hasShip() && cell.getShip().isSunk();
+    }
+
+    // placement density for one board
+    static void density(int[] blocked, int[] hits, int[] alive, int[] out) {
+        Arrays.fill(out, 0);
+        for (int p = 0; p < PLACEMENTS; p++) {
+            int ship = PLACEMENT_SHIP[p];
+            if (alive[ship] == 0) continue;
+            int len = Replay.shipLength(ship), step = PLACEMENT_STEP[p];
+            int blk = 0, h = 0;
+            for (int i = 0, c = PLACEMENT_START[p]; i < len; i++, c += step) {
+                blk |= blocked[c];
+                h += hits[c];
+            }
+            if (blk != 0) continue;
+            int w = 1 + HIT_WEIGHT * h;
+            for (int i = 0, c = PLACEMENT_START[p]; i < len; i++, c += step) {
+                out[c] += w;
+            }
+        }
+    }
+
+    // the open cell with the highest density, lowest cell first on ties
+    static int best(int[] shot, int[] density) {
+        int best = -1, bestCell = -1;
+        for (int c = 0; c < CELLS; c++) {
+            if (shot[c] == 0 && density[c] > best) {
+                best = density[c];
+                bestCell = c;
+            }
+        }
+        return bestCell;
+    }
+
+    static int shipIndex(int length) {
+        for (int s = 0; s < Replay.SHIPS; s++) {
+            if (Replay.shipLength(s) == length) return s;
+        }
+        throw new IllegalArgumentException("No ship of length " + length);
+    }
+
+    @Override public void recordHit(Position pos, String shipType, boolean isSunk) {}
+    @Override public void recordMiss(Position pos) {}
+    @Override public void reset() {}
+}
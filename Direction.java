@@ -7,6 +7,10 @@ public enum Direction {
     SOUTH(0, 1),
     WEST(-1, 0);
 
+    // values() clones its array on every call; these are shared
+    private static final Direction[] VALUES = values();
+    private static final List<Direction> ALL = List.of(VALUES);
+
     private final int xOffset;
     private final int yOffset;
 
@@ -19,10 +23,18 @@ public enum Direction {
     public int getXOffset() { return xOffset; }
     public int getYOffset() { return yOffset; }
 
+    // the direction with this ordinal, without cloning values()
+    public static Direction of(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    public static int count() {
+        return VALUES.length;
+    }
+
     // Get a random direction
     public static Direction getRandomDirection() {
-        Direction[] directions = values();
-        return directions[(int) (Math.random() * directions.length)];
+        return VALUES[(int) (Math.random() * VALUES.length)];
     }
 
     // Get opposite direction
@@ -37,6 +49,6 @@ public enum Direction {
 
     // Get all directions as a list
     public static List<Direction> getAllDirections() {
-        return List.of(values());
+        return ALL;
     }
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A minimal bot for the ExternalBot protocol: hunts on a checkerboard and
+ * probes the neighbours of every hit. Reads all pending input before
+ * flushing its answers, so it keeps up with batched rounds.
+ *
+ * Try it with: java BotArena 1000 64 -- java ExampleBot
+ */
+public class ExampleBot {
+    private static final int SIZE = 10;
+    private static final Random random = new Random();
+
+    private static class State {
+        final boolean[] fired = new boolean[SIZE * SIZE];
+        final ArrayDeque<Integer> targets = new ArrayDeque<>();
+    }
+
+    private final Map<Integer, State> games = new HashMap<>();
+
+    private int shoot(State s) {
+        while (!s.targets.isEmpty()) {
+            int cell = s.targets.pop();
+            if (!s.fired[cell]) return fire(s, cell);
+        }
+        int cell;
+        int attempts = 0;
+        do {
+            cell = random.nextInt(SIZE * SIZE);
+            attempts++;
+        } while (s.fired[cell] || (attempts < 200 && (cell / SIZE + cell % SIZE) % 2 != 0));
+        return fire(s, cell);
+    }
+
+    private int fire(State s, int cell) {
+        s.fired[cell] = true;
+        return cell;
+    }
+
+    private void hit(State s, int x, int y) {
+        if (x > 0) s.targets.push(y * SIZE + x - 1);
+        if (x < SIZE - 1) s.targets.push(y * SIZE + x + 1);
+        if (y > 0) s.targets.push((y - 1) * SIZE + x);
+        if (y < SIZE - 1) s.targets.push((y + 1) * SIZE + x);
+    }
+
+    private void run() throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII));
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII)));
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] p = line.split(" ");
+            int game = Integer.parseInt(p[1]);
+            switch (p[0]) {
+                case "NEW" -> games.put(game, new State());
+                case "END" -> games.remove(game);
+                case "HIT" -> hit(games.get(game), Integer.parseInt(p[2]), Integer.parseInt(p[3]));
+                case "MISS" -> { }
+                case "SHOOT" -> {
+                    int cell = shoot(games.get(game));
+                    out.println(game + " " + cell % SIZE + " " + cell / SIZE);
+                }
+                default -> System.err.println("# unknown message: " + line);
+            }
+            if (!in.ready()) out.flush();
+        }
+        out.flush();
+    }
+
+    public static void main(String[] args) throws IOException {
+        new ExampleBot().run();
+    }
+}
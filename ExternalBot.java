@@ -0,0 +1,109 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An out-of-process bot speaking a line protocol over stdin/stdout.
+ * One process serves many games at once; every message carries a game id.
+ *
+ * Arena to bot:
+ *   NEW g            a new game g starts (bot should reset its state for g)
+ *   HIT g x y s      the bot's shot at x,y in game g hit; s = 1 if it sank a ship
+ *   MISS g x y       the bot's shot at x,y in game g missed
+ *   SHOOT g          the bot must answer with a shot for game g
+ *   END g            game g is over; the bot can drop its state
+ * Bot to arena:
+ *   g x y            answer to SHOOT g (answers may come in any order)
+ *   # anything       ignored, for bot logging
+ *
+ * Messages are buffered and only flushed by flush(), so an arena can send a
+ * whole round of requests for many games in one write.
+ */
+public class ExternalBot implements Closeable {
+    private final Process process;
+    private final BufferedWriter out;
+    private final Map<Integer, CompletableFuture<Position>> pending = new ConcurrentHashMap<>();
+
+    public ExternalBot(List<String> command) throws IOException {
+        process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        out = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.US_ASCII), 64 * 1024);
+
+        Thread reader = new Thread(this::readReplies, "bot-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private void readReplies() {
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.US_ASCII), 64 * 1024)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] parts = line.trim().split("\\s+");
+                int game;
+                try {
+                    game = Integer.parseInt(parts[0]);
+                } catch (RuntimeException e) {
+                    System.err.println("Ignoring bad bot reply: " + line);
+                    continue;
+                }
+                CompletableFuture<Position> f = pending.remove(game);
+                if (f == null) continue;
+                // a malformed answer still answers the request, as a failed one
+                try {
+                    f.complete(Position.of(Integer.parseInt(parts[1]), Integer.parseInt(parts[2])));
+                } catch (RuntimeException e) {
+                    f.completeExceptionally(new IllegalArgumentException("Bad bot reply: " + line, e));
+                }
+            }
+        } catch (IOException ignored) {
+            // process ended
+        }
+        IOException gone = new IOException("Bot process exited");
+        pending.values().forEach(f -> f.completeExceptionally(gone));
+    }
+
+    public synchronized void newGame(int game) throws IOException {
+        out.write("NEW " + game + "\n");
+    }
+
+    public synchronized void hit(int game, Position pos, boolean sunk) throws IOException {
+        out.write("HIT " + game + " " + pos.getX() + " " + pos.getY() + " " + (sunk ? 1 : 0) + "\n");
+    }
+
+    public synchronized void miss(int game, Position pos) throws IOException {
+        out.write("MISS " + game + " " + pos.getX() + " " + pos.getY() + "\n");
+    }
+
+    public synchronized void endGame(int game) throws IOException {
+        out.write("END " + game + "\n");
+    }
+
+    // queues a shot request; the answer completes the returned future once flushed and answered
+    public synchronized CompletableFuture<Position> shoot(int game) throws IOException {
+        CompletableFuture<Position> f = new CompletableFuture<>();
+        pending.put(game, f);
+        out.write("SHOOT " + game + "\n");
+        return f;
+    }
+
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            synchronized (this) {
+                out.close();
+            }
+        } finally {
+            process.destroy();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adapts one game of an ExternalBot to the AttackStrategy contract.
+ * Results are queued without flushing, so they travel with the next
+ * request. An arena can hand in a shot it already fetched in a batch with
+ * prefetch(); otherwise the next position is requested and waited for.
+ * Illegal answers (already attacked cells) and missing ones (timed out or
+ * malformed) count as invalid moves and fall back to a random shot.
+ */
+public class ExternalBotStrategy implements AttackStrategy {
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private final ExternalBot bot;
+    private final int game;
+    private final AttackStrategy fallback = new RandomAttackStrategy();
+    private Position prefetched;
+    private boolean hasPrefetched;
+    private int invalidMoves;
+
+    public ExternalBotStrategy(ExternalBot bot, int game) throws IOException {
+        this.bot = bot;
+        this.game = game;
+        bot.newGame(game);
+    }
+
+    // pos is null when the bot failed to answer the batched request
+    public void prefetch(Position pos) {
+        this.prefetched = pos;
+        this.hasPrefetched = true;
+    }
+
+    public int getInvalidMoves() {
+        return invalidMoves;
+    }
+
+    @Override
+    public Position getNextAttackPosition(GameBoard board, List<Position> history) {
+        Position pos = prefetched;
+        boolean asked = hasPrefetched;
+        prefetched = null;
+        hasPrefetched = false;
+        try {
+            if (!asked) {
+                CompletableFuture<Position> f = bot.shoot(game);
+                bot.flush();
+                pos = f.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+        } catch (Exception e) {
+            pos = null;
+        }
+
+        if (pos == null || history.contains(pos)) {
+            invalidMoves++;
+            return fallback.getNextAttackPosition(board, history);
+        }
+        return pos;
+    }
+
+    @Override
+    public void recordHit(Position pos, String shipType, boolean isSunk) {
+        try {
+            bot.hit(game, pos, isSunk);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void recordMiss(Position pos) {
+        try {
+            bot.miss(game, pos);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void reset() {
+        try {
+            bot.newGame(game);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays AI-vs-AI games back to back on a daemon thread and publishes every
+ * shot to a FrameBroadcast, for viewers watching live.
+ *
+ * Frames are one JSON object per line. Cell states are the characters
+ * 0 = water, 1 = ship, 2 = hit, 3 = miss; cells are indexed y * 10 + x and
+ * side N's board is the one side N defends.
+ *   {"type":"snapshot","game":G,"names":[a,b],"wins":[a,b],"boards":["...","..."]}
+ *   {"type":"shot","game":G,"side":S,"cell":C,"state":"2","winner":-1}
+ */
+public class FeaturedGame {
+    private final FrameBroadcast broadcast;
+    private final int shotsPerSecond;
+    private final Random random = new Random();
+    private final long[] wins = new long[2];
+    private long games;
+    private AiMatch match;
+
+    public FeaturedGame(FrameBroadcast broadcast, int shotsPerSecond) {
+        this.broadcast = broadcast;
+        this.shotsPerSecond = Math.max(1, shotsPerSecond);
+    }
+
+    public void start() {
+        Thread t = new Thread(this::run, "featured-game");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void run() {
+        long interval = 1_000_000_000L / shotsPerSecond;
+        while (!Thread.currentThread().isInterrupted()) {
+            if (match == null || match.isOver()) {
+                match = new AiMatch(new SmartCPUStrategy(), new TargetedAttackStrategy(), (int) (games % 2), random);
+                byte[] snapshot = encodeSnapshot();
+                broadcast.publish(snapshot, snapshot);
+            } else {
+                step();
+            }
+            LockSupport.parkNanos(interval);
+        }
+    }
+
+    private void step() {
+        int shooter = match.getTurn();
+        Position pos = match.step();
+        int defender = 1 - shooter;
+        int cell = pos.getCell();
+        char state = stateOf(match.getBoard(defender).cell(cell));
+
+        if (match.isOver()) {
+            games++;
+            wins[match.getWinner()]++;
+        }
+
+        // serialized once here; every viewer gets these same bytes
+        byte[] event = ("{\"type\":\"shot\",\"game\":" + games
+                + ",\"side\":" + defender
+                + ",\"cell\":" + cell
+                + ",\"state\":\"" + state + "\""
+                + ",\"winner\":" + match.getWinner() + "}\n").getBytes(StandardCharsets.UTF_8);
+        broadcast.publish(event, encodeSnapshot());
+    }
+
+    private byte[] encodeSnapshot() {
+        StringBuilder sb = new StringBuilder(300);
+        sb.append("{\"type\":\"snapshot\",\"game\":").append(games)
+          .append(",\"names\":[\"").append(match.getName(0)).append("\",\"").append(match.getName(1)).append("\"]")
+          .append(",\"wins\":[").append(wins[0]).append(',').append(wins[1]).append(']')
+          .append(",\"boards\":[");
+        for (int side = 0; side < 2; side++) {
+            if (side > 0) sb.append(',');
+            sb.append('"');
+            GameBoard board = match.getBoard(side);
+            for (int c = 0; c < Grid.CELLS; c++) {
+                sb.append(stateOf(board.cell(c)));
+            }
+            sb.append('"');
+        }
+        sb.append("]}\n");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static char stateOf(Cell cell) {
+        if (cell.isHit()) return cell.hasShip() ? '2' : '3';
+        return cell.hasShip() ? '1' : '0';
+    }
+}
@@ -0,0 +1,172 @@
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Offline search for CPU fleet layouts that take a long time to sink.
+ *
+ * A layout's score is the mean number of shots a panel of AttackStrategy
+ * implementations needs to sink all of it, each strategy firing alone at a
+ * board holding only that fleet. Every pool entry comes from its own
+ * hill climb: start from a random fleet, move one ship at a time and keep
+ * the move when the score goes up. Because a noisy estimate that won is
+ * biased upwards, the final layout is scored again on fresh games before it
+ * is stored. Chains run in parallel, one per task.
+ *
+ * The result is written as a FleetPool file; start the server with
+ * -Dbattleship.fleetPool=FILE to draw CPU fleets from it.
+ *
+ * Usage: java FleetOptimizer [--out=fleets.bfp] [--pool=2000] [--steps=40] [--games=24]
+ *                            [--threads=N] [--panel=smart,targeted,prior] [--heatmap=heatmap.bin]
+ */
+public class FleetOptimizer {
+    private static final GameObserver SILENT = msg -> {};
+
+    private final List<Supplier<AttackStrategy>> panel;
+    private final int games;
+    private final int steps;
+
+    public FleetOptimizer(List<Supplier<AttackStrategy>> panel, int games, int steps) {
+        this.panel = panel;
+        this.games = games;
+        this.steps = steps;
+    }
+
+    // ── Scoring ──────────────────────────────────────────────────────────────
+
+    // mean shots to sink fleet, over games one-sided games spread evenly across the panel
+    public double score(short[] fleet, int games) {
+        long shots = 0;
+        for (int g = 0; g < games; g++) {
+            shots += shotsToSink(fleet, panel.get(g % panel.size()).get());
+        }
+        return (double) shots / games;
+    }
+
+    private static int shotsToSink(short[] fleet, AttackStrategy strategy) {
+        GameBoard board = new GameBoard();
+        FleetPlacer.placeFleet(board, new ShipFactory(SILENT), true, fleet);
+        CPUPlayer shooter = new CPUPlayer(strategy);
+        int shots = 0;
+        while (!board.isAllShipsSunk() && shots < 100) {
+            Position pos = shooter.determineAttackPosition(board);
+            boolean hit = board.receiveAttack(pos);
+            Ship ship = hit ? board.getShipAt(pos) : null;
+            shooter.recordAttackResult(pos, hit, ship != null ? ship.getType() : null, ship != null && ship.isSunk());
+            shots++;
+        }
+        return shots;
+    }
+
+    // ── Search ───────────────────────────────────────────────────────────────
+
+    /** One hill climb from a random layout; returns the layout and its fresh score. */
+    public Map.Entry<short[], Double> climb(Random random) {
+        FleetPlacer placer = new FleetPlacer(random);
+        short[] best = placer.randomFleet();
+        double bestScore = score(best, games);
+        for (int step = 0; step < steps; step++) {
+            short[] candidate = mutate(best, random);
+            double s = score(candidate, games);
+            if (s > bestScore) {
+                best = candidate;
+                bestScore = s;
+            }
+        }
+        return Map.entry(best, score(best, games * 2));
+    }
+
+    // moves one ship to a random spot and direction where it fits among the others
+    private static short[] mutate(short[] fleet, Random random) {
+        short[] next = fleet.clone();
+        int ship = random.nextInt(Replay.SHIPS);
+        while (true) {
+            int cell = random.nextInt(100);
+            // stored from the top-left cell, facing EAST or SOUTH
+            Direction dir = random.nextBoolean() ? Direction.EAST : Direction.SOUTH;
+            next[ship] = (short) (cell * 4 + dir.ordinal());
+            if (next[ship] != fleet[ship] && FleetPool.isValid(next)) return next;
+        }
+    }
+
+    /** Runs size chains on threads workers and returns them hardest first. */
+    public List<Map.Entry<short[], Double>> buildPool(int size, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicInteger done = new AtomicInteger();
+        List<Future<Map.Entry<short[], Double>>> futures = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            futures.add(executor.submit(() -> {
+                Map.Entry<short[], Double> e = climb(ThreadLocalRandom.current());
+                int n = done.incrementAndGet();
+                if (n % Math.max(1, size / 20) == 0) System.out.printf("  %d / %d layouts%n", n, size);
+                return e;
+            }));
+        }
+        List<Map.Entry<short[], Double>> pool = new ArrayList<>(size);
+        for (Future<Map.Entry<short[], Double>> f : futures) pool.add(f.get());
+        executor.shutdown();
+
+        pool.sort(Map.Entry.<short[], Double>comparingByValue().reversed());
+        return pool;
+    }
+
+    private static Supplier<AttackStrategy> strategy(String name, PlacementHeatmap heatmap) {
+        return switch (name) {
+            case "smart" -> SmartCPUStrategy::new;
+            case "targeted" -> TargetedAttackStrategy::new;
+            case "multi" -> MultiTargetStrategy::new;
+            case "random" -> RandomAttackStrategy::new;
+            case "prior" -> () -> new PriorAttackStrategy(heatmap);
+            default -> throw new IllegalArgumentException("Unknown strategy " + name);
+        };
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Usage: java FleetOptimizer [--out=fleets.bfp] [--pool=2000] [--steps=40] [--games=24]"
+                        + " [--threads=N] [--panel=smart,targeted,prior] [--heatmap=heatmap.bin]");
+                System.exit(1);
+            }
+            opts.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        PlacementHeatmap heatmap = new PlacementHeatmap();
+        if (opts.containsKey("heatmap")) heatmap.load(Path.of(opts.get("heatmap")));
+        List<Supplier<AttackStrategy>> panel = new ArrayList<>();
+        for (String name : opts.getOrDefault("panel", "smart,targeted,prior").split(",")) {
+            panel.add(strategy(name.trim(), heatmap));
+        }
+
+        int size = Integer.parseInt(opts.getOrDefault("pool", "2000"));
+        int games = Integer.parseInt(opts.getOrDefault("games", "24"));
+        int threads = Integer.parseInt(opts.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        FleetOptimizer optimizer = new FleetOptimizer(panel, games, Integer.parseInt(opts.getOrDefault("steps", "40")));
+
+        // what a uniformly random fleet scores against the same panel, for comparison
+        FleetPlacer placer = new FleetPlacer(new Random());
+        double baseline = 0;
+        int baselineFleets = 200;
+        for (int i = 0; i < baselineFleets; i++) baseline += optimizer.score(placer.randomFleet(), games) / baselineFleets;
+
+        long start = System.nanoTime();
+        List<Map.Entry<short[], Double>> pool = optimizer.buildPool(size, threads);
+        short[][] fleets = new short[pool.size()][];
+        double[] scores = new double[pool.size()];
+        double mean = 0;
+        for (int i = 0; i < pool.size(); i++) {
+            fleets[i] = pool.get(i).getKey();
+            scores[i] = pool.get(i).getValue();
+            mean += scores[i] / pool.size();
+        }
+
+        Path out = Path.of(opts.getOrDefault("out", "fleets.bfp"));
+        FleetPool.write(out, fleets, scores);
+        System.out.printf("Wrote %d layouts to %s in %.1f s%n", fleets.length, out, (System.nanoTime() - start) / 1e9);
+        System.out.printf("Mean shots to sink: random fleets %.2f, pool %.2f (hardest %.2f, easiest %.2f)%n",
+                baseline, mean, scores[0], scores[scores.length - 1]);
+    }
+}
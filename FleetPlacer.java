@@ -0,0 +1,94 @@
+import java.util.Random;
+
+/**
+ * Places a full fleet at random positions and directions, or from an
+ * encoded layout such as one drawn from a FleetPool.
+ * Shared by GameController (CPU fleet), headless AI-vs-AI matches and FleetOptimizer.
+ */
+public class FleetPlacer {
+    private final Random random;
+
+    public FleetPlacer(Random random) {
+        this.random = random;
+    }
+
+    // places one ship of every type, retrying until each fits
+    public void placeFleet(GameBoard board, ShipFactory shipFactory, boolean enemy) {
+        for (ShipFactory.ShipType type : ShipFactory.ShipType.values()) {
+            GameEvents.ShipPlacement event = new GameEvents.ShipPlacement();
+            event.begin();
+            int attempts = 0;
+            boolean placed = false;
+            while (!placed) {
+                attempts++;
+                Direction dir = randomDirection();
+                Position pos = getValidRandomPosition(type.getLength(), dir);
+
+                if (board.canPlaceShip(pos, dir, type.getLength())) {
+                    Ship ship = shipFactory.createShip(type);
+                    ship.setEnemy(enemy);
+                    board.placeShip(ship, pos, dir);
+                    placed = true;
+                }
+            }
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.shipType = type.name();
+                event.attempts = attempts;
+                event.enemy = enemy;
+                event.commit();
+            }
+        }
+    }
+
+    // places fleet (Replay.encodeFleet layout); throws IllegalArgumentException if a ship doesn't fit
+    public static void placeFleet(GameBoard board, ShipFactory shipFactory, boolean enemy, short[] fleet) {
+        ShipFactory.ShipType[] types = ShipFactory.ShipType.values();
+        for (int i = 0; i < types.length; i++) {
+            int cell = Replay.placementCell(fleet[i]);
+            Position pos = Position.of(cell);
+            Direction dir = Replay.placementDirection(fleet[i]);
+            if (!board.canPlaceShip(pos, dir, types[i].getLength())) {
+                throw new IllegalArgumentException("Fleet does not fit: " + types[i] + " at " + pos);
+            }
+            Ship ship = shipFactory.createShip(types[i]);
+            ship.setEnemy(enemy);
+            board.placeShip(ship, pos, dir);
+        }
+    }
+
+    // a random fleet in the Replay.encodeFleet layout, without a real board
+    public short[] randomFleet() {
+        GameBoard board = new GameBoard();
+        placeFleet(board, new ShipFactory(msg -> {}), false);
+        return Replay.encodeFleet(board);
+    }
+
+    // finds random position in bounds to place the ship
+    private Position getValidRandomPosition(int shipLength, Direction dir) {
+        // calculate maximum starting position to ensure ship fits within bounds
+        int maxX = 10;
+        int maxY = 10;
+
+        if (dir == Direction.NORTH || dir == Direction.SOUTH) {
+            maxY = 10 - shipLength + 1;
+        } else if (dir == Direction.EAST || dir == Direction.WEST) {
+            maxX = 10 - shipLength + 1;
+        }
+
+        // ensure no negative values
+        maxX = Math.max(1, maxX);
+        maxY = Math.max(1, maxY);
+
+        // return a position within the safe bounds
+        return Position.of(
+                random.nextInt(maxX),
+                random.nextInt(maxY)
+        );
+    }
+
+    private Direction randomDirection() {
+        return Direction.of(random.nextInt(Direction.count()));
+    }
+}
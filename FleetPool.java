@@ -0,0 +1,143 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Pre-scored CPU fleet layouts, built offline by FleetOptimizer.
+ *
+ * File:  "BFP1" magic, layout count (int), then fixed-size entries.
+ * Entry: the fleet (4 shorts, Replay.encodeFleet layout, ShipType order)
+ *        and its score (unsigned short, mean shots to sink it x 100).
+ * Entries are sorted hardest first.
+ *
+ * The file is memory-mapped and every entry is checked once on load, so
+ * drawing a layout is a random index and four reads.
+ */
+public final class FleetPool {
+    public static final byte[] MAGIC = { 'B', 'F', 'P', '1' };
+    public static final int HEADER_BYTES = MAGIC.length + 4;
+    public static final int ENTRY_BYTES = Replay.SHIPS * 2 + 2;
+
+    private static volatile FleetPool shared;
+    private static volatile boolean sharedLoaded;
+
+    private final ByteBuffer entries;
+    private final int size;
+
+    private FleetPool(ByteBuffer entries, int size) {
+        this.entries = entries;
+        this.size = size;
+    }
+
+    /**
+     * The pool named by -Dbattleship.fleetPool, loaded on first use, or null
+     * when none is configured or it can't be read (the caller then places at random).
+     */
+    public static FleetPool shared() {
+        if (!sharedLoaded) {
+            synchronized (FleetPool.class) {
+                if (!sharedLoaded) {
+                    String path = System.getProperty("battleship.fleetPool");
+                    if (path != null) {
+                        try {
+                            shared = load(Path.of(path));
+                        } catch (IOException | IllegalArgumentException e) {
+                            System.err.println("Fleet pool " + path + " not used: " + e.getMessage());
+                        }
+                    }
+                    sharedLoaded = true;
+                }
+            }
+        }
+        return shared;
+    }
+
+    // throws IllegalArgumentException when the file is not a valid pool
+    public static FleetPool load(Path file) throws IOException {
+        ByteBuffer map;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        if (map.remaining() < HEADER_BYTES) throw new IllegalArgumentException("Fleet pool is truncated");
+        for (byte b : MAGIC) {
+            if (map.get() != b) throw new IllegalArgumentException("Not a fleet pool file");
+        }
+        int size = map.getInt();
+        if (size <= 0 || (long) size * ENTRY_BYTES != map.remaining()) {
+            throw new IllegalArgumentException("Fleet pool length does not match its count");
+        }
+
+        FleetPool pool = new FleetPool(map.slice(), size);
+        short[] fleet = new short[Replay.SHIPS];
+        for (int i = 0; i < size; i++) {
+            pool.read(i, fleet);
+            if (!isValid(fleet)) throw new IllegalArgumentException("Fleet pool entry " + i + " is not a legal fleet");
+        }
+        return pool;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // a layout chosen uniformly from the pool
+    public short[] draw(Random random) {
+        short[] fleet = new short[Replay.SHIPS];
+        read(random.nextInt(size), fleet);
+        return fleet;
+    }
+
+    public void read(int index, short[] fleet) {
+        int at = index * ENTRY_BYTES;
+        for (int s = 0; s < Replay.SHIPS; s++) {
+            fleet[s] = entries.getShort(at + s * 2);
+        }
+    }
+
+    // mean shots the optimizer's panel needed to sink layout index
+    public double score(int index) {
+        return Short.toUnsignedInt(entries.getShort(index * ENTRY_BYTES + Replay.SHIPS * 2)) / 100.0;
+    }
+
+    /** Writes fleets and their scores (already sorted) to file, replacing it atomically. */
+    public static void write(Path file, short[][] fleets, double[] scores) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream os = Files.newOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+            out.write(MAGIC);
+            out.writeInt(fleets.length);
+            for (int i = 0; i < fleets.length; i++) {
+                for (short p : fleets[i]) out.writeShort(p);
+                out.writeShort((int) Math.min(0xFFFF, Math.round(scores[i] * 100)));
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // every ship on the board, none overlapping
+    public static boolean isValid(short[] fleet) {
+        long lo = 0, hi = 0;
+        for (int ship = 0; ship < Replay.SHIPS; ship++) {
+            int cell = Replay.placementCell(fleet[ship]);
+            if (cell < 0 || cell >= Grid.CELLS) return false;
+            Direction dir = Replay.placementDirection(fleet[ship]);
+            if (!Grid.fits(cell, dir, Replay.shipLength(ship))) return false;
+            for (int i = 0, c = cell; i < Replay.shipLength(ship); i++, c += Grid.step(dir)) {
+                long bitLo = c < 64 ? 1L << c : 0;
+                long bitHi = c < 64 ? 0 : 1L << (c - 64);
+                if ((lo & bitLo) != 0 || (hi & bitHi) != 0) return false;
+                lo |= bitLo;
+                hi |= bitHi;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,160 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Fans one game's events out to many viewers.
+ * Each event is serialized once by the publisher into an immutable byte
+ * frame that every viewer shares. Viewers have bounded queues: a viewer that
+ * falls behind is skipped ahead to the latest full snapshot instead of
+ * buffering without limit, and one that stops polling is dropped.
+ */
+public class FrameBroadcast {
+    private static final int QUEUE_CAPACITY = 64;
+    private static final long IDLE_MILLIS = 30_000;
+
+    /** An immutable, already-encoded frame. Never modify bytes after publishing. */
+    public static final class Frame {
+        public final long seq;
+        public final byte[] bytes;
+
+        private Frame(long seq, byte[] bytes) {
+            this.seq = seq;
+            this.bytes = bytes;
+        }
+    }
+
+    private final Map<Long, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong nextSubscriberId = new AtomicLong();
+    private final Executor deliveryExecutor;
+    private volatile Frame latestSnapshot;
+    private long seq;
+
+    // parked viewers are answered on deliveryExecutor, never on the publisher's thread
+    public FrameBroadcast(Executor deliveryExecutor) {
+        this.deliveryExecutor = deliveryExecutor;
+    }
+
+    /** One viewer's bounded queue and parked poll. */
+    public final class Subscriber {
+        private final long id;
+        private final ArrayBlockingQueue<Frame> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private Consumer<List<Frame>> waiter;
+        private volatile long lastPoll = System.currentTimeMillis();
+        private long skips;
+
+        private Subscriber(long id) {
+            this.id = id;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        // times this viewer fell behind and was skipped ahead to a snapshot
+        public synchronized long getSkips() {
+            return skips;
+        }
+
+        private void offer(Frame event, Frame snapshot) {
+            Consumer<List<Frame>> w;
+            List<Frame> batch;
+            synchronized (this) {
+                if (!queue.offer(event)) {
+                    // too slow: discard the backlog and jump to the latest state
+                    queue.clear();
+                    queue.offer(snapshot);
+                    skips++;
+                }
+                if (waiter == null) return;
+                w = waiter;
+                waiter = null;
+                batch = drain();
+            }
+            deliveryExecutor.execute(() -> w.accept(batch));
+        }
+
+        /**
+         * Hands queued frames to callback right away, or parks it until the
+         * next frame is published. A newer poll replaces an older one.
+         */
+        public void poll(Consumer<List<Frame>> callback) {
+            lastPoll = System.currentTimeMillis();
+            Consumer<List<Frame>> previous;
+            List<Frame> batch = null;
+            synchronized (this) {
+                previous = waiter;
+                waiter = null;
+                if (queue.isEmpty()) {
+                    waiter = callback;
+                } else {
+                    batch = drain();
+                }
+            }
+            if (previous != null) previous.accept(List.of());
+            if (batch != null) callback.accept(batch);
+        }
+
+        private List<Frame> drain() {
+            List<Frame> batch = new ArrayList<>(queue.size());
+            queue.drainTo(batch);
+            return batch;
+        }
+
+        private synchronized Consumer<List<Frame>> release() {
+            Consumer<List<Frame>> w = waiter;
+            waiter = null;
+            return w;
+        }
+    }
+
+    // new viewers start from the latest snapshot
+    public Subscriber subscribe() {
+        Subscriber s = new Subscriber(nextSubscriberId.incrementAndGet());
+        Frame snap = latestSnapshot;
+        if (snap != null) s.queue.offer(snap);
+        subscribers.put(s.id, s);
+        return s;
+    }
+
+    public Subscriber get(long id) {
+        return subscribers.get(id);
+    }
+
+    public void unsubscribe(long id) {
+        Subscriber s = subscribers.remove(id);
+        if (s != null) {
+            Consumer<List<Frame>> w = s.release();
+            if (w != null) deliveryExecutor.execute(() -> w.accept(List.of()));
+        }
+    }
+
+    /**
+     * Publishes one event. eventBytes and snapshotBytes are encoded once by
+     * the caller and shared by every viewer. Called from a single publisher thread.
+     */
+    public void publish(byte[] eventBytes, byte[] snapshotBytes) {
+        long s = ++seq;
+        Frame event = new Frame(s, eventBytes);
+        Frame snapshot = new Frame(s, snapshotBytes);
+        latestSnapshot = snapshot;
+
+        long cutoff = System.currentTimeMillis() - IDLE_MILLIS;
+        for (Subscriber sub : subscribers.values()) {
+            if (sub.lastPoll < cutoff) {
+                unsubscribe(sub.id);
+            } else {
+                sub.offer(event, snapshot);
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+}
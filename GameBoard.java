@@ -4,10 +4,12 @@ import java.util.List;
 /**
  * GameBoard class
  * Main functions: keep track of each players board
+ * Cells are reachable both as cells[x][y] and by Grid index through cell(int).
  */
 public class GameBoard {
     private final int SIZE = 10;
     public Cell[][] cells;
+    private final Cell[] byIndex = new Cell[Grid.CELLS];   // the same Cell objects, y * 10 + x
     private List<Ship> ships;
 
     public GameBoard() {
@@ -17,25 +19,30 @@ public class GameBoard {
         for (int i = 0; i < SIZE; i++) {
             for (int j = 0; j < SIZE; j++) {
                 cells[i][j] = new Cell();
+                byIndex[Grid.index(i, j)] = cells[i][j];
             }
         }
         ships = new ArrayList<>();
     }
 
+    // the cell at a Grid index
+    public Cell cell(int index) {
+        return byIndex[index];
+    }
+
     // places a ship in a direction, starting at a position
     public void placeShip(Ship ship, Position start, Direction direction) {
         // in bounds check
-        if (!isShipWithinBounds(start, direction, ship.getLength())) {
+        if (!Grid.fits(start.getCell(), direction, ship.getLength())) {
             throw new IllegalArgumentException("Ship would extend beyond board boundaries");
         }
+        if (!isClear(start.getCell(), direction, ship.getLength())) {
+            throw new IllegalArgumentException("Position already occupied");
+        }
 
-        Position current = start;
-        for (int i = 0; i < ship.getLength(); i++) {
-            if (isOccupied(current)) {
-                throw new IllegalArgumentException("Position already occupied");
-            }
-            cells[current.getX()][current.getY()].placeShip(ship);
-            current = current.getAdjacent(direction);
+        int step = Grid.step(direction);
+        for (int i = 0, c = start.getCell(); i < ship.getLength(); i++, c += step) {
+            byIndex[c].placeShip(ship);
         }
         ships.add(ship);
         ship.markAsPlaced();
@@ -46,7 +53,7 @@ public class GameBoard {
         if (!isValidPosition(pos)) {
             throw new IllegalArgumentException("Attack position out of bounds");
         }
-        Cell cell = cells[pos.getX()][pos.getY()];
+        Cell cell = byIndex[pos.getCell()];
 
         // already hit this position
         if (cell.isHit()) {
@@ -69,39 +76,20 @@ public class GameBoard {
 
     // check if a ship can be placed
     public boolean canPlaceShip(Position start, Direction direction, int length) {
-        Position current = start;
-
-        // first check if the entire ship would fit in this direction
-        if (!isShipWithinBounds(start, direction, length)) {
-            return false;
-        }
+        return canPlaceShip(start.getCell(), direction, length);
+    }
 
-        // check each position along the ship's length
-        for (int i = 0; i < length; i++) {
-            if (!isValidPosition(current) || isOccupied(current)) {
-                return false;
-            }
-            current = current.getAdjacent(direction);
-        }
-        return true;
+    public boolean canPlaceShip(int start, Direction direction, int length) {
+        return Grid.fits(start, direction, length) && isClear(start, direction, length);
     }
 
-    private boolean isShipWithinBounds(Position start, Direction direction, int length) {
-        int x = start.getX();
-        int y = start.getY();
-
-        switch (direction) {
-            case NORTH:
-                return y - (length - 1) >= 0;
-            case SOUTH:
-                return y + (length - 1) < SIZE;
-            case EAST:
-                return x + (length - 1) < SIZE;
-            case WEST:
-                return x - (length - 1) >= 0;
-            default:
-                return false;
+    // no ship on any of the cells; the caller has checked they are on the board
+    private boolean isClear(int start, Direction direction, int length) {
+        int step = Grid.step(direction);
+        for (int i = 0, c = start; i < length; i++, c += step) {
+            if (byIndex[c].hasShip()) return false;
         }
+        return true;
     }
 
     private boolean isValidPosition(Position pos) {
@@ -110,7 +98,11 @@ public class GameBoard {
     }
 
     public boolean isOccupied(Position pos) {
-        return cells[pos.getX()][pos.getY()].hasShip();
+        return byIndex[pos.getCell()].hasShip();
+    }
+
+    public boolean isHit(int index) {
+        return byIndex[index].isHit();
     }
 
     // check if the position has been hit before
@@ -118,13 +110,13 @@ public class GameBoard {
         if (!isValidPosition(pos)) {
             return false;
         }
-        Cell cell = cells[pos.getX()][pos.getY()];
+        Cell cell = byIndex[pos.getCell()];
         return cell.isHit();
     }
 
     // returns the ship at the position
     public Ship getShipAt(Position attackPosition) {
-        Cell cell = cells[attackPosition.getX()][attackPosition.getY()];
+        Cell cell = byIndex[attackPosition.getCell()];
         if (cell.hasShip()) {
             return cell.getShip();
         }
@@ -133,7 +125,7 @@ public class GameBoard {
 
     // returns the ship if the attacked position hit a ship
     public Ship checkHit(Position attackPosition) {
-        Cell cell = cells[attackPosition.getX()][attackPosition.getY()];
+        Cell cell = byIndex[attackPosition.getCell()];
         if (cell.isHit() && cell.hasShip()) {
             return cell.getShip();
         }
@@ -1,11 +1,23 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class GameController extends GameSubject {
     private final GameBoard playerBoard;
     private final GameBoard enemyBoard;
     private final CPUPlayer cpuPlayer;
     private final ShipFactory shipFactory;
-    private final Random random = new Random();
+    private final long seed;
+    private final Random random;
+    private final ReplayRecorder replay;
+    private final List<Short> playerPlacements = new ArrayList<>();   // cell * 4 + direction, in order
+    private boolean restoring;
+    private boolean recordPlacements = true;
+    private GameState state;   // null until both fleets are placed
+    private ReplayExporter replayExporter;
     private ShipFactory.ShipType currentShipTypeToPlace;
     private boolean isPlacementPhase = true;
     private List<ShipFactory.ShipType> remainingShipTypes;
@@ -19,6 +31,14 @@ public class GameController extends GameSubject {
     private GameOverHandler gameOverHandler;
 
     public GameController(GameObserver gameObserver) {
+        this(gameObserver, new Random().nextLong(), null);
+    }
+
+    // enemyFleet (Replay.encodeFleet layout) replaces the random CPU placement when not null
+    private GameController(GameObserver gameObserver, long seed, short[] enemyFleet) {
+        this.seed = seed;
+        this.random = new Random(seed);
+        this.replay = new ReplayRecorder(seed);
         this.playerBoard = new GameBoard();
         this.enemyBoard = new GameBoard();
         this.cpuPlayer = new CPUPlayer();
@@ -29,7 +49,11 @@ public class GameController extends GameSubject {
         currentShipTypeToPlace = remainingShipTypes.get(0);
 
         // places CPU ships and lets user place their own ships
-        placeCPUShips();
+        if (enemyFleet == null) {
+            placeCPUShips();
+        } else {
+            placeCPUShips(enemyFleet);
+        }
         notifyObservers("Place your " + currentShipTypeToPlace + " (length: " + currentShipTypeToPlace.getLength() + ")");
     }
 
@@ -45,6 +69,8 @@ public class GameController extends GameSubject {
         if (playerBoard.canPlaceShip(pos, dir, currentShipTypeToPlace.getLength())) {
             Ship ship = shipFactory.createShip(currentShipTypeToPlace);
             playerBoard.placeShip(ship, pos, dir);
+            playerPlacements.add((short) ((pos.getY() * 10 + pos.getX()) * 4 + dir.ordinal()));
+            if (!restoring && recordPlacements) PlacementHeatmap.shared().record(currentShipTypeToPlace, pos, dir);
 
             // move to next ship
             remainingShipTypes.remove(currentShipTypeToPlace);
@@ -54,6 +80,7 @@ public class GameController extends GameSubject {
                         " (length: " + currentShipTypeToPlace.getLength() + ")");
             } else {
                 isPlacementPhase = false;
+                state = GameState.start(seed, Replay.encodeFleet(playerBoard), Replay.encodeFleet(enemyBoard));
                 notifyObservers("All ships placed! Game begins - attack the enemy board!");
             }
             return true;
@@ -67,52 +94,21 @@ public class GameController extends GameSubject {
         return currentShipTypeToPlace;
     }
 
-    // randomly generates positions and directions for the cpu ships
+    // draws the cpu fleet from the pre-scored FleetPool when one is configured, otherwise at random
     private void placeCPUShips() {
-        for (ShipFactory.ShipType type : ShipFactory.ShipType.values()) {
-            boolean placed = false;
-            while (!placed) {
-                Direction dir = randomDirection();
-                Position pos = getValidRandomPosition(type.getLength(), dir);
-
-                if (enemyBoard.canPlaceShip(pos, dir, type.getLength())) {
-                    Ship ship = shipFactory.createShip(type);
-
-                    // mark as enemy ship
-                    ship.setEnemy(true);
-                    enemyBoard.placeShip(ship, pos, dir);
-                    placed = true;
-                }
-            }
+        FleetPool pool = FleetPool.shared();
+        if (pool != null) {
+            placeCPUShips(pool.draw(random));
+            return;
         }
+        new FleetPlacer(random).placeFleet(enemyBoard, shipFactory, true);
         notifyObservers("Enemy ships have been placed.");
     }
 
-    // finds random position in bounds to place the ship
-    private Position getValidRandomPosition(int shipLength, Direction dir) {
-        // calculate maximum starting position to ensure ship fits within bounds
-        int maxX = 10;
-        int maxY = 10;
-
-        if (dir == Direction.NORTH || dir == Direction.SOUTH) {
-            maxY = 10 - shipLength + 1;
-        } else if (dir == Direction.EAST || dir == Direction.WEST) {
-            maxX = 10 - shipLength + 1;
-        }
-
-        // ensure no negative values
-        maxX = Math.max(1, maxX);
-        maxY = Math.max(1, maxY);
-
-        // return a position within the safe bounds
-        return new Position(
-                random.nextInt(maxX),
-                random.nextInt(maxY)
-        );
-    }
-
-    private Direction randomDirection() {
-        return Direction.values()[random.nextInt(Direction.values().length)];
+    // places the cpu fleet from an encoded layout (a pool draw or a snapshot)
+    private void placeCPUShips(short[] fleet) {
+        FleetPlacer.placeFleet(enemyBoard, shipFactory, true, fleet);
+        notifyObservers("Enemy ships have been placed.");
     }
 
     public boolean playerAttack(Position pos) {
@@ -127,18 +123,25 @@ public class GameController extends GameSubject {
             return false;
         }
 
+        GameEvents.Turn turn = GameEvents.Turn.start();
+        replay.recordShot(0, pos);
+        if (state != null) state = state.fire(GameState.PLAYER, pos);
+
         // executes a hit on enemy board
         if (enemyBoard.receiveAttack(pos)) {
             Ship hitShip = enemyBoard.getShipAt(pos);
             notifyObservers("Player HIT at " + pos + "!");
             if (enemyBoard.isAllShipsSunk()) {
                 gameOver = true;
+                exportReplay(0);
                 notifyObservers("Player wins! All enemy ships sunk!");
                 showGameOverDialog("Victory!", "You have defeated the enemy fleet!");
             }
+            turn.finish("player", pos, true, hitShip != null && hitShip.isSunk(), gameOver);
             return true;
         }
         notifyObservers("Player MISSED at " + pos);
+        turn.finish("player", pos, false, false, false);
         return false;
     }
 
@@ -149,7 +152,40 @@ public class GameController extends GameSubject {
         }
 
         // finds position to attack
-        Position attackPos = cpuPlayer.determineAttackPosition(playerBoard);
+        return applyCpuAttack(decideCpuAttack());
+    }
+
+    // decides the cpu move on the compute executor (or in a HeatmapBatch for batchable
+    // strategies), then fires it on the apply executor
+    // so observers and board updates still run on the caller's thread (EDT or session lock)
+    public CompletableFuture<Position> cpuAttackAsync(Executor compute, Executor apply) {
+        if (gameOver) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Position> decided = cpuPlayer.isBatchable()
+                ? cpuPlayer.determineAttackPositionBatched(playerBoard)
+                : CompletableFuture.supplyAsync(this::decideCpuAttack, compute);
+        return decided.thenApplyAsync(this::applyCpuAttack, apply);
+    }
+
+    private Position decideCpuAttack() {
+        long start = System.nanoTime();
+        Position pos = cpuPlayer.determineAttackPosition(playerBoard);
+        Metrics.CPU_DECISION.observe(System.nanoTime() - start);
+        return pos;
+    }
+
+    private Position applyCpuAttack(Position attackPos) {
+        // game may have ended while the move was being decided
+        if (gameOver) {
+            return null;
+        }
+
+        GameEvents.Turn turn = GameEvents.Turn.start();
+        replay.recordShot(1, attackPos);
+        if (state != null && !state.isShot(0, attackPos.getY() * 10 + attackPos.getX())) {
+            state = state.fire(GameState.CPU, attackPos);
+        }
         boolean hit = playerBoard.receiveAttack(attackPos);
 
         Ship hitShip = null;
@@ -166,6 +202,7 @@ public class GameController extends GameSubject {
             notifyObservers("Enemy HIT at " + attackPos + "!");
             if (playerBoard.isAllShipsSunk()) {
                 gameOver = true;
+                exportReplay(1);
                 notifyObservers("Enemy wins! All your ships sunk!");
                 showGameOverDialog("Defeat!", "Your fleet has been destroyed!");
             }
@@ -175,6 +212,7 @@ public class GameController extends GameSubject {
 
         // update cpus knowledge with the result
         cpuPlayer.recordAttackResult(attackPos, hit, shipType, isSunk);
+        turn.finish("cpu", attackPos, hit, isSunk, gameOver);
 
         return attackPos;
     }
@@ -195,6 +233,26 @@ public class GameController extends GameSubject {
         return gameOver;
     }
 
+    // finished games are appended to this exporter, if set
+    public void setReplayExporter(ReplayExporter exporter) {
+        this.replayExporter = exporter;
+    }
+
+    // false keeps this game's placements out of PlacementHeatmap, e.g. for load-test players
+    public void setRecordPlacements(boolean record) {
+        this.recordPlacements = record;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    private void exportReplay(int winner) {
+        if (replayExporter != null && !restoring) {
+            replayExporter.write(replay.finish(winner, playerBoard, enemyBoard));
+        }
+    }
+
     public void setGameOverHandler(GameOverHandler handler) {
         this.gameOverHandler = handler;
     }
@@ -205,4 +263,86 @@ public class GameController extends GameSubject {
             gameOverHandler.handleGameOver(title, message);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Writes what it takes to rebuild this game in another process: the seed,
+     * the enemy fleet, the player's placements so far and every shot in order.
+     */
+    public void writeSnapshot(DataOutput out) throws IOException {
+        out.writeLong(seed);
+        for (short placement : Replay.encodeFleet(enemyBoard)) {
+            out.writeShort(placement);
+        }
+        out.writeByte(playerPlacements.size());
+        for (short placement : playerPlacements) {
+            out.writeShort(placement);
+        }
+        out.writeShort(replay.getShotCount());
+        for (int i = 0; i < replay.getShotCount(); i++) {
+            out.writeByte(replay.getShot(i));
+        }
+    }
+
+    // replays a writeSnapshot through the normal move methods, so the cpu strategy relearns its state
+    public static GameController readSnapshot(DataInput in, GameObserver gameObserver) throws IOException {
+        long seed = in.readLong();
+        short[] enemyFleet = new short[Replay.SHIPS];
+        for (int i = 0; i < enemyFleet.length; i++) {
+            enemyFleet[i] = in.readShort();
+        }
+
+        GameController game = new GameController(gameObserver, seed, enemyFleet);
+        game.restoring = true;
+        int placements = in.readUnsignedByte();
+        for (int i = 0; i < placements; i++) {
+            short p = in.readShort();
+            int cell = Replay.placementCell(p);
+            if (!game.tryPlacePlayerShip(Position.of(cell), Replay.placementDirection(p))) {
+                throw new IllegalArgumentException("Snapshot placement " + i + " is not legal");
+            }
+        }
+        byte[] shots = new byte[in.readUnsignedShort()];
+        in.readFully(shots);
+        game.replayShots(shots);
+        game.restoring = false;
+        return game;
+    }
+
+    /**
+     * The current position as an immutable GameState, for search or undo.
+     * Costs nothing: later moves here build new states and leave it alone.
+     */
+    public GameState fork() {
+        if (state == null) throw new IllegalStateException("Ships are still being placed");
+        return state;
+    }
+
+    // a live game at state, e.g. one rewound from fork(); the moves are replayed so the cpu relearns them
+    public static GameController restore(GameState state, GameObserver gameObserver) {
+        GameController game = new GameController(gameObserver, state.getSeed(), state.fleet(GameState.CPU));
+        game.restoring = true;
+        short[] fleet = state.fleet(GameState.PLAYER);
+        while (game.isPlacementPhase) {
+            short p = fleet[game.currentShipTypeToPlace.ordinal()];
+            int cell = Replay.placementCell(p);
+            if (!game.tryPlacePlayerShip(Position.of(cell), Replay.placementDirection(p))) {
+                throw new IllegalArgumentException("State fleet does not fit the board");
+            }
+        }
+        game.replayShots(state.shots());
+        game.restoring = false;
+        return game;
+    }
+
+    private void replayShots(byte[] shots) {
+        for (byte shot : shots) {
+            int cell = Replay.shotCell(shot);
+            Position pos = Position.of(cell);
+            if (Replay.shotSide(shot) == 0) {
+                playerAttack(pos);
+            } else {
+                applyCpuAttack(pos);
+            }
+        }
+    }
+}
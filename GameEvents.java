@@ -0,0 +1,75 @@
+import jdk.jfr.*;
+
+/**
+ * Flight Recorder events for the game and AI hot paths.
+ * Each event has its own "enabled" and "threshold" settings (see battleship.jfc),
+ * so a production recording can turn them on one by one.
+ */
+public final class GameEvents {
+    private GameEvents() {}
+
+    @Name("battleship.Turn")
+    @Label("Turn")
+    @Category({ "Battleship", "Game" })
+    @Description("One shot fired by the player or the CPU")
+    @StackTrace(false)
+    public static class Turn extends Event {
+        @Label("Side") String side;
+        @Label("X") int x;
+        @Label("Y") int y;
+        @Label("Hit") boolean hit;
+        @Label("Sunk") boolean sunk;
+        @Label("Game Over") boolean gameOver;
+
+        public static Turn start() {
+            Turn event = new Turn();
+            event.begin();
+            return event;
+        }
+
+        public void finish(String side, Position pos, boolean hit, boolean sunk, boolean gameOver) {
+            end();
+            if (shouldCommit()) {
+                this.side = side;
+                this.x = pos.getX();
+                this.y = pos.getY();
+                this.hit = hit;
+                this.sunk = sunk;
+                this.gameOver = gameOver;
+                commit();
+            }
+        }
+    }
+
+    @Name("battleship.AiDecision")
+    @Label("AI Decision")
+    @Category({ "Battleship", "AI" })
+    @Description("A CPU player choosing its next shot")
+    @StackTrace(false)
+    public static class AiDecision extends Event {
+        @Label("Strategy") String strategy;
+        @Label("Candidates") @Description("Cells not yet attacked") int candidates;
+        @Label("Proposals") @Description("Positions asked of the strategy, including rejected repeats") int proposals;
+    }
+
+    @Name("battleship.PageRender")
+    @Label("Page Render")
+    @Category({ "Battleship", "Server" })
+    @Description("Building the server-rendered game page")
+    @StackTrace(false)
+    public static class PageRender extends Event {
+        @Label("Session") String session;
+        @Label("Characters") int characters;
+    }
+
+    @Name("battleship.ShipPlacement")
+    @Label("Ship Placement")
+    @Category({ "Battleship", "Game" })
+    @Description("Random placement of one ship, with the attempts it took")
+    @StackTrace(false)
+    public static class ShipPlacement extends Event {
+        @Label("Ship Type") String shipType;
+        @Label("Attempts") int attempts;
+        @Label("Enemy") boolean enemy;
+    }
+}
@@ -1,83 +1,252 @@
 import com.sun.net.httpserver.*;
 import java.io.*;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Starts a local HTTP server so you can play Battleship in any browser.
  *
  * Compile:  javac *.java
  * Run:      java GameServer
- * Open:     http://localhost:8080
+ *           (add -Dbattleship.replays=replays.bsr to record finished games,
+ *            -Dbattleship.heatmap=heatmap.bin to keep the placement heatmap across restarts,
+ *            -Dbattleship.fleetPool=fleets.bfp to draw CPU fleets from a FleetOptimizer pool,
+ *            -Dbattleship.stats=stats.bps to keep player stats and serve the leaderboard,
+ *            -XX:StartFlightRecording:settings=default,settings=battleship.jfc for JFR game events,
+ *            -Dbattleship.sessionIdleSeconds=N to evict idle sessions sooner than 30 minutes,
+ *            -Dbattleship.rateLimit/-Dbattleship.rateBurst (per client address) and -Dbattleship.maxCpuMoves for admission control,
+ *            -Dbattleship.maxOfflineGames=N to cap offline uploads in progress, 10000 by default)
+ *           java GameServer --transport=nio
+ *           (selector-based transport with keep-alive and a WebSocket at /ws;
+ *            serves the single-player game, /leaderboard and /metrics only:
+ *            PvP, /watch and /offline need the default transport)
+ * Open:     http://localhost:8080          (server-rendered game)
+ *           http://localhost:8080/offline  (plays in the browser, uploads the move log)
+ *           http://localhost:8080/pvp      (player vs player)
+ *           http://localhost:8080/watch    (watch the featured AI-vs-AI game live)
+ *           http://localhost:8080/metrics  (Prometheus metrics)
+ *           http://localhost:8080/leaderboard
+ *
+ *           java GameServer --port=9001 --worker
+ *           (one shard behind a ShardRouter; listens on loopback only, adds the
+ *            /internal session transfer and leaderboard endpoints and leaves the
+ *            rate limit to the router)
  */
 public class GameServer {
 
-    private static volatile GameController game;
-    private static volatile Direction currentDir = Direction.EAST;
-    private static final List<String> gameLog = Collections.synchronizedList(new ArrayList<>());
-    private static final int PORT = 8080;
+    private static final Map<String, GameSession> sessions = new ConcurrentHashMap<>();
+    private static final PvpLobby lobby = new PvpLobby();
+    private static final FrameBroadcast featured = new FrameBroadcast(Executors.newFixedThreadPool(2));
+    private static final Map<String, OfflineGame> offlineGames = new ConcurrentHashMap<>();
+    private static final long OFFLINE_IDLE_MILLIS = 60 * 60 * 1000;
+    private static final int MAX_OFFLINE_GAMES = Integer.getInteger("battleship.maxOfflineGames", 10_000);
+    private static final long SESSION_IDLE_MILLIS = Long.getLong("battleship.sessionIdleSeconds", 30 * 60) * 1000;
+    private static final AtomicLong lastSessionPurge = new AtomicLong(System.currentTimeMillis());
+    private static final String SESSION_COOKIE = "sid";
+    // sent by LoadGenerator so simulated fleets stay out of the placement heatmap
+    static final String LOAD_TEST_HEADER = "X-Load-Test";
+    private static final int DEFAULT_PORT = 8080;
+    static final String METRICS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final RateLimiter rateLimiter = RateLimiter.fromProperties();
+    private static final ThreadLocal<ActionRequest> actionRequest = ThreadLocal.withInitial(ActionRequest::new);
+    private static final long LEADERBOARD_SECONDS = 10;
+    private static ReplayExporter replayExporter;
+    private static PlayerStats playerStats;
+    private static volatile LeaderboardPage leaderboardPage;
+    private static boolean worker;
 
     // ── Entry point ──────────────────────────────────────────────────────────
 
     public static void main(String[] args) throws IOException {
-        resetGame();
-        HttpServer server = HttpServer.create(new InetSocketAddress(PORT), 0);
+        String replayPath = System.getProperty("battleship.replays");
+        if (replayPath != null) {
+            replayExporter = new ReplayExporter(Path.of(replayPath));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try { replayExporter.close(); } catch (IOException ignored) {}
+            }));
+        }
+
+        String statsPath = System.getProperty("battleship.stats");
+        if (statsPath != null) {
+            playerStats = PlayerStats.open(Path.of(statsPath));
+            playerStats.startRanking(LEADERBOARD_SECONDS);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try { playerStats.close(); } catch (IOException ignored) {}
+            }));
+        }
+
+        String heatmapPath = System.getProperty("battleship.heatmap");
+        if (heatmapPath != null) {
+            PlacementHeatmap.shared().startSnapshots(Path.of(heatmapPath), 60);
+        }
+
+        int port = DEFAULT_PORT;
+        for (String arg : args) {
+            if (arg.startsWith("--port=")) port = Integer.parseInt(arg.substring("--port=".length()));
+        }
+
+        // a worker is only for the router, and its /internal endpoints hand out any session
+        worker = Arrays.asList(args).contains("--worker");
+        if (Arrays.asList(args).contains("--transport=nio")) {
+            if (worker) {
+                // no /internal endpoints and no PvP, /watch or /offline, so it can't stand in for a worker
+                System.err.println("--worker needs the default transport; drop --transport=nio");
+                System.exit(1);
+            }
+            new NioTransport(port).start();
+            System.out.println("Battleship (NIO transport) is running at http://localhost:" + port);
+            System.out.println("PvP, /watch and /offline are only on the default transport.");
+            System.out.println("Press Ctrl+C to stop the server.");
+            return;
+        }
+
+        HttpServer server = HttpServer.create(worker
+                ? new InetSocketAddress("127.0.0.1", port)
+                : new InetSocketAddress(port), 0);
         server.createContext("/", GameServer::handle);
+        server.createContext("/offline", GameServer::handleStatic);
+        server.createContext("/static/", GameServer::handleStatic);
+        server.createContext("/api/offline", GameServer::handleOfflineUpload);
+        server.createContext("/pvp", GameServer::handlePvp);
+        server.createContext("/pvp/events", GameServer::handlePvpEvents);
+        server.createContext("/watch", GameServer::handleWatchPage);
+        server.createContext("/watch/subscribe", GameServer::handleWatchSubscribe);
+        server.createContext("/watch/frames", GameServer::handleWatchFrames);
+        server.createContext("/metrics", GameServer::handleMetrics);
+        server.createContext("/leaderboard", GameServer::handleLeaderboard);
+        if (worker) {
+            // behind a ShardRouter: lets the router move sessions between workers
+            server.createContext("/internal/sessions", GameServer::handleSessionList);
+            server.createContext("/internal/session", GameServer::handleSessionTransfer);
+            server.createContext("/internal/leaderboard", GameServer::handleLeaderboardExport);
+        }
+        new FeaturedGame(featured, 4).start();
         server.setExecutor(null);
         server.start();
-        System.out.println("Battleship is running at http://localhost:" + PORT);
+        System.out.println("Battleship is running at http://localhost:" + port);
         System.out.println("Open your browser to that address to play.");
         System.out.println("Press Ctrl+C to stop the server.");
     }
 
-    // ── Game state ───────────────────────────────────────────────────────────
+    // ── Sessions ─────────────────────────────────────────────────────────────
 
-    private static synchronized void resetGame() {
-        gameLog.clear();
-        currentDir = Direction.EAST;
+    /**
+     * The session for sid if the client at address may have it, or null when
+     * the rate limit refuses the request. Actions and first visits (a sid with
+     * no session yet) each cost a token from the address's bucket, so a client
+     * can't dodge the limit, or fill the session map, by dropping its cookie.
+     * Shared with NioTransport.
+     */
+    static GameSession admit(String address, String sid, boolean action) {
+        if ((action || !sessions.containsKey(sid)) && !allowAction(address)) return null;
+        return session(sid);
+    }
 
-        // This observer captures messages from ships (hit/sunk) via ShipFactory,
-        // and from GameController itself (attack results) once addObserver() is called.
-        GameObserver logger = msg -> {
-            gameLog.add(0, msg);
-            if (gameLog.size() > 40) gameLog.remove(gameLog.size() - 1);
-        };
+    // looks up or creates the session for a sid without a rate check; for in-process callers like SoakRunner
+    static GameSession session(String sid) {
+        purgeIdleSessions();
+        GameSession session = sessions.computeIfAbsent(sid, id -> new GameSession(id, replayExporter, playerStats));
+        session.touch();
+        return session;
+    }
 
-        game = new GameController(logger);
-        game.addObserver(logger);                     // attach to GameController's own list
-        game.setGameOverHandler((title, msg) -> {});  // suppress the Swing dialog
+    static int sessionCount() {
+        return sessions.size();
+    }
+
+    // drops sessions nobody has used for SESSION_IDLE_MILLIS; scans at most once a minute
+    private static void purgeIdleSessions() {
+        long now = System.currentTimeMillis();
+        long last = lastSessionPurge.get();
+        if (now - last < Math.min(60_000, SESSION_IDLE_MILLIS) || !lastSessionPurge.compareAndSet(last, now)) return;
+        long cutoff = now - SESSION_IDLE_MILLIS;
+        sessions.values().removeIf(s -> s.getLastSeen() < cutoff);
+    }
 
-        // Seed the log with the opening prompt (constructor fires it before our
-        // observer is attached, so we add it manually here).
-        if (game.isPlacementPhase()) {
-            ShipFactory.ShipType first = game.getCurrentShipTypeToPlace();
-            gameLog.add(0, "New game! Place your " + first.name().charAt(0)
-                    + first.name().substring(1).toLowerCase()
-                    + " (length " + first.getLength() + ")");
+    // the caller's "sid" cookie, issuing a fresh one if it has none
+    private static String sessionId(HttpExchange ex) {
+        String sid = readCookie(ex, SESSION_COOKIE);
+        if (sid == null || sid.isEmpty() || sid.length() > 64) {
+            sid = UUID.randomUUID().toString();
+            ex.getResponseHeaders().add("Set-Cookie", SESSION_COOKIE + "=" + sid + "; Path=/; HttpOnly");
         }
+        return sid;
+    }
+
+    private static String readCookie(HttpExchange ex, String name) {
+        List<String> headers = ex.getRequestHeaders().get("Cookie");
+        if (headers == null) return null;
+        for (String header : headers) {
+            for (String part : header.split(";")) {
+                String[] kv = part.trim().split("=", 2);
+                if (kv.length == 2 && kv[0].equals(name)) return kv[1];
+            }
+        }
+        return null;
+    }
+
+    // the caller's IP; a worker behind the ShardRouter takes it from the router's X-Forwarded-For
+    private static String clientAddress(HttpExchange ex) {
+        if (worker) {
+            String forwarded = ex.getRequestHeaders().getFirst("X-Forwarded-For");
+            if (forwarded != null && !forwarded.isEmpty()) return forwarded;
+        }
+        return ex.getRemoteAddress().getAddress().getHostAddress();
     }
 
     // ── HTTP handler ─────────────────────────────────────────────────────────
 
     private static void handle(HttpExchange ex) throws IOException {
         try {
-            if ("POST".equalsIgnoreCase(ex.getRequestMethod())) {
-                String body = new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
-                handleAction(parseParams(body));
+            String sid = sessionId(ex);
+            boolean post = "POST".equalsIgnoreCase(ex.getRequestMethod());
+            GameSession session = admit(clientAddress(ex), sid, post);
+            if (session == null) {
+                reject(ex, 429, "Too many requests, slow down.");
+                return;
+            }
+            if (ex.getRequestHeaders().containsKey(LOAD_TEST_HEADER)) session.markSynthetic();
+            if (post) {
+                ResponseBuffer buf = ResponseBuffer.get();
+                boolean small = buf.readBody(ex.getRequestBody());
+                try {
+                    if (small) {
+                        handleAction(session, buf.body(), 0, buf.bodyLength());
+                    } else {
+                        String body = new String(buf.body(), 0, buf.bodyLength(), StandardCharsets.UTF_8)
+                                + new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+                        handleAction(session, parseParams(body));
+                    }
+                } catch (RejectedExecutionException e) {
+                    reject(ex, 503, "The server is busy, try again in a moment.");
+                    return;
+                }
                 // Post-Redirect-Get: prevents duplicate actions on browser refresh
                 ex.getResponseHeaders().add("Location", "/");
                 ex.sendResponseHeaders(303, -1);
                 ex.getResponseBody().close();
             } else {
-                byte[] html = buildPage().getBytes(StandardCharsets.UTF_8);
+                ResponseBuffer buf = ResponseBuffer.get();
+                appendPage(buf.text(), session);
+                buf.encode();
                 ex.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
-                ex.sendResponseHeaders(200, html.length);
-                ex.getResponseBody().write(html);
+                ex.sendResponseHeaders(200, buf.length());
+                ex.getResponseBody().write(buf.bytes(), 0, buf.length());
                 ex.getResponseBody().close();
             }
         } catch (Exception e) {
             e.printStackTrace();
+            Metrics.serverError();
             byte[] err = ("<h1>Server Error</h1><pre>" + e.getMessage() + "</pre>")
                     .getBytes(StandardCharsets.UTF_8);
             ex.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
@@ -87,48 +256,717 @@ public class GameServer {
         }
     }
 
+    // fast refusal for overload; the client may retry after a second
+    private static void reject(HttpExchange ex, int status, String message) throws IOException {
+        byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().add("Content-Type", "text/plain; charset=UTF-8");
+        ex.getResponseHeaders().add("Retry-After", "1");
+        ex.sendResponseHeaders(status, body.length);
+        ex.getResponseBody().write(body);
+        ex.getResponseBody().close();
+    }
+
+    // ── Admission control ────────────────────────────────────────────────────
+
+    // true when this client may run another action; shared with NioTransport.
+    // Behind a ShardRouter the router keeps the one bucket per client and has already charged it
+    static boolean allowAction(String clientKey) {
+        if (worker) return true;
+        if (rateLimiter.tryAcquire(clientKey)) return true;
+        Metrics.rateLimited();
+        return false;
+    }
+
     // ── Action dispatch ──────────────────────────────────────────────────────
 
-    private static synchronized void handleAction(Map<String, String> p) {
-        switch (p.getOrDefault("action", "")) {
+    // decodes the game form straight from bytes, falling back to parseParams for anything unusual
+    static void handleAction(GameSession session, byte[] buf, int off, int len) {
+        ActionRequest req = actionRequest.get();
+        if (req.parse(buf, off, len)) {
+            handleAction(session, req);
+        } else {
+            handleAction(session, parseParams(new String(buf, off, len, StandardCharsets.UTF_8)));
+        }
+    }
+
+    static void handleAction(GameSession session, Map<String, String> p) {
+        int action = Metrics.actionIndex(p.getOrDefault("action", ""));
+        Direction dir = null;
+        int x = -1;
+        int y = -1;
+        if (action == ActionRequest.DIR) {
+            try { dir = Direction.valueOf(p.get("dir")); }
+            catch (Exception ignored) {}
+        } else if (action == ActionRequest.PLACE || action == ActionRequest.ATTACK) {
+            try {
+                x = Integer.parseInt(p.get("x"));
+                y = Integer.parseInt(p.get("y"));
+            } catch (NumberFormatException e) {
+                session.log((action == ActionRequest.PLACE ? "Placement" : "Attack") + " error: " + e.getMessage());
+                Metrics.actionError(action);
+                return;
+            }
+        }
+        ActionRequest req = new ActionRequest();
+        req.set(action, x, y, dir);
+        if (action == ActionRequest.NAME) req.setName(p.get("name"));
+        handleAction(session, req);
+    }
+
+    // shared by both transports; throws RejectedExecutionException when no CPU move slot is free
+    static void handleAction(GameSession session, ActionRequest req) {
+        int action = req.getAction();
+        long start = System.nanoTime();
+        session.touch();
+        synchronized (session) {
+            switch (action) {
+
+                case ActionRequest.NEW -> session.reset();
+
+                case ActionRequest.PRACTICE -> session.reset(true);
+
+                case ActionRequest.UNDO -> {
+                    if (!session.undoShot()) session.log("Nothing to undo.");
+                }
+
+                case ActionRequest.NAME -> {
+                    if (!session.setPlayerName(req.getName())) Metrics.actionError(action);
+                }
+
+                case ActionRequest.HINT -> {
+                    if (!session.requestHint()) session.log("Hints are only available while you attack.");
+                }
+
+                case ActionRequest.DIR -> {
+                    if (req.getDir() != null) session.setCurrentDir(req.getDir());
+                }
+
+                case ActionRequest.PLACE -> {
+                    try {
+                        session.getGame().tryPlacePlayerShip(Position.of(req.getX(), req.getY()), session.getCurrentDir());
+                    } catch (Exception e) {
+                        session.log("Placement error: " + e.getMessage());
+                        Metrics.actionError(action);
+                    }
+                }
+
+                case ActionRequest.ATTACK -> {
+                    try {
+                        // the cpu reply is computed off this thread and shows up on a later GET
+                        session.attack(Position.of(req.getX(), req.getY()));
+                    } catch (RejectedExecutionException e) {
+                        // admission control, not a game error: the transport answers 503
+                        Metrics.cpuMoveRejected();
+                        throw e;
+                    } catch (Exception e) {
+                        session.log("Attack error: " + e.getMessage());
+                        Metrics.actionError(action);
+                    }
+                }
+            }
+        }
+        Metrics.recordAction(action, System.nanoTime() - start);
+    }
+
+    // ── Metrics ──────────────────────────────────────────────────────────────
+
+    private static void handleMetrics(HttpExchange ex) throws IOException {
+        byte[] body = metricsText().getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().add("Content-Type", METRICS_CONTENT_TYPE);
+        ex.sendResponseHeaders(200, body.length);
+        ex.getResponseBody().write(body);
+        ex.getResponseBody().close();
+    }
+
+    // shared with NioTransport
+    static String metricsText() {
+        return Metrics.render(sessions.values(), rateLimiter);
+    }
+
+    // ── Leaderboard ──────────────────────────────────────────────────────────
+
+    /** The rendered leaderboard and the ranking it was rendered from. */
+    private static final class LeaderboardPage {
+        final List<PlayerStats.Entry> ranking;
+        final byte[] body;
+
+        LeaderboardPage(List<PlayerStats.Entry> ranking, byte[] body) {
+            this.ranking = ranking;
+            this.body = body;
+        }
+    }
+
+    // serves the page rendered from the latest ranking; PlayerStats swaps in a new
+    // list when it re-ranks, which is the only time the page is rendered again
+    private static void handleLeaderboard(HttpExchange ex) throws IOException {
+        byte[] body = leaderboardBody();
+        ex.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+        ex.getResponseHeaders().add("Cache-Control", "max-age=" + LEADERBOARD_SECONDS);
+        ex.sendResponseHeaders(200, body.length);
+        ex.getResponseBody().write(body);
+        ex.getResponseBody().close();
+    }
+
+    // the rendered page for the current ranking; shared with NioTransport
+    static byte[] leaderboardBody() {
+        List<PlayerStats.Entry> ranking = playerStats == null ? List.of() : playerStats.top();
+        LeaderboardPage page = leaderboardPage;
+        if (page == null || page.ranking != ranking) {
+            page = new LeaderboardPage(ranking, buildLeaderboard(ranking, playerStats != null).getBytes(StandardCharsets.UTF_8));
+            leaderboardPage = page;
+        }
+        return page.body;
+    }
+
+    // shared with ShardRouter, which renders the ranking merged from its workers
+    static String buildLeaderboard(List<PlayerStats.Entry> ranking, boolean statsOn) {
+        StringBuilder sb = new StringBuilder(4096);
+        appendPageHead(sb, false);
+        sb.append("<div id='status'>");
+        if (!statsOn) {
+            sb.append("Player stats are off &mdash; start the server with -Dbattleship.stats=FILE.");
+        } else if (ranking.isEmpty()) {
+            sb.append("No games finished yet.");
+        } else {
+            sb.append("Top ").append(ranking.size()).append(" players");
+        }
+        sb.append("</div>");
+
+        if (!ranking.isEmpty()) {
+            sb.append("<table class='ranks'><tr><th>#</th><th>Player</th><th>Won</th><th>Lost</th>")
+              .append("<th>Shots</th><th>Accuracy</th></tr>");
+            for (int i = 0; i < ranking.size(); i++) {
+                PlayerStats.Entry e = ranking.get(i);
+                sb.append("<tr><td>").append(i + 1)
+                  .append("</td><td>").append(escHtml(e.getName()))
+                  .append("</td><td>").append(e.getWins())
+                  .append("</td><td>").append(e.getLosses())
+                  .append("</td><td>").append(e.getShots())
+                  .append("</td><td>").append(Math.round(e.accuracy() * 100)).append("%</td></tr>");
+            }
+            sb.append("</table>");
+        }
+        sb.append("<p class='sub'><a href='/'>Back to the game</a></p></body></html>");
+        return sb.toString();
+    }
+
+    // the player's name form, their record and a link to the leaderboard
+    private static void appendPlayerBar(StringBuilder sb, GameSession session) {
+        String name = session.getPlayerName();
+        sb.append("<div class='controls'>")
+          .append("<form method='post' action='/' class='inline'>")
+          .append("<input type='hidden' name='action' value='name'>")
+          .append("<input type='text' name='name' maxlength='20' value='").append(escHtml(name)).append("'> ")
+          .append("<button type='submit' class='dir-btn'>Rename</button></form>");
+        PlayerStats.Entry record = playerStats.lookup(name);
+        if (record != null) {
+            sb.append("<span>").append(record.getWins()).append(" won, ").append(record.getLosses())
+              .append(" lost, ").append(Math.round(record.accuracy() * 100)).append("% accuracy</span>");
+        }
+        sb.append("<a href='/leaderboard'>Leaderboard</a></div>");
+    }
+
+    // ── Sharding ─────────────────────────────────────────────────────────────
 
-            case "new" -> resetGame();
+    // GET: the ids of every session on this worker, one per line
+    private static void handleSessionList(HttpExchange ex) throws IOException {
+        byte[] body = String.join("\n", sessions.keySet()).getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().add("Content-Type", "text/plain; charset=UTF-8");
+        ex.sendResponseHeaders(200, body.length == 0 ? -1 : body.length);
+        ex.getResponseBody().write(body);
+        ex.getResponseBody().close();
+    }
 
-            case "dir" -> {
-                try { currentDir = Direction.valueOf(p.get("dir")); }
-                catch (Exception ignored) {}
+    // GET: this worker's ranking for the router to merge, one "name\twins\tlosses\tshots\thits" line
+    // per player with the name URL-encoded; 404 when stats are off
+    private static void handleLeaderboardExport(HttpExchange ex) throws IOException {
+        if (playerStats == null) {
+            ex.sendResponseHeaders(404, -1);
+            ex.getResponseBody().close();
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (PlayerStats.Entry e : playerStats.top()) {
+            sb.append(URLEncoder.encode(e.getName(), StandardCharsets.UTF_8)).append('\t').append(e.getWins())
+              .append('\t').append(e.getLosses()).append('\t').append(e.getShots()).append('\t').append(e.getHits())
+              .append('\n');
+        }
+        byte[] body = sb.toString().getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().add("Content-Type", "text/plain; charset=UTF-8");
+        ex.sendResponseHeaders(200, body.length == 0 ? -1 : body.length);
+        ex.getResponseBody().write(body);
+        ex.getResponseBody().close();
+    }
+
+    /**
+     * GET ?id=: removes the session and answers with its snapshot (404 when
+     * there is none). POST: installs the snapshot in the body, replacing any
+     * session with the same id.
+     */
+    private static void handleSessionTransfer(HttpExchange ex) throws IOException {
+        try {
+            if ("POST".equalsIgnoreCase(ex.getRequestMethod())) {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(ex.getRequestBody()));
+                GameSession session = GameSession.readSnapshot(in, replayExporter, playerStats);
+                session.touch();
+                sessions.put(session.getId(), session);
+                ex.sendResponseHeaders(204, -1);
+                ex.getResponseBody().close();
+                return;
+            }
+
+            String id = parseParams(Objects.requireNonNullElse(ex.getRequestURI().getRawQuery(), "")).get("id");
+            GameSession session = id == null ? null : sessions.remove(id);
+            if (session == null) {
+                ex.sendResponseHeaders(404, -1);
+                ex.getResponseBody().close();
+                return;
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+            session.writeSnapshot(new DataOutputStream(bytes));
+            ex.getResponseHeaders().add("Content-Type", "application/octet-stream");
+            ex.sendResponseHeaders(200, bytes.size());
+            bytes.writeTo(ex.getResponseBody());
+            ex.getResponseBody().close();
+        } catch (IllegalArgumentException | IOException e) {
+            byte[] err = String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8);
+            ex.sendResponseHeaders(400, err.length);
+            ex.getResponseBody().write(err);
+            ex.getResponseBody().close();
+        }
+    }
+
+    // ── Player vs player ─────────────────────────────────────────────────────
+
+    private static void handlePvp(HttpExchange ex) throws IOException {
+        try {
+            String sid = sessionId(ex);
+            if ("POST".equalsIgnoreCase(ex.getRequestMethod())) {
+                if (!allowAction(clientAddress(ex))) {
+                    reject(ex, 429, "Too many requests, slow down.");
+                    return;
+                }
+                String body = new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+                handlePvpAction(sid, parseParams(body));
+                ex.getResponseHeaders().add("Location", "/pvp");
+                ex.sendResponseHeaders(303, -1);
+                ex.getResponseBody().close();
+            } else {
+                byte[] html = buildPvpPage(lobby.get(sid)).getBytes(StandardCharsets.UTF_8);
+                ex.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+                ex.sendResponseHeaders(200, html.length);
+                ex.getResponseBody().write(html);
+                ex.getResponseBody().close();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            Metrics.serverError();
+            byte[] err = ("<h1>Server Error</h1><pre>" + escHtml(e.getMessage()) + "</pre>")
+                    .getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+            ex.sendResponseHeaders(500, err.length);
+            ex.getResponseBody().write(err);
+            ex.getResponseBody().close();
+        }
+    }
+
+    private static void handlePvpAction(String sid, Map<String, String> p) {
+        String action = p.getOrDefault("action", "");
+        if (action.equals("join")) {
+            lobby.join(sid);
+            return;
+        }
+        if (action.equals("leave")) {
+            lobby.leave(sid);
+            return;
+        }
+
+        PvpLobby.Player player = lobby.get(sid);
+        PvpController match = player == null ? null : player.getMatch();
+        if (match == null) return;
+        int seat = player.getSeat();
+
+        try {
+            switch (action) {
+                case "dir" -> player.setCurrentDir(Direction.valueOf(p.get("dir")));
+                case "place" -> {
+                    Position pos = Position.of(Integer.parseInt(p.get("x")), Integer.parseInt(p.get("y")));
+                    Direction dir = player.getCurrentDir();
+                    lobby.withMatch(match, m -> m.tryPlaceShip(seat, pos, dir));
+                }
+                case "attack" -> {
+                    Position pos = Position.of(Integer.parseInt(p.get("x")), Integer.parseInt(p.get("y")));
+                    lobby.withMatch(match, m -> m.attack(seat, pos));
+                }
+            }
+        } catch (Exception e) {
+            player.push("Action error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Long poll: answers with the latest event number as soon as the player
+     * has an event newer than ?after=N. Parked requests hold no thread; the
+     * opponent's move (or a timeout) completes them.
+     */
+    private static void handlePvpEvents(HttpExchange ex) throws IOException {
+        PvpLobby.Player player = lobby.get(readCookie(ex, SESSION_COOKIE));
+        if (player == null) {
+            ex.sendResponseHeaders(204, -1);
+            ex.getResponseBody().close();
+            return;
+        }
+        long after;
+        try {
+            after = Long.parseLong(parseParams(ex.getRequestURI().getRawQuery()).getOrDefault("after", "0"));
+        } catch (NumberFormatException e) {
+            after = 0;
+        }
+        player.awaitEvent(after, seq -> {
+            try {
+                byte[] out = Long.toString(seq).getBytes(StandardCharsets.UTF_8);
+                ex.getResponseHeaders().add("Content-Type", "text/plain");
+                ex.getResponseHeaders().add("Cache-Control", "no-store");
+                ex.sendResponseHeaders(200, out.length);
+                ex.getResponseBody().write(out);
+                ex.getResponseBody().close();
+            } catch (IOException e) {
+                // browser went away; nothing to deliver
+                ex.close();
+            }
+        });
+    }
+
+    private static String buildPvpPage(PvpLobby.Player player) {
+        StringBuilder sb = new StringBuilder();
+        appendPageHead(sb, false);
+
+        PvpController match = player == null ? null : player.getMatch();
+        if (match == null) {
+            sb.append("<div id='status'>");
+            sb.append(player == null
+                    ? "Player vs Player &mdash; find an opponent to start a match."
+                    : "Looking for an opponent&hellip;");
+            sb.append("</div><div class='controls'>");
+            appendPvpButton(sb, player == null ? "join" : "leave",
+                    player == null ? "Find Opponent" : "Cancel");
+            sb.append("</div>");
+        } else {
+            synchronized (match) {
+                appendPvpMatch(sb, player, match);
             }
+        }
+
+        if (player != null) {
+            appendLog(sb, player.getLog());
+            // reload as soon as the server pushes a newer event
+            long seq = player.getSeq();
+            sb.append("<script>(function poll(){")
+              .append("fetch('/pvp/events?after=").append(seq).append("')")
+              .append(".then(r=>r.text()).then(t=>{if(+t>").append(seq).append(")location.reload();else poll();})")
+              .append(".catch(()=>setTimeout(poll,2000));})();</script>");
+        }
+        sb.append("</body></html>");
+        return sb.toString();
+    }
+
+    private static void appendPvpMatch(StringBuilder sb, PvpLobby.Player player, PvpController match) {
+        int seat = player.getSeat();
+        boolean place = !match.isPlacementDone(seat);
+        boolean over = match.isGameOver();
+        boolean myTurn = !match.isPlacementPhase() && !over && match.getTurn() == seat;
+
+        sb.append("<div id='status'>");
+        if (over) {
+            sb.append("<strong>").append(match.getWinner() == seat ? "You win!" : "You lose.").append("</strong>");
+        } else if (place) {
+            ShipFactory.ShipType next = match.getCurrentShipTypeToPlace(seat);
+            sb.append("Placement Phase &mdash; Place your <strong>").append(next)
+              .append("</strong> (length ").append(next.getLength())
+              .append(") &nbsp;|&nbsp; Direction: <strong>").append(player.getCurrentDir()).append("</strong>");
+        } else if (match.isPlacementPhase()) {
+            sb.append("Waiting for your opponent to place their fleet&hellip;");
+        } else if (myTurn) {
+            sb.append("Your turn &mdash; fire at the <strong>Enemy Waters</strong>!");
+        } else {
+            sb.append("Opponent's turn&hellip;");
+        }
+        sb.append("</div><div class='controls'>");
+        if (place) {
+            appendDirectionBar(sb, "/pvp", player.getCurrentDir());
+        }
+        if (over) {
+            appendPvpButton(sb, "join", "Find New Opponent");
+        } else {
+            appendPvpButton(sb, "leave", "Leave Match");
+        }
+        sb.append("</div>");
+
+        appendLegend(sb);
+        sb.append("<div class='boards'>");
+        appendBoard(sb, "/pvp", "Your Fleet", match.getBoard(seat), false, place, false);
+        appendBoard(sb, "/pvp", "Enemy Waters", match.getBoard(1 - seat), true, false, myTurn);
+        sb.append("</div>");
+    }
+
+    private static void appendPvpButton(StringBuilder sb, String action, String label) {
+        sb.append("<form method='post' action='/pvp' class='inline'>")
+          .append("<input type='hidden' name='action' value='").append(action).append("'>")
+          .append("<button type='submit' class='btn btn-new'>").append(label).append("</button></form>");
+    }
 
-            case "place" -> {
+    // ── Live spectating ──────────────────────────────────────────────────────
+
+    private static void handleWatchPage(HttpExchange ex) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        appendPageHead(sb, false);
+        sb.append("<div id='status'>Featured game &mdash; connecting&hellip;</div>")
+          .append("<div class='boards'>")
+          .append("<div class='board-wrap'><div class='board-title' id='t0'></div><div class='board' id='b0'></div></div>")
+          .append("<div class='board-wrap'><div class='board-title' id='t1'></div><div class='board' id='b1'></div></div>")
+          .append("</div>");
+        // the page applies pre-encoded frames to the boards; see FeaturedGame for the format
+        sb.append("""
+            <script>
+            const CLS = { "0": "cell", "1": "cell ship", "2": "cell hit", "3": "cell miss" };
+            const cells = [[], []];
+            for (const side of [0, 1]) {
+              const b = document.getElementById("b" + side);
+              b.insertAdjacentHTML("beforeend", "<div class='lbl'></div>");
+              for (let x = 0; x < 10; x++) b.insertAdjacentHTML("beforeend", "<div class='lbl'>" + String.fromCharCode(65 + x) + "</div>");
+              for (let y = 0; y < 10; y++) {
+                b.insertAdjacentHTML("beforeend", "<div class='lbl'>" + (y + 1) + "</div>");
+                for (let x = 0; x < 10; x++) {
+                  const c = document.createElement("div");
+                  c.className = "cell";
+                  b.appendChild(c);
+                  cells[side][y * 10 + x] = c;
+                }
+              }
+            }
+            let names = ["", ""], wins = [0, 0];
+            function apply(f) {
+              if (f.type === "snapshot") {
+                names = f.names; wins = f.wins;
+                for (const side of [0, 1]) {
+                  document.getElementById("t" + side).textContent = names[side] + " fleet";
+                  for (let i = 0; i < 100; i++) cells[side][i].className = CLS[f.boards[side][i]];
+                }
+                document.getElementById("status").textContent =
+                  "Featured game #" + (f.game + 1) + " \u2014 wins: " + names[0] + " " + wins[0] + ", " + names[1] + " " + wins[1];
+              } else if (f.type === "shot") {
+                cells[f.side][f.cell].className = CLS[f.state];
+              }
+            }
+            async function run() {
+              for (;;) {
                 try {
-                    int x = Integer.parseInt(p.get("x"));
-                    int y = Integer.parseInt(p.get("y"));
-                    game.tryPlacePlayerShip(new Position(x, y), currentDir);
-                } catch (Exception e) {
-                    gameLog.add(0, "Placement error: " + e.getMessage());
+                  const sub = await (await fetch("/watch/subscribe", { method: "POST" })).text();
+                  for (;;) {
+                    const r = await fetch("/watch/frames?sub=" + sub);
+                    if (r.status !== 200) break;   // dropped: subscribe again
+                    (await r.text()).split("\n").filter(l => l).forEach(l => apply(JSON.parse(l)));
+                  }
+                } catch (e) {
+                  await new Promise(res => setTimeout(res, 2000));
                 }
+              }
             }
+            run();
+            </script>
+            </body></html>
+            """);
+        byte[] html = sb.toString().getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+        ex.sendResponseHeaders(200, html.length);
+        ex.getResponseBody().write(html);
+        ex.getResponseBody().close();
+    }
 
-            case "attack" -> {
+    private static void handleWatchSubscribe(HttpExchange ex) throws IOException {
+        // every subscription queues frames until it goes idle, so each one costs a token
+        if (!allowAction(clientAddress(ex))) {
+            reject(ex, 429, "Too many requests, slow down.");
+            return;
+        }
+        byte[] id = Long.toString(featured.subscribe().getId()).getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().add("Content-Type", "text/plain");
+        ex.sendResponseHeaders(200, id.length);
+        ex.getResponseBody().write(id);
+        ex.getResponseBody().close();
+    }
+
+    /**
+     * Long poll for a viewer's queued frames. The shared frame bytes are
+     * written back to back as they are; nothing is re-encoded per viewer.
+     */
+    private static void handleWatchFrames(HttpExchange ex) throws IOException {
+        FrameBroadcast.Subscriber sub = null;
+        try {
+            String id = parseParams(ex.getRequestURI().getRawQuery()).get("sub");
+            sub = id == null ? null : featured.get(Long.parseLong(id));
+        } catch (NumberFormatException ignored) {}
+
+        if (sub == null) {
+            ex.sendResponseHeaders(410, -1);
+            ex.getResponseBody().close();
+            return;
+        }
+        sub.poll(frames -> {
+            try {
+                long length = 0;
+                for (FrameBroadcast.Frame f : frames) length += f.bytes.length;
+                ex.getResponseHeaders().add("Content-Type", "application/x-ndjson");
+                ex.getResponseHeaders().add("Cache-Control", "no-store");
+                ex.sendResponseHeaders(200, length == 0 ? -1 : length);
+                for (FrameBroadcast.Frame f : frames) ex.getResponseBody().write(f.bytes);
+                ex.getResponseBody().close();
+            } catch (IOException e) {
+                ex.close();
+            }
+        });
+    }
+
+    // ── Static assets ────────────────────────────────────────────────────────
+
+    // index.html at /offline and static/* from the preloaded cache; 304 when the ETag still matches
+    private static void handleStatic(HttpExchange ex) throws IOException {
+        StaticAssets.Asset asset = StaticAssets.shared().get(ex.getRequestURI().getPath());
+        if (asset == null) {
+            ex.sendResponseHeaders(404, -1);
+            ex.getResponseBody().close();
+            return;
+        }
+
+        Headers req = ex.getRequestHeaders();
+        boolean gzip = asset.hasGzip() && StaticAssets.acceptsGzip(req.getFirst("Accept-Encoding"));
+        Headers res = ex.getResponseHeaders();
+        res.add("ETag", asset.etag(gzip));
+        res.add("Cache-Control", asset.cacheControl(ex.getRequestURI().getRawQuery()));
+        res.add("Vary", "Accept-Encoding");
+        if (asset.notModified(req.getFirst("If-None-Match"), gzip)) {
+            ex.sendResponseHeaders(304, -1);
+            ex.getResponseBody().close();
+            return;
+        }
+
+        ByteBuffer body = asset.body(gzip);
+        res.add("Content-Type", asset.getContentType());
+        if (gzip) res.add("Content-Encoding", "gzip");
+        ex.sendResponseHeaders(200, body.remaining() == 0 ? -1 : body.remaining());
+        try (WritableByteChannel out = Channels.newChannel(ex.getResponseBody())) {
+            while (body.hasRemaining()) out.write(body);
+        }
+    }
+
+    // ── Offline play ─────────────────────────────────────────────────────────
+
+    /** A browser-played game whose move log is being uploaded in batches. */
+    private static final class OfflineGame {
+        final MoveLogVerifier verifier = new MoveLogVerifier();
+        volatile long lastSeen = System.currentTimeMillis();
+    }
+
+    /**
+     * Accepts one batch of a browser game's move log:
+     *   game=&lt;client id&gt;&amp;seq=&lt;index of first move&gt;&amp;final=0|1&amp;moves=&lt;4-char moves&gt;
+     * Each batch is verified against the rules as it arrives. A retried batch
+     * that was already applied is acknowledged again without re-applying.
+     */
+    private static void handleOfflineUpload(HttpExchange ex) throws IOException {
+        int status = 200;
+        String json;
+        try {
+            if (!"POST".equalsIgnoreCase(ex.getRequestMethod())) {
+                throw new IllegalArgumentException("POST required");
+            }
+            if (!allowAction(clientAddress(ex))) {
+                status = 429;
+                json = "{\"ok\":false,\"error\":\"Too many requests, slow down.\"}";
+            } else {
+                String body = new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+                json = acceptOfflineBatch(parseParams(body));
+            }
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            json = "{\"ok\":false,\"error\":\"" + escJson(e.getMessage()) + "\"}";
+        } catch (IllegalStateException e) {
+            status = 503;
+            json = "{\"ok\":false,\"error\":\"" + escJson(e.getMessage()) + "\"}";
+        }
+        byte[] out = json.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().add("Content-Type", "application/json");
+        if (status == 429 || status == 503) ex.getResponseHeaders().add("Retry-After", "1");
+        ex.sendResponseHeaders(status, out.length);
+        ex.getResponseBody().write(out);
+        ex.getResponseBody().close();
+    }
+
+    private static String acceptOfflineBatch(Map<String, String> p) {
+        String id = p.get("game");
+        if (id == null || id.isEmpty() || id.length() > 64) {
+            throw new IllegalArgumentException("Missing game id");
+        }
+        int seq = Integer.parseInt(p.getOrDefault("seq", "0"));
+        String moves = p.getOrDefault("moves", "");
+        boolean last = "1".equals(p.get("final"));
+
+        // purged out here: a computeIfAbsent mapping function must not change the map
+        if (!offlineGames.containsKey(id)) {
+            purgeIdleOfflineGames();
+            // a soft cap: racing first batches may overshoot it by a few
+            if (offlineGames.size() >= MAX_OFFLINE_GAMES) {
+                throw new IllegalStateException("Too many offline games in progress, try again later.");
+            }
+        }
+        OfflineGame game = offlineGames.computeIfAbsent(id, k -> new OfflineGame());
+
+        synchronized (game) {
+            game.lastSeen = System.currentTimeMillis();
+            MoveLogVerifier v = game.verifier;
+            int applied = v.getMovesApplied();
+            int count = moves.length() / 4;
+
+            if (seq > applied) {
+                throw new IllegalArgumentException("Missing moves " + applied + ".." + (seq - 1));
+            }
+            // skip the part of a retried batch the server already has
+            int skip = applied - seq;
+            if (skip < count) {
                 try {
-                    int x = Integer.parseInt(p.get("x"));
-                    int y = Integer.parseInt(p.get("y"));
-                    if (!game.isGameOver() && !game.isPlacementPhase()) {
-                        game.playerAttack(new Position(x, y));
-                        if (!game.isGameOver()) {
-                            game.cpuAttack();
-                        }
-                    }
-                } catch (Exception e) {
-                    gameLog.add(0, "Attack error: " + e.getMessage());
+                    v.apply(moves.substring(skip * 4));
+                } catch (IllegalArgumentException e) {
+                    offlineGames.remove(id);
+                    throw e;
+                }
+            }
+
+            if (last) {
+                if (!v.isFinished()) {
+                    offlineGames.remove(id);
+                    throw new IllegalArgumentException("Final batch but no fleet was sunk");
+                }
+                offlineGames.remove(id);
+                // a legal log is not a human game, so it stays out of the placement heatmap
+                if (replayExporter != null) {
+                    replayExporter.write(v.toReplay());
                 }
             }
+
+            return "{\"ok\":true,\"accepted\":" + v.getMovesApplied()
+                    + ",\"finished\":" + v.isFinished()
+                    + ",\"winner\":\"" + (v.getWinner() == 0 ? "player" : v.getWinner() == 1 ? "cpu" : "") + "\"}";
         }
     }
 
+    private static void purgeIdleOfflineGames() {
+        long cutoff = System.currentTimeMillis() - OFFLINE_IDLE_MILLIS;
+        offlineGames.values().removeIf(g -> g.lastSeen < cutoff);
+    }
+
     // ── Form parsing ─────────────────────────────────────────────────────────
 
-    private static Map<String, String> parseParams(String raw) {
+    static Map<String, String> parseParams(String raw) {
         Map<String, String> m = new LinkedHashMap<>();
         if (raw == null || raw.isEmpty()) return m;
         for (String pair : raw.split("&")) {
@@ -144,121 +982,47 @@ public class GameServer {
 
     // ── HTML page builder ────────────────────────────────────────────────────
 
-    private static synchronized String buildPage() {
+    static String buildPage(GameSession session) {
+        StringBuilder sb = new StringBuilder(32 * 1024);
+        appendPage(sb, session);
+        return sb.toString();
+    }
+
+    // renders the session's page onto sb; the transports pass a reused ResponseBuffer builder
+    static void appendPage(StringBuilder sb, GameSession session) {
+        GameEvents.PageRender event = new GameEvents.PageRender();
+        event.begin();
+        long start = System.nanoTime();
+        int from = sb.length();
+        try {
+            synchronized (session) {
+                appendPage(sb, session, session.getGame(), session.getCurrentDir());
+            }
+        } finally {
+            Metrics.PAGE_RENDER.observe(System.nanoTime() - start);
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.session = session.getId();
+            event.characters = sb.length() - from;
+            event.commit();
+        }
+    }
+
+    private static void appendPage(StringBuilder sb, GameSession session, GameController game, Direction currentDir) {
         GameBoard pb  = game.getPlayerBoard();
         GameBoard eb  = game.getEnemyBoard();
         boolean place = game.isPlacementPhase();
         boolean over  = game.isGameOver();
+        boolean thinking = session.isCpuThinking();
+        HintService.Hint hint = session.getHint();
 
-        StringBuilder sb = new StringBuilder();
-
-        sb.append("""
-            <!DOCTYPE html>
-            <html lang="en">
-            <head>
-              <meta charset="UTF-8">
-              <title>Battleship</title>
-              <style>
-                *, *::before, *::after { box-sizing: border-box; margin: 0; padding: 0; }
-                body {
-                  font-family: 'Segoe UI', Arial, sans-serif;
-                  background: #0a1628; color: #e0e8f0;
-                  min-height: 100vh; padding: 20px;
-                  display: flex; flex-direction: column; align-items: center;
-                }
-                h1 {
-                  color: #4fc3f7; letter-spacing: 4px; text-transform: uppercase;
-                  text-shadow: 0 0 20px rgba(79,195,247,0.4);
-                  margin-bottom: 4px; font-size: 2rem;
-                }
-                .sub { color: #546e7a; letter-spacing: 2px; font-size: 0.85rem; margin-bottom: 16px; }
-                #status {
-                  background: #132035; border: 1px solid #1e3a5f; border-radius: 8px;
-                  padding: 10px 24px; margin-bottom: 14px; color: #80cbc4;
-                  text-align: center; max-width: 800px; width: 100%;
-                }
-                .controls {
-                  display: flex; gap: 10px; align-items: center;
-                  flex-wrap: wrap; justify-content: center; margin-bottom: 14px;
-                }
-                .dir-bar {
-                  display: flex; gap: 6px; align-items: center;
-                  background: #132035; border: 1px solid #1e3a5f;
-                  border-radius: 8px; padding: 6px 12px;
-                }
-                .dir-bar span { color: #546e7a; font-size: 0.85rem; margin-right: 4px; }
-                /* inline form so buttons flow naturally */
-                form.inline { display: inline; }
-                .dir-btn {
-                  background: #263238; color: #cfd8dc; border: none;
-                  border-radius: 5px; padding: 5px 12px; font-size: 0.85rem; cursor: pointer;
-                }
-                .dir-btn:hover   { background: #37474f; }
-                .dir-btn.active  { background: #1565c0; color: #e3f2fd; }
-                .dir-btn.active:hover { background: #1976d2; }
-                .btn {
-                  background: #1565c0; color: #e3f2fd; border: none;
-                  border-radius: 6px; padding: 8px 20px; font-size: 0.9rem; cursor: pointer;
-                }
-                .btn:hover  { background: #1976d2; }
-                .btn-new    { background: #1b5e20; }
-                .btn-new:hover { background: #2e7d32; }
-                .legend {
-                  display: flex; gap: 14px; flex-wrap: wrap;
-                  justify-content: center; margin-bottom: 12px;
-                  font-size: 0.8rem; color: #78909c;
-                }
-                .legend span { display: flex; align-items: center; gap: 5px; }
-                .dot { width: 13px; height: 13px; border-radius: 3px; display: inline-block; }
-                .boards {
-                  display: flex; gap: 40px; flex-wrap: wrap;
-                  justify-content: center; margin-bottom: 16px;
-                }
-                .board-wrap { display: flex; flex-direction: column; align-items: center; gap: 8px; }
-                .board-title { letter-spacing: 2px; text-transform: uppercase; color: #90a4ae; font-size: 0.9rem; }
-                /* CSS Grid board — each cell is a direct child so forms are valid here */
-                .board { display: grid; grid-template-columns: 28px repeat(10, 36px); gap: 2px; }
-                .lbl {
-                  width: 28px; height: 28px; display: flex;
-                  align-items: center; justify-content: center;
-                  color: #546e7a; font-size: 0.72rem; font-weight: bold;
-                }
-                /* shared size for divs and forms */
-                .cell, .board > form {
-                  width: 36px; height: 36px; border-radius: 4px;
-                  display: flex; align-items: center; justify-content: center;
-                }
-                .cell { background: #0d2137; border: 1px solid #1a3a5c; font-size: 1rem; font-weight: bold; }
-                .ship { background: #1e3d5c; border-color: #2a5280; }
-                .hit  { background: #b71c1c; border-color: #e53935; color: #ffcdd2; }
-                .miss { background: #1a3a5c; border-color: #2196f3; color: #4fc3f7; font-size: 1.4rem; }
-                .sunk { background: #4a1010; border-color: #c62828; color: #ef9a9a; }
-                /* Clickable cell = a <form> containing a <button> that fills the cell */
-                .board > form { overflow: hidden; }
-                .board > form button {
-                  width: 100%; height: 100%; background: #0d2137; border: 1px solid #1a3a5c;
-                  border-radius: 4px; cursor: crosshair;
-                  /* hide the text visually while keeping it for screen readers */
-                  color: transparent; font-size: 0;
-                }
-                .board > form.attack button:hover { background: #1a4a7a; border-color: #42a5f5; }
-                .board > form.place  button:hover { background: #1b5e20; border-color: #43a047; }
-                #log {
-                  background: #0b1e2d; border: 1px solid #1e3a5f; border-radius: 8px;
-                  padding: 10px 14px; width: 100%; max-width: 800px; max-height: 160px;
-                  overflow-y: auto; font-size: 0.82rem; color: #78909c;
-                  font-family: Consolas, monospace;
-                }
-                #log p { margin: 2px 0; padding: 2px 0; border-bottom: 1px solid #0f2236; }
-              </style>
-            </head>
-            <body>
-            <h1>&#9875; Battleship</h1>
-            <p class="sub">Naval Combat Simulator</p>
-            """);
+        appendPageHead(sb, thinking || session.isHintPending());
 
         // ── Status bar ──
         sb.append("<div id='status'>");
+        if (session.isPractice()) sb.append("<strong>Practice</strong> &nbsp;|&nbsp; ");
         if (place) {
             ShipFactory.ShipType next = game.getCurrentShipTypeToPlace();
             String name = next.name().charAt(0) + next.name().substring(1).toLowerCase();
@@ -267,6 +1031,8 @@ public class GameServer {
               .append(") &nbsp;|&nbsp; Direction: <strong>").append(currentDir).append("</strong>");
         } else if (over) {
             sb.append("<strong>Game Over</strong> &mdash; Click &ldquo;New Game&rdquo; to play again.");
+        } else if (thinking) {
+            sb.append("Attack Phase &mdash; The enemy is taking aim&hellip;");
         } else {
             sb.append("Attack Phase &mdash; Click any cell on the <strong>Enemy Waters</strong> to fire!");
         }
@@ -276,47 +1042,98 @@ public class GameServer {
         sb.append("<div class='controls'>");
 
         if (place) {
-            sb.append("<div class='dir-bar'><span>Direction:</span>");
-            for (Direction d : Direction.values()) {
-                String active = d == currentDir ? " active" : "";
-                sb.append("<form method='post' action='/' class='inline'>")
-                  .append("<input type='hidden' name='action' value='dir'>")
-                  .append("<input type='hidden' name='dir' value='").append(d.name()).append("'>")
-                  .append("<button type='submit' class='dir-btn").append(active).append("'>")
-                  .append(d.name()).append("</button></form>");
-            }
-            sb.append("</div>");
+            appendDirectionBar(sb, "/", currentDir);
         }
 
         sb.append("<form method='post' action='/' class='inline'>")
           .append("<input type='hidden' name='action' value='new'>")
           .append("<button type='submit' class='btn btn-new'>&#8635; New Game</button></form>");
+        sb.append("<form method='post' action='/' class='inline'>")
+          .append("<input type='hidden' name='action' value='practice'>")
+          .append("<button type='submit' class='btn'>Practice Game</button></form>");
+        if (session.isPractice() && !place && !thinking) {
+            sb.append("<form method='post' action='/' class='inline'>")
+              .append("<input type='hidden' name='action' value='undo'>")
+              .append("<button type='submit' class='btn'>&#8630; Undo Shot</button></form>");
+        }
+        if (!place && !over && !thinking && hint == null) {
+            sb.append("<form method='post' action='/' class='inline'>")
+              .append("<input type='hidden' name='action' value='hint'>")
+              .append("<button type='submit' class='btn'>")
+              .append(session.isHintPending() ? "Thinking&hellip;" : "Hint").append("</button></form>");
+        }
         sb.append("</div>");
+        if (playerStats != null) appendPlayerBar(sb, session);
 
         // ── Legend ──
+        appendLegend(sb);
+
+        // ── Boards ──
+        sb.append("<div class='boards'>");
+        appendBoard(sb, "/", "Your Fleet",   pb, /*hideShips*/false, /*allowPlace*/place,  /*allowAttack*/false);
+        appendBoard(sb, "/", "Enemy Waters", eb, /*hideShips*/true,  /*allowPlace*/false,  /*allowAttack*/!place && !over && !thinking, hint);
+        sb.append("</div>");
+
+        // ── Game log ──
+        appendLog(sb, session.getLog());
+        sb.append("</body></html>");
+    }
+
+    // doctype, shared stylesheet and page title; refresh reloads the page every second
+    private static void appendPageHead(StringBuilder sb, boolean refresh) {
+        sb.append("""
+            <!DOCTYPE html>
+            <html lang="en">
+            <head>
+              <meta charset="UTF-8">
+              <title>Battleship</title>
+            """);
+
+        // e.g. while waiting for the cpu move to land in the session
+        if (refresh) {
+            sb.append("  <meta http-equiv='refresh' content='1'>\n");
+        }
+
+        sb.append("  <link rel='stylesheet' href='").append(StaticAssets.shared().versionedPath("/static/game.css")).append("'>\n");
+        sb.append("""
+            </head>
+            <body>
+            <h1>&#9875; Battleship</h1>
+            <p class="sub">Naval Combat Simulator</p>
+            """);
+    }
+
+    private static void appendDirectionBar(StringBuilder sb, String formAction, Direction currentDir) {
+        sb.append("<div class='dir-bar'><span>Direction:</span>");
+        for (Direction d : Direction.getAllDirections()) {
+            String active = d == currentDir ? " active" : "";
+            sb.append("<form method='post' action='").append(formAction).append("' class='inline'>")
+              .append("<input type='hidden' name='action' value='dir'>")
+              .append("<input type='hidden' name='dir' value='").append(d.name()).append("'>")
+              .append("<button type='submit' class='dir-btn").append(active).append("'>")
+              .append(d.name()).append("</button></form>");
+        }
+        sb.append("</div>");
+    }
+
+    private static void appendLegend(StringBuilder sb) {
         sb.append("<div class='legend'>")
           .append("<span><span class='dot' style='background:#1e3d5c;border:1px solid #2a5280'></span>Your Ship</span>")
           .append("<span><span class='dot' style='background:#b71c1c;border:1px solid #e53935'></span>Hit</span>")
           .append("<span><span class='dot' style='background:#4a1010;border:1px solid #c62828'></span>Sunk</span>")
           .append("<span><span class='dot' style='background:#1a3a5c;border:1px solid #2196f3'></span>Miss</span>")
           .append("</div>");
+    }
 
-        // ── Boards ──
-        sb.append("<div class='boards'>")
-          .append(renderBoard("Your Fleet",   pb, /*hideShips*/false, /*allowPlace*/place,  /*allowAttack*/false))
-          .append(renderBoard("Enemy Waters", eb, /*hideShips*/true,  /*allowPlace*/false,  /*allowAttack*/!place && !over))
-          .append("</div>");
-
-        // ── Game log ──
+    // newest-first messages; the list is locked while it is copied out
+    private static void appendLog(StringBuilder sb, List<String> gameLog) {
         sb.append("<div id='log'>");
         synchronized (gameLog) {
             for (String msg : gameLog) {
                 sb.append("<p>").append(escHtml(msg)).append("</p>");
             }
         }
-        sb.append("</div></body></html>");
-
-        return sb.toString();
+        sb.append("</div>");
     }
 
     // ── Board grid renderer ──────────────────────────────────────────────────
@@ -327,9 +1144,15 @@ public class GameServer {
      *
      * cells[x][y] — x = column (0=left), y = row (0=top), matching GameBoard's layout.
      */
-    private static String renderBoard(String title, GameBoard board,
-                                      boolean hideShips, boolean allowPlace, boolean allowAttack) {
-        StringBuilder sb = new StringBuilder();
+    private static void appendBoard(StringBuilder sb, String formAction, String title, GameBoard board,
+                                    boolean hideShips, boolean allowPlace, boolean allowAttack) {
+        appendBoard(sb, formAction, title, board, hideShips, allowPlace, allowAttack, null);
+    }
+
+    // with a hint, attack cells are shaded by its heatmap and the recommended one is marked
+    private static void appendBoard(StringBuilder sb, String formAction, String title, GameBoard board,
+                                    boolean hideShips, boolean allowPlace, boolean allowAttack,
+                                    HintService.Hint hint) {
         sb.append("<div class='board-wrap'>")
           .append("<div class='board-title'>").append(title).append("</div>")
           .append("<div class='board'>");
@@ -345,13 +1168,11 @@ public class GameServer {
             sb.append("<div class='lbl'>").append(y + 1).append("</div>");
 
             for (int x = 0; x < 10; x++) {
-                Cell cell = board.cells[x][y];
+                Cell cell = board.cell(Grid.index(x, y));
                 boolean isHit  = cell.isHit();
                 boolean hasShip = cell.hasShip();
                 boolean isSunk  = hasShip && cell.getShip().isSunk();
 
-                String coord = String.valueOf((char)('A' + x)) + (y + 1);
-
                 if (isHit) {
                     if (hasShip) {
                         sb.append("<div class='cell ").append(isSunk ? "sunk" : "hit").append("'>&#x2715;</div>");
@@ -361,9 +1182,13 @@ public class GameServer {
                 } else if (!hideShips && hasShip) {
                     sb.append("<div class='cell ship'></div>");
                 } else if (allowPlace) {
-                    appendClickableCell(sb, "place", x, y, coord, "place");
+                    appendClickableCell(sb, formAction, "place", x, y, "place", null);
+                } else if (allowAttack && hint != null) {
+                    int c = y * 10 + x;
+                    appendClickableCell(sb, formAction, "attack", x, y, c == hint.getCell() ? "attack heat best" : "attack heat",
+                            String.format(Locale.ROOT, "--heat:%.2f", hint.heat(c)));
                 } else if (allowAttack) {
-                    appendClickableCell(sb, "attack", x, y, coord, "attack");
+                    appendClickableCell(sb, formAction, "attack", x, y, "attack", null);
                 } else {
                     sb.append("<div class='cell'></div>");
                 }
@@ -371,22 +1196,29 @@ public class GameServer {
         }
 
         sb.append("</div></div>");
-        return sb.toString();
     }
 
-    private static void appendClickableCell(StringBuilder sb, String action,
-                                            int x, int y, String label, String cssClass) {
-        sb.append("<form method='post' action='/' class='").append(cssClass).append("'>")
+    // the button label is the coordinate, e.g. "C7"; style is an inline style attribute, or null
+    private static void appendClickableCell(StringBuilder sb, String formAction, String action,
+                                            int x, int y, String cssClass, String style) {
+        sb.append("<form method='post' action='").append(formAction).append("' class='").append(cssClass).append("'");
+        if (style != null) sb.append(" style='").append(style).append("'");
+        sb.append(">")
           .append("<input type='hidden' name='action' value='").append(action).append("'>")
           .append("<input type='hidden' name='x' value='").append(x).append("'>")
           .append("<input type='hidden' name='y' value='").append(y).append("'>")
-          .append("<button type='submit' title='").append(label).append("'>")
-          .append(label).append("</button>")
+          .append("<button type='submit' title='").append((char) ('A' + x)).append(y + 1).append("'>")
+          .append((char) ('A' + x)).append(y + 1).append("</button>")
           .append("</form>");
     }
 
     // ── Helpers ──────────────────────────────────────────────────────────────
 
+    private static String escJson(String s) {
+        if (s == null) return "";
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
     private static String escHtml(String s) {
         if (s == null) return "";
         return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
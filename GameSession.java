@@ -0,0 +1,384 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * One browser's game on the GameServer.
+ * Holds the controller, placement direction, player name, log, the CPU move
+ * in flight and the shot hint, if one was asked for.
+ * Callers synchronize on the session before touching its state.
+ */
+public class GameSession {
+    private static final int MAX_LOG = 40;
+    private static final int SNAPSHOT_MAGIC = 0x42535331;   // "BSS1"
+    private static final int MAX_NAME = 20;
+
+    private final String id;
+    private final ReplayExporter replayExporter;
+    private final PlayerStats stats;
+    private final List<String> gameLog = Collections.synchronizedList(new ArrayList<>());
+    private GameController game;
+    private Direction currentDir = Direction.EAST;
+    private boolean practice;
+    private boolean synthetic;
+    private String playerName;
+    private CompletableFuture<Position> pendingCpuMove;
+    private CompletableFuture<HintService.Hint> pendingHint;
+    private HintService.Hint hint;
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+    private volatile long lastSeen = System.currentTimeMillis();
+
+    public GameSession(String id) {
+        this(id, null, null);
+    }
+
+    // finished games are exported to replayExporter and counted in stats, each when not null
+    public GameSession(String id, ReplayExporter replayExporter, PlayerStats stats) {
+        this.id = id;
+        this.replayExporter = replayExporter;
+        this.stats = stats;
+        this.playerName = "guest-" + Integer.toHexString(id.hashCode() & 0xFFFFFF);
+        reset();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    // marks the session as in use so idle eviction leaves it alone
+    public void touch() {
+        lastSeen = System.currentTimeMillis();
+    }
+
+    public long getLastSeen() {
+        return lastSeen;
+    }
+
+    public synchronized void reset() {
+        reset(false);
+    }
+
+    // a practice game allows undoShot() and is never exported as a replay
+    public synchronized void reset(boolean practice) {
+        gameLog.clear();
+        currentDir = Direction.EAST;
+        pendingCpuMove = null;
+        this.practice = practice;
+
+        // This observer captures messages from ships (hit/sunk) via ShipFactory,
+        // and from GameController itself (attack results) once addObserver() is called.
+        GameLogger logger = new GameLogger();
+        attach(new GameController(logger), logger);
+
+        // Seed the log with the opening prompt (constructor fires it before our
+        // observer is attached, so we add it manually here).
+        if (game.isPlacementPhase()) {
+            ShipFactory.ShipType first = game.getCurrentShipTypeToPlace();
+            log("New game! Place your " + first.name().charAt(0)
+                    + first.name().substring(1).toLowerCase()
+                    + " (length " + first.getLength() + ")");
+        }
+    }
+
+    // the old controller stops exporting: a CPU move still in flight for it lands on a game nobody plays
+    private void attach(GameController controller, GameLogger logger) {
+        if (game != null) game.setReplayExporter(null);
+        game = controller;
+        logger.owner = controller;
+        hint = null;
+        pendingHint = null;
+        game.addObserver(logger);                     // attach to GameController's own list
+        game.setGameOverHandler((title, msg) -> {     // instead of the Swing dialog
+            if (game == controller) recordResult(controller);
+        });
+        game.setReplayExporter(practice ? null : replayExporter);
+        game.setRecordPlacements(!synthetic);
+    }
+
+    /**
+     * Logs messages from one controller and its ships, and drops them once
+     * the session has moved on to another game, so a late CPU move from an
+     * abandoned game never shows up in the new one's log.
+     */
+    private final class GameLogger implements GameObserver {
+        private GameController owner;   // null while the controller is still being built
+
+        @Override
+        public void update(String message) {
+            synchronized (GameSession.this) {
+                if (owner != null && game != owner) return;
+            }
+            log(message);
+        }
+    }
+
+    // adds a finished game to the player's stats; practice games don't count. The file
+    // write happens on the stats thread, as this can run on the NIO selector
+    private void recordResult(GameController finished) {
+        if (practice || stats == null) return;
+        GameState state = finished.fork();
+        int shots = 0, hits = 0;
+        for (int cell = 0; cell < GameState.CELLS; cell++) {
+            if (state.isShot(GameState.CPU, cell)) {
+                shots++;
+                if (state.isOccupied(GameState.CPU, cell)) hits++;
+            }
+        }
+        stats.recordLater(playerName, state.winner() == GameState.PLAYER, shots, hits);
+    }
+
+    public synchronized String getPlayerName() {
+        return playerName;
+    }
+
+    /**
+     * Renames the player for the games they finish from now on. Names are
+     * 1 to MAX_NAME letters, digits, spaces, '-' or '_'; returns false (and
+     * logs why) for anything else.
+     */
+    public synchronized boolean setPlayerName(String name) {
+        String trimmed = name == null ? "" : name.trim();
+        if (trimmed.isEmpty() || trimmed.length() > MAX_NAME || !trimmed.chars().allMatch(GameSession::isNameChar)) {
+            log("Names are 1 to " + MAX_NAME + " letters, digits, spaces, - or _.");
+            return false;
+        }
+        playerName = trimmed;
+        log("You are now playing as " + trimmed);
+        return true;
+    }
+
+    private static boolean isNameChar(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == ' ' || c == '-' || c == '_';
+    }
+
+    /**
+     * Practice games only: takes back the player's last shot and the cpu's
+     * reply to it. The game is rebuilt from a rewound fork of its state; the
+     * log is kept. Returns false when there is nothing to take back.
+     */
+    public synchronized boolean undoShot() {
+        if (!practice || game.isPlacementPhase() || isCpuThinking()) return false;
+        GameState state = game.fork();
+        while (state.lastShotSide() == GameState.CPU) state = state.rewind();
+        if (state.lastShotSide() != GameState.PLAYER) return false;
+        int cell = state.lastShotCell();
+
+        List<String> lines;
+        synchronized (gameLog) {
+            lines = new ArrayList<>(gameLog);
+        }
+        GameLogger logger = new GameLogger();
+        attach(GameController.restore(state.rewind(), logger), logger);
+        // restoring replays the moves through the logger; the old log replaces that
+        synchronized (gameLog) {
+            gameLog.clear();
+            gameLog.addAll(lines);
+        }
+        log("Took back your shot at " + Position.of(cell));
+        return true;
+    }
+
+    public synchronized boolean isPractice() {
+        return practice;
+    }
+
+    /**
+     * Marks the session as a simulated player (LoadGenerator): its fleets
+     * stay out of the placement heatmap that PriorAttackStrategy and
+     * FleetOptimizer treat as how humans place ships.
+     */
+    public synchronized void markSynthetic() {
+        if (synthetic) return;
+        synthetic = true;
+        game.setRecordPlacements(false);
+    }
+
+    /**
+     * Asks HintService for the best shot from what the player knows of the
+     * enemy board. The hint lands in the session when computed (straight
+     * away when cached) and is dropped by the next shot. Returns false
+     * outside the attack phase.
+     */
+    public synchronized boolean requestHint() {
+        if (game.isPlacementPhase() || game.isGameOver() || isCpuThinking()) return false;
+        if (hint != null || pendingHint != null) return true;
+
+        CompletableFuture<HintService.Hint> request = HintService.shared().hint(HintService.Knowledge.of(game.getEnemyBoard()));
+        pendingHint = request;
+        request.whenComplete((h, err) -> {
+            synchronized (this) {
+                // ignore hints for a position the player has already moved on from
+                if (pendingHint != request) return;
+                pendingHint = null;
+                if (err != null) {
+                    log("Hint error: " + err.getMessage());
+                } else {
+                    hint = h;
+                }
+            }
+            for (Runnable listener : changeListeners) {
+                listener.run();
+            }
+        });
+        return true;
+    }
+
+    // the hint for the current position, or null
+    public synchronized HintService.Hint getHint() {
+        return hint;
+    }
+
+    public synchronized boolean isHintPending() {
+        return pendingHint != null;
+    }
+
+    /**
+     * Writes the session so another server process can take it over: the id,
+     * placement direction, practice flag, player name, game and log. A CPU move still in flight is waited
+     * for first, so the snapshot never catches half a turn.
+     */
+    public void writeSnapshot(DataOutput out) throws IOException {
+        CompletableFuture<Position> pending;
+        synchronized (this) {
+            pending = pendingCpuMove;
+        }
+        if (pending != null) pending.exceptionally(err -> null).join();
+
+        synchronized (this) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeUTF(id);
+            out.writeByte(currentDir.ordinal());
+            out.writeBoolean(practice);
+            out.writeUTF(playerName);
+            game.writeSnapshot(out);
+            synchronized (gameLog) {
+                out.writeByte(gameLog.size());
+                for (String line : gameLog) {
+                    out.writeUTF(line);
+                }
+            }
+        }
+    }
+
+    // throws IllegalArgumentException when the data is not a session snapshot
+    public static GameSession readSnapshot(DataInput in, ReplayExporter replayExporter, PlayerStats stats) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC) {
+            throw new IllegalArgumentException("Not a session snapshot");
+        }
+        GameSession session = new GameSession(in.readUTF(), replayExporter, stats);
+        synchronized (session) {
+            session.currentDir = Direction.of(in.readUnsignedByte());
+            session.practice = in.readBoolean();
+            session.playerName = in.readUTF();
+            GameLogger logger = session.new GameLogger();
+            session.attach(GameController.readSnapshot(in, logger), logger);
+
+            // replaying the moves logged them again; the saved log replaces that
+            List<String> lines = new ArrayList<>();
+            int count = in.readUnsignedByte();
+            for (int i = 0; i < count; i++) {
+                lines.add(in.readUTF());
+            }
+            synchronized (session.gameLog) {
+                session.gameLog.clear();
+                session.gameLog.addAll(lines);
+            }
+        }
+        return session;
+    }
+
+    // fires the player's shot and hands the cpu's reply to the compute executor;
+    // the request returns straight away and the cpu move lands in the session when ready
+    // throws RejectedExecutionException, before the shot is fired, when no CPU move slot is free
+    public synchronized void attack(Position pos) {
+        if (game.isGameOver() || game.isPlacementPhase() || isCpuThinking()) return;
+        if (!ComputeExecutor.tryAcquireMove()) {
+            throw new RejectedExecutionException("Too many CPU moves in flight");
+        }
+
+        hint = null;
+        pendingHint = null;
+        try {
+            game.playerAttack(pos);
+        } catch (RuntimeException e) {
+            ComputeExecutor.releaseMove();
+            throw e;
+        }
+        if (game.isGameOver()) {
+            ComputeExecutor.releaseMove();
+            return;
+        }
+
+        GameController current = game;
+        CompletableFuture<Position> move = current.cpuAttackAsync(ComputeExecutor.get(), this::runLocked);
+        pendingCpuMove = move;
+        move.whenComplete((p, err) -> {
+            ComputeExecutor.releaseMove();
+            synchronized (this) {
+                if (err != null) {
+                    log("CPU move error: " + err.getMessage());
+                    Metrics.cpuMoveError();
+                }
+                // ignore moves that finish after a new game was started
+                if (game == current && pendingCpuMove == move) pendingCpuMove = null;
+            }
+            for (Runnable listener : changeListeners) {
+                listener.run();
+            }
+        });
+    }
+
+    private void runLocked(Runnable r) {
+        synchronized (this) {
+            r.run();
+        }
+    }
+
+    // called after a CPU move lands, on the compute thread; listeners must not block
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(Runnable listener) {
+        changeListeners.remove(listener);
+    }
+
+    public synchronized boolean isCpuThinking() {
+        return pendingCpuMove != null;
+    }
+
+    public synchronized GameController getGame() {
+        return game;
+    }
+
+    public synchronized Direction getCurrentDir() {
+        return currentDir;
+    }
+
+    public synchronized void setCurrentDir(Direction dir) {
+        this.currentDir = dir;
+    }
+
+    public void log(String msg) {
+        synchronized (gameLog) {
+            gameLog.add(0, msg);
+            if (gameLog.size() > MAX_LOG) gameLog.remove(gameLog.size() - 1);
+        }
+    }
+
+    public int getLogSize() {
+        return gameLog.size();
+    }
+
+    // newest first; synchronize on the list while iterating
+    public List<String> getLog() {
+        return gameLog;
+    }
+}
@@ -0,0 +1,210 @@
+import java.util.Arrays;
+
+/**
+ * Immutable game position after placement, for search and undo.
+ *
+ * Both fleets are fixed for the whole game and shared by every state of it;
+ * what changes is which cells have been shot, kept as a 100-bit set per board
+ * in two longs. Firing returns a new state that points back at the one it
+ * came from, so forking a line of play is just keeping a reference, and
+ * rewinding is following that link. Nothing here notifies observers, touches
+ * a GameBoard or records replays.
+ *
+ * Sides follow Replay: 0 is the player, 1 the cpu. Board b is the fleet that
+ * side b owns, so side s fires at board 1 - s. Cells are y * 10 + x.
+ */
+public final class GameState {
+    public static final int PLAYER = 0;
+    public static final int CPU = 1;
+    public static final int CELLS = 100;
+
+    /** One side's ships, decoded once from its Replay fleet encoding. */
+    private static final class Fleet {
+        final byte[] shipAt = new byte[CELLS];            // ship index, or -1
+        final long[] shipLo = new long[Replay.SHIPS];     // each ship's cells
+        final long[] shipHi = new long[Replay.SHIPS];
+        long occupiedLo;
+        long occupiedHi;
+
+        Fleet(short[] placements) {
+            Arrays.fill(shipAt, (byte) -1);
+            for (int ship = 0; ship < Replay.SHIPS; ship++) {
+                int cell = Replay.placementCell(placements[ship]);
+                Direction dir = Replay.placementDirection(placements[ship]);
+                if (cell < 0 || cell >= CELLS || !Grid.fits(cell, dir, Replay.shipLength(ship))) {
+                    throw new IllegalArgumentException("Ship " + ship + " extends beyond the board");
+                }
+                for (int i = 0, c = cell; i < Replay.shipLength(ship); i++, c += Grid.step(dir)) {
+                    if (shipAt[c] >= 0) {
+                        throw new IllegalArgumentException("Ships overlap at cell " + c);
+                    }
+                    shipAt[c] = (byte) ship;
+                    if (c < 64) shipLo[ship] |= 1L << c; else shipHi[ship] |= 1L << (c - 64);
+                }
+                occupiedLo |= shipLo[ship];
+                occupiedHi |= shipHi[ship];
+            }
+        }
+    }
+
+    private final long seed;
+    private final Fleet[] fleets;
+    private final GameState parent;
+    private final byte lastShot;       // Replay shot encoding; meaningless at the root
+    private final int shotCount;
+    // shots received by board 0 and board 1
+    private final long shotLo0, shotHi0, shotLo1, shotHi1;
+
+    private GameState(long seed, Fleet[] fleets, GameState parent, byte lastShot, int shotCount,
+                      long shotLo0, long shotHi0, long shotLo1, long shotHi1) {
+        this.seed = seed;
+        this.fleets = fleets;
+        this.parent = parent;
+        this.lastShot = lastShot;
+        this.shotCount = shotCount;
+        this.shotLo0 = shotLo0;
+        this.shotHi0 = shotHi0;
+        this.shotLo1 = shotLo1;
+        this.shotHi1 = shotHi1;
+    }
+
+    /** The start of a game with both fleets placed; fleets use the Replay.encodeFleet layout. */
+    public static GameState start(long seed, short[] playerFleet, short[] cpuFleet) {
+        Fleet[] fleets = { new Fleet(playerFleet), new Fleet(cpuFleet) };
+        return new GameState(seed, fleets, null, (byte) 0, 0, 0, 0, 0, 0);
+    }
+
+    // ── Moves ────────────────────────────────────────────────────────────────
+
+    /**
+     * The state after side fires at cell. Turns are not enforced, so a search
+     * can play out one side's shots on their own.
+     * Throws IllegalArgumentException after game over or on a cell already shot.
+     */
+    public GameState fire(int side, int cell) {
+        if (side != PLAYER && side != CPU) throw new IllegalArgumentException("Unknown side " + side);
+        if (cell < 0 || cell >= CELLS) throw new IllegalArgumentException("Attack position out of bounds");
+        if (isGameOver()) throw new IllegalArgumentException("Game is over");
+        int board = 1 - side;
+        if (isShot(board, cell)) throw new IllegalArgumentException("Cell " + cell + " has already been attacked");
+
+        long lo = cell < 64 ? 1L << cell : 0;
+        long hi = cell < 64 ? 0 : 1L << (cell - 64);
+        byte shot = (byte) ((side << 7) | cell);
+        return board == 0
+                ? new GameState(seed, fleets, this, shot, shotCount + 1, shotLo0 | lo, shotHi0 | hi, shotLo1, shotHi1)
+                : new GameState(seed, fleets, this, shot, shotCount + 1, shotLo0, shotHi0, shotLo1 | lo, shotHi1 | hi);
+    }
+
+    public GameState fire(int side, Position pos) {
+        return fire(side, pos.getY() * 10 + pos.getX());
+    }
+
+    /** The state before the last shot; throws IllegalArgumentException at the start of the game. */
+    public GameState rewind() {
+        if (parent == null) throw new IllegalArgumentException("No shots to rewind");
+        return parent;
+    }
+
+    /** The earlier state of this game with the given number of shots fired. */
+    public GameState rewindTo(int shots) {
+        if (shots < 0 || shots > shotCount) throw new IllegalArgumentException("No state with " + shots + " shots");
+        GameState s = this;
+        while (s.shotCount > shots) s = s.parent;
+        return s;
+    }
+
+    // ── Queries ──────────────────────────────────────────────────────────────
+
+    public boolean isShot(int board, int cell) {
+        long lo = board == 0 ? shotLo0 : shotLo1;
+        long hi = board == 0 ? shotHi0 : shotHi1;
+        return cell < 64 ? (lo >>> cell & 1) != 0 : (hi >>> (cell - 64) & 1) != 0;
+    }
+
+    public boolean isOccupied(int board, int cell) {
+        return fleets[board].shipAt[cell] >= 0;
+    }
+
+    public boolean isHit(int board, int cell) {
+        return isShot(board, cell) && isOccupied(board, cell);
+    }
+
+    // ship index in ShipType order, or -1 for open water
+    public int shipAt(int board, int cell) {
+        return fleets[board].shipAt[cell];
+    }
+
+    public boolean isSunk(int board, int ship) {
+        Fleet f = fleets[board];
+        long lo = board == 0 ? shotLo0 : shotLo1;
+        long hi = board == 0 ? shotHi0 : shotHi1;
+        return (f.shipLo[ship] & ~lo) == 0 && (f.shipHi[ship] & ~hi) == 0;
+    }
+
+    public boolean isFleetSunk(int board) {
+        Fleet f = fleets[board];
+        long lo = board == 0 ? shotLo0 : shotLo1;
+        long hi = board == 0 ? shotHi0 : shotHi1;
+        return (f.occupiedLo & ~lo) == 0 && (f.occupiedHi & ~hi) == 0;
+    }
+
+    // cells on board that have not been shot yet
+    public int openCells(int board) {
+        long lo = board == 0 ? shotLo0 : shotLo1;
+        long hi = board == 0 ? shotHi0 : shotHi1;
+        return CELLS - Long.bitCount(lo) - Long.bitCount(hi);
+    }
+
+    public boolean isGameOver() {
+        return isFleetSunk(0) || isFleetSunk(1);
+    }
+
+    // side whose fleet is left standing, or -1 while the game is on
+    public int winner() {
+        if (isFleetSunk(1)) return PLAYER;
+        if (isFleetSunk(0)) return CPU;
+        return -1;
+    }
+
+    public int getShotCount() {
+        return shotCount;
+    }
+
+    // side that fired the last shot, or -1 at the start
+    public int lastShotSide() {
+        return parent == null ? -1 : Replay.shotSide(lastShot);
+    }
+
+    // cell of the last shot, or -1 at the start
+    public int lastShotCell() {
+        return parent == null ? -1 : Replay.shotCell(lastShot);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    // board's fleet in the Replay.encodeFleet layout
+    public short[] fleet(int board) {
+        Fleet f = fleets[board];
+        short[] placements = new short[Replay.SHIPS];
+        for (int ship = 0; ship < Replay.SHIPS; ship++) {
+            int first = f.shipLo[ship] != 0
+                    ? Long.numberOfTrailingZeros(f.shipLo[ship])
+                    : 64 + Long.numberOfTrailingZeros(f.shipHi[ship]);
+            boolean horizontal = first % 10 < 9 && f.shipAt[first + 1] == ship;
+            placements[ship] = (short) (first * 4 + (horizontal ? Direction.EAST : Direction.SOUTH).ordinal());
+        }
+        return placements;
+    }
+
+    // every shot from the start, oldest first, in the Replay shot encoding
+    public byte[] shots() {
+        byte[] shots = new byte[shotCount];
+        for (GameState s = this; s.parent != null; s = s.parent) {
+            shots[s.shotCount - 1] = s.lastShot;
+        }
+        return shots;
+    }
+}
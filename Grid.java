@@ -0,0 +1,74 @@
+/**
+ * Primitive coordinates for the 10x10 board.
+ *
+ * A cell is the int y * 10 + x, the same index Replay, GameState and the AI
+ * already use. Stepping in a Direction is a table lookup instead of a new
+ * Position: neighbor() gives the next cell or -1 off the board, reach()
+ * how many steps fit before the edge, and step() the index delta, so a ship
+ * of length n from cell covers cell + i * step(dir) for i < n whenever
+ * fits(cell, dir, n). Position.of(cell) turns a cell back into the shared
+ * Position for it.
+ */
+public final class Grid {
+    public static final int SIZE = 10;
+    public static final int CELLS = SIZE * SIZE;
+
+    private static final int DIRECTIONS = Direction.count();
+    // [direction][cell]
+    private static final int[][] NEIGHBOR = new int[DIRECTIONS][CELLS];
+    private static final int[][] REACH = new int[DIRECTIONS][CELLS];
+    private static final int[] STEP = new int[DIRECTIONS];
+
+    static {
+        for (int d = 0; d < DIRECTIONS; d++) {
+            Direction dir = Direction.of(d);
+            STEP[d] = dir.getYOffset() * SIZE + dir.getXOffset();
+            for (int cell = 0; cell < CELLS; cell++) {
+                int x = x(cell) + dir.getXOffset(), y = y(cell) + dir.getYOffset();
+                int reach = 0;
+                while (isOnBoard(x + reach * dir.getXOffset(), y + reach * dir.getYOffset())) reach++;
+                NEIGHBOR[d][cell] = reach > 0 ? index(x, y) : -1;
+                REACH[d][cell] = reach;
+            }
+        }
+    }
+
+    private Grid() {}
+
+    // no bounds check; see isOnBoard
+    public static int index(int x, int y) {
+        return y * SIZE + x;
+    }
+
+    public static int x(int cell) {
+        return cell % SIZE;
+    }
+
+    public static int y(int cell) {
+        return cell / SIZE;
+    }
+
+    public static boolean isOnBoard(int x, int y) {
+        return x >= 0 && x < SIZE && y >= 0 && y < SIZE;
+    }
+
+    // the next cell from cell in dir, or -1 at the edge
+    public static int neighbor(int cell, Direction dir) {
+        return NEIGHBOR[dir.ordinal()][cell];
+    }
+
+    // index delta of one step in dir; only meaningful while reach() allows it
+    public static int step(Direction dir) {
+        return STEP[dir.ordinal()];
+    }
+
+    // how many steps from cell in dir stay on the board
+    public static int reach(int cell, Direction dir) {
+        return REACH[dir.ordinal()][cell];
+    }
+
+    // true when a ship of length starting at cell and facing dir is on the board
+    public static boolean fits(int cell, Direction dir, int length) {
+        return REACH[dir.ordinal()][cell] >= length - 1;
+    }
+}
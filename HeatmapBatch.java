@@ -0,0 +1,229 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DensityAttackStrategy for many boards at once.
+ *
+ * Boards are laid out lane-major: each cell has its own array with one
+ * entry per board (lane). For each of the 600 ship placements the kernel
+ * runs straight loops over the lanes with no branches, which HotSpot's C2
+ * compiles to SIMD instructions on its own, so one placement is scored for
+ * 4-16 boards per instruction depending on the CPU. Every loop indexes its
+ * arrays with the bare lane number; C2 gives up on vectorizing when a load
+ * and a store in the same loop use different offsets, since it can't rule
+ * out that they overlap.
+ *
+ * Lanes are scored in groups of LANE_GROUP, padding with idle lanes, so the
+ * loops always run long enough for C2 to unroll and vectorize them, even
+ * when it first compiled them for small batches.
+ *
+ * Pending CPU moves from all sessions meet in one queue. Each dispatcher
+ * thread takes whatever is waiting (up to one batch) and completes each
+ * move's future. A lone move is not held back for company, so batches only
+ * grow when moves actually pile up; below MIN_BATCH moves the scalar
+ * strategy is cheaper and is used instead.
+ */
+public final class HeatmapBatch {
+    public static final int DEFAULT_CAPACITY = 256;
+    public static final int LANE_GROUP = 16;
+    public static final int MIN_BATCH = 32;
+
+    private static final int THREADS = Integer.getInteger("battleship.aiBatchThreads", 1);
+    private static final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private static final LongAdder batches = new LongAdder();
+    private static final LongAdder batchedMoves = new LongAdder();
+    private static boolean started;
+
+    private final int capacity;
+    // [cell][lane], and alive is [ship][lane]
+    private final int[][] shot;
+    private final int[][] blocked;
+    private final int[][] hits;
+    private final int[][] alive;
+    private final int[][] density;
+    // per-lane scratch for one placement
+    private final int[] blk;
+    private final int[] h;
+    private final int[] w;
+    private final int[] best;
+    private final int[] bestCell;
+    private int size;
+
+    private record Pending(GameBoard board, CompletableFuture<Position> result) {}
+
+    // capacity is rounded up to whole lane groups
+    public HeatmapBatch(int capacity) {
+        capacity = (capacity + LANE_GROUP - 1) / LANE_GROUP * LANE_GROUP;
+        this.capacity = capacity;
+        shot = new int[DensityAttackStrategy.CELLS][capacity];
+        blocked = new int[DensityAttackStrategy.CELLS][capacity];
+        hits = new int[DensityAttackStrategy.CELLS][capacity];
+        density = new int[DensityAttackStrategy.CELLS][capacity];
+        alive = new int[Replay.SHIPS][capacity];
+        blk = new int[capacity];
+        h = new int[capacity];
+        w = new int[capacity];
+        best = new int[capacity];
+        bestCell = new int[capacity];
+    }
+
+    // ── Kernel ───────────────────────────────────────────────────────────────
+
+    // adds a board and returns its lane
+    public int add(GameBoard board) {
+        if (size == capacity) throw new IllegalArgumentException("Batch is full");
+        int lane = size++;
+        for (int s = 0; s < Replay.SHIPS; s++) alive[s][lane] = 1;
+        for (int c = 0; c < DensityAttackStrategy.CELLS; c++) {
+            Cell cell = board.cell(c);
+            int state = DensityAttackStrategy.cellState(cell);
+            shot[c][lane] = state & DensityAttackStrategy.SHOT;
+            blocked[c][lane] = (state & DensityAttackStrategy.BLOCKED) >> 1;
+            hits[c][lane] = (state & DensityAttackStrategy.HIT) >> 2;
+            if (DensityAttackStrategy.isSunkShip(cell)) {
+                alive[DensityAttackStrategy.shipIndex(cell.getShip().getLength())][lane] = 0;
+            }
+        }
+        return lane;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /** Scores every board added since clear(); then cell(lane) is that board's shot. */
+    public void evaluate() {
+        int n = (size + LANE_GROUP - 1) / LANE_GROUP * LANE_GROUP;
+        // idle lanes keep whatever the last batch left, but with no ship afloat they score nothing
+        for (int[] afloat : alive) {
+            Arrays.fill(afloat, size, n, 0);
+        }
+        for (int[] row : density) {
+            Arrays.fill(row, 0, n, 0);
+        }
+
+        for (int p = 0; p < DensityAttackStrategy.PLACEMENTS; p++) {
+            int ship = DensityAttackStrategy.PLACEMENT_SHIP[p];
+            int len = Replay.shipLength(ship);
+            int step = DensityAttackStrategy.PLACEMENT_STEP[p];
+            int first = DensityAttackStrategy.PLACEMENT_START[p];
+
+            int[] b0 = blocked[first], h0 = hits[first];
+            for (int l = 0; l < n; l++) {
+                blk[l] = b0[l];
+                h[l] = h0[l];
+            }
+            for (int i = 1; i < len; i++) {
+                int[] b = blocked[first + i * step], hc = hits[first + i * step];
+                for (int l = 0; l < n; l++) {
+                    blk[l] |= b[l];
+                    h[l] += hc[l];
+                }
+            }
+            // weight is 0 for placements that cross a miss or a sunk ship, or whose ship is gone
+            int[] afloat = alive[ship];
+            for (int l = 0; l < n; l++) {
+                w[l] = (afloat[l] & (blk[l] ^ 1)) * (1 + DensityAttackStrategy.HIT_WEIGHT * h[l]);
+            }
+            for (int i = 0; i < len; i++) {
+                int[] d = density[first + i * step];
+                for (int l = 0; l < n; l++) {
+                    d[l] += w[l];
+                }
+            }
+        }
+
+        // same rule as DensityAttackStrategy.best: highest open cell, lowest cell on ties
+        Arrays.fill(best, 0, n, -1);
+        Arrays.fill(bestCell, 0, n, -1);
+        for (int c = 0; c < DensityAttackStrategy.CELLS; c++) {
+            int[] d = density[c], s = shot[c];
+            for (int l = 0; l < n; l++) {
+                int v = s[l] == 0 ? d[l] : -1;
+                if (v > best[l]) {
+                    best[l] = v;
+                    bestCell[l] = c;
+                }
+            }
+        }
+    }
+
+    // the chosen cell (y * 10 + x) for lane after evaluate()
+    public int cell(int lane) {
+        return bestCell[lane];
+    }
+
+    // ── Dispatch ─────────────────────────────────────────────────────────────
+
+    /**
+     * Queues board for the next batch; the future completes on a dispatcher
+     * thread with the shot DensityAttackStrategy would pick. The board must
+     * not change until then, which holds for a session waiting on its CPU move.
+     */
+    public static CompletableFuture<Position> submit(GameBoard board) {
+        startDispatchers();
+        CompletableFuture<Position> result = new CompletableFuture<>();
+        queue.add(new Pending(board, result));
+        return result;
+    }
+
+    private static synchronized void startDispatchers() {
+        if (started) return;
+        started = true;
+        for (int i = 0; i < Math.max(1, THREADS); i++) {
+            Thread t = new Thread(HeatmapBatch::dispatch, "ai-batch-" + (i + 1));
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+
+    private static void dispatch() {
+        HeatmapBatch batch = new HeatmapBatch(DEFAULT_CAPACITY);
+        DensityAttackStrategy scalar = new DensityAttackStrategy();
+        List<Pending> pending = new ArrayList<>(DEFAULT_CAPACITY);
+        while (true) {
+            try {
+                pending.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(pending, DEFAULT_CAPACITY - 1);
+
+            try {
+                if (pending.size() < MIN_BATCH) {
+                    for (Pending p : pending) p.result().complete(scalar.getNextAttackPosition(p.board(), null));
+                } else {
+                    batch.clear();
+                    for (Pending p : pending) batch.add(p.board());
+                    batch.evaluate();
+                    for (int l = 0; l < pending.size(); l++) {
+                        int cell = batch.cell(l);
+                        pending.get(l).result().complete(Position.of(cell));
+                    }
+                    batches.increment();
+                    batchedMoves.add(pending.size());
+                }
+            } catch (RuntimeException e) {
+                for (Pending p : pending) p.result().completeExceptionally(e);
+            }
+            pending.clear();
+        }
+    }
+
+    public static long getBatches() {
+        return batches.sum();
+    }
+
+    public static long getBatchedMoves() {
+        return batchedMoves.sum();
+    }
+}
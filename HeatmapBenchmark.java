@@ -0,0 +1,99 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Single-thread throughput of DensityAttackStrategy: one board at a time
+ * (the scalar path) against HeatmapBatch at several batch sizes, on the same
+ * mid-game boards. Both paths must pick the same shot for every board, so
+ * the run fails loudly if they disagree.
+ *
+ * Reports boards scored per second on one core; board encoding is included
+ * in both, as it is on the server.
+ *
+ * Usage: java HeatmapBenchmark [--boards=4096] [--seconds=3] [--seed=1]
+ */
+public class HeatmapBenchmark {
+    private static final GameObserver SILENT = msg -> {};
+    private static final int[] BATCH_SIZES = { 16, 32, 64, 128, 256 };
+
+    // a random fleet with a random number of shots fired by the density strategy itself
+    private static GameBoard midGameBoard(Random random) {
+        GameBoard board = new GameBoard();
+        new FleetPlacer(random).placeFleet(board, new ShipFactory(SILENT), false);
+        CPUPlayer shooter = new CPUPlayer(new DensityAttackStrategy());
+        int shots = random.nextInt(50);
+        for (int i = 0; i < shots && !board.isAllShipsSunk(); i++) {
+            board.receiveAttack(shooter.determineAttackPosition(board));
+        }
+        return board;
+    }
+
+    private static double scalar(GameBoard[] boards, int[] expected, double seconds) {
+        DensityAttackStrategy strategy = new DensityAttackStrategy();
+        long scored = 0, start = System.nanoTime(), end = start + (long) (seconds * 1e9);
+        while (System.nanoTime() < end) {
+            // every pass stores its picks (the same ones each time), so none of the work is dead
+            for (int b = 0; b < boards.length; b++) {
+                expected[b] = strategy.getNextAttackPosition(boards[b], null).getCell();
+            }
+            scored += boards.length;
+        }
+        return scored / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static double batched(GameBoard[] boards, int[] expected, int batchSize, double seconds) {
+        HeatmapBatch batch = new HeatmapBatch(batchSize);
+        long scored = 0, start = System.nanoTime(), end = start + (long) (seconds * 1e9);
+        boolean check = true;
+        while (System.nanoTime() < end) {
+            for (int from = 0; from < boards.length; from += batchSize) {
+                int to = Math.min(boards.length, from + batchSize);
+                batch.clear();
+                for (int b = from; b < to; b++) batch.add(boards[b]);
+                batch.evaluate();
+                if (check) {
+                    for (int b = from; b < to; b++) {
+                        if (batch.cell(b - from) != expected[b]) {
+                            throw new IllegalStateException("Batch of " + batchSize + " disagrees on board " + b
+                                    + ": " + batch.cell(b - from) + " vs " + expected[b]);
+                        }
+                    }
+                }
+            }
+            scored += boards.length;
+            check = false;
+        }
+        return scored / ((System.nanoTime() - start) / 1e9);
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Usage: java HeatmapBenchmark [--boards=4096] [--seconds=3] [--seed=1]");
+                System.exit(1);
+            }
+            opts.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        int count = Integer.parseInt(opts.getOrDefault("boards", "4096"));
+        double seconds = Double.parseDouble(opts.getOrDefault("seconds", "3"));
+        Random random = new Random(Long.parseLong(opts.getOrDefault("seed", "1")));
+
+        GameBoard[] boards = new GameBoard[count];
+        for (int i = 0; i < count; i++) boards[i] = midGameBoard(random);
+        int[] expected = new int[count];
+
+        // warm both paths up so C2 has compiled (and vectorized) them before timing
+        scalar(boards, expected, 1);
+        for (int size : BATCH_SIZES) batched(boards, expected, size, 0.5);
+
+        double base = scalar(boards, expected, seconds);
+        System.out.printf("%-12s %12s %8s%n", "path", "boards/s", "speedup");
+        System.out.printf("%-12s %,12.0f %8s%n", "scalar", base, "1.00x");
+        for (int size : BATCH_SIZES) {
+            double rate = batched(boards, expected, size, seconds);
+            System.out.printf("%-12s %,12.0f %7.2fx%n", "batch " + size, rate, rate / base);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shot hints for human players: DensityAttackStrategy's recommended cell
+ * and its placement density as a heatmap, from what the player can see of
+ * the enemy board.
+ *
+ * A hint depends only on that knowledge (shots, unsunk hits and which ships
+ * are sunk), never on the hidden fleet, so every player in the same spot
+ * can share it. Results are memoized per Knowledge in a bounded LRU cache
+ * that also holds hints still being computed: asking again before the
+ * first computation finishes gets the same future instead of a second run.
+ */
+public final class HintService {
+    private static final int MAX_ENTRIES = Integer.getInteger("battleship.hintCacheSize", 4096);
+    private static final HintService SHARED = new HintService(ComputeExecutor.get(), MAX_ENTRIES);
+
+    private final Executor executor;
+    private final Map<Knowledge, CompletableFuture<Hint>> cache;
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder computations = new LongAdder();
+
+    /** What a shooter knows about one board, as bit sets over cells (y * 10 + x). */
+    public static final class Knowledge {
+        private final long shotLo, shotHi;
+        private final long hitLo, hitHi;     // hits on ships still afloat
+        private final int sunkShips;         // bit per ship index
+
+        private Knowledge(long shotLo, long shotHi, long hitLo, long hitHi, int sunkShips) {
+            this.shotLo = shotLo;
+            this.shotHi = shotHi;
+            this.hitLo = hitLo;
+            this.hitHi = hitHi;
+            this.sunkShips = sunkShips;
+        }
+
+        // reads only the cells that have been shot, like DensityAttackStrategy
+        public static Knowledge of(GameBoard board) {
+            long shotLo = 0, shotHi = 0, hitLo = 0, hitHi = 0;
+            int sunk = 0;
+            for (int c = 0; c < DensityAttackStrategy.CELLS; c++) {
+                Cell cell = board.cell(c);
+                int state = DensityAttackStrategy.cellState(cell);
+                long bit = 1L << (c & 63);
+                if ((state & DensityAttackStrategy.SHOT) != 0) {
+                    if (c < 64) shotLo |= bit; else shotHi |= bit;
+                }
+                if ((state & DensityAttackStrategy.HIT) != 0) {
+                    if (c < 64) hitLo |= bit; else hitHi |= bit;
+                }
+                if (DensityAttackStrategy.isSunkShip(cell)) {
+                    sunk |= 1 << DensityAttackStrategy.shipIndex(cell.getShip().getLength());
+                }
+            }
+            return new Knowledge(shotLo, shotHi, hitLo, hitHi, sunk);
+        }
+
+        private boolean has(long lo, long hi, int c) {
+            return ((c < 64 ? lo : hi) >>> (c & 63) & 1) != 0;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Knowledge k && k.shotLo == shotLo && k.shotHi == shotHi
+                    && k.hitLo == hitLo && k.hitHi == hitHi && k.sunkShips == sunkShips;
+        }
+
+        @Override
+        public int hashCode() {
+            long h = shotLo * 31 + shotHi;
+            h = h * 31 + hitLo;
+            h = h * 31 + hitHi;
+            h = h * 31 + sunkShips;
+            return (int) (h ^ h >>> 32);
+        }
+    }
+
+    /** The recommended shot and the density behind it. */
+    public static final class Hint {
+        private final int cell;
+        private final int[] density;
+        private final int max;
+
+        private Hint(int cell, int[] density) {
+            this.cell = cell;
+            this.density = density;
+            this.max = Math.max(1, Arrays.stream(density).max().orElse(0));
+        }
+
+        // the recommended cell (y * 10 + x), or -1 when every cell has been shot
+        public int getCell() {
+            return cell;
+        }
+
+        // density of cell relative to the hottest cell, from 0 to 1
+        public double heat(int cell) {
+            return (double) density[cell] / max;
+        }
+    }
+
+    public HintService(Executor executor, int maxEntries) {
+        this.executor = executor;
+        this.cache = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Knowledge, CompletableFuture<Hint>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public static HintService shared() {
+        return SHARED;
+    }
+
+    /**
+     * The hint for knowledge: the cached one if there is one (finished or
+     * still running), otherwise a new computation on the executor.
+     */
+    public CompletableFuture<Hint> hint(Knowledge knowledge) {
+        CompletableFuture<Hint> result;
+        synchronized (cache) {
+            result = cache.get(knowledge);
+            if (result != null) {
+                cacheHits.increment();
+                return result;
+            }
+            result = new CompletableFuture<>();
+            cache.put(knowledge, result);
+        }
+
+        computations.increment();
+        CompletableFuture<Hint> computing = result;
+        try {
+            executor.execute(() -> {
+                try {
+                    computing.complete(compute(knowledge));
+                } catch (RuntimeException e) {
+                    fail(knowledge, computing, e);
+                }
+            });
+        } catch (RuntimeException e) {
+            fail(knowledge, computing, e);
+        }
+        return result;
+    }
+
+    // a failure is passed to everyone waiting but not remembered
+    private void fail(Knowledge knowledge, CompletableFuture<Hint> computing, RuntimeException e) {
+        synchronized (cache) {
+            cache.remove(knowledge, computing);
+        }
+        computing.completeExceptionally(e);
+    }
+
+    static Hint compute(Knowledge k) {
+        int[] shot = new int[DensityAttackStrategy.CELLS];
+        int[] blocked = new int[DensityAttackStrategy.CELLS];
+        int[] hits = new int[DensityAttackStrategy.CELLS];
+        int[] alive = new int[Replay.SHIPS];
+        int[] density = new int[DensityAttackStrategy.CELLS];
+        for (int c = 0; c < DensityAttackStrategy.CELLS; c++) {
+            shot[c] = k.has(k.shotLo, k.shotHi, c) ? 1 : 0;
+            hits[c] = k.has(k.hitLo, k.hitHi, c) ? 1 : 0;
+            blocked[c] = shot[c] & (hits[c] ^ 1);
+        }
+        for (int s = 0; s < Replay.SHIPS; s++) {
+            alive[s] = (k.sunkShips >>> s & 1) ^ 1;
+        }
+        DensityAttackStrategy.density(blocked, hits, alive, density);
+        // shot cells stay cold on the heatmap
+        for (int c = 0; c < DensityAttackStrategy.CELLS; c++) {
+            if (shot[c] != 0) density[c] = 0;
+        }
+        return new Hint(DensityAttackStrategy.best(shot, density), density);
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long getComputations() {
+        return computations.sum();
+    }
+}
@@ -0,0 +1,344 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Drives simulated players against a running GameServer.
+ * Each player opens a session, starts a new game, places its fleet and then
+ * fires until game over, picking shots with a real AttackStrategy that only
+ * sees what the rendered page shows. Players arrive at a fixed rate (open
+ * model) and pace their requests by a think time.
+ *
+ * Latency is reported twice: "service" is send-to-response, "corrected" is
+ * measured from when the request should have been sent according to the
+ * player's schedule, so a stalled server is not hidden by players that
+ * simply wait for it (coordinated omission).
+ *
+ * Players run on virtual threads when the JDK has them (21+), otherwise on
+ * a cached pool of platform threads.
+ *
+ * Requests carry X-Load-Test, so the server keeps these fixed fleets out of
+ * the placement heatmap it uses as the human prior.
+ *
+ * Every player comes from this host's address, which the server rate-limits
+ * as one client: start it with -Dbattleship.rateLimit and -Dbattleship.rateBurst
+ * raised to cover the whole load.
+ *
+ * Usage: java LoadGenerator [--url=http://localhost:8080] [--players=1000]
+ *                           [--rate=100] [--think=100] [--strategy=smart|random|targeted|multi]
+ */
+public class LoadGenerator {
+    private static final String[] ACTIONS = { "get", "new", "dir", "place", "attack", "poll" };
+    private static final int GET = 0, NEW = 1, DIR = 2, PLACE = 3, ATTACK = 4, POLL = 5;
+
+    // both boards render 100 cells each; this matches every cell in page order
+    private static final Pattern CELL = Pattern.compile("<div class='cell([^']*)'>|<form method='post' action='/' class='(?:place|attack)'>");
+    private static final Pattern SID = Pattern.compile("sid=([^;]+)");
+
+    private final URI base;
+    private final int players;
+    private final double rate;
+    private final long thinkNanos;
+    private final String strategyName;
+    private final HttpClient client;
+
+    private final LatencyHistogram service = new LatencyHistogram();
+    private final LatencyHistogram corrected = new LatencyHistogram();
+    private final LongAdder[] requests = new LongAdder[ACTIONS.length];
+    private final LongAdder[] errors = new LongAdder[ACTIONS.length];
+    private final LongAdder gamesFinished = new LongAdder();
+    private final LongAdder gamesWon = new LongAdder();
+    private final LongAdder playersFailed = new LongAdder();
+
+    public LoadGenerator(URI base, int players, double rate, long thinkMillis, String strategyName) {
+        this.base = base;
+        this.players = players;
+        this.rate = rate;
+        this.thinkNanos = TimeUnit.MILLISECONDS.toNanos(thinkMillis);
+        this.strategyName = strategyName;
+        this.client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        for (int i = 0; i < ACTIONS.length; i++) {
+            requests[i] = new LongAdder();
+            errors[i] = new LongAdder();
+        }
+    }
+
+    // ── Player ───────────────────────────────────────────────────────────────
+
+    private class Player implements Runnable {
+        private String sid;
+        private long intended;
+
+        Player(long intendedStart) {
+            this.intended = intendedStart;
+        }
+
+        @Override
+        public void run() {
+            try {
+                play();
+            } catch (Exception e) {
+                playersFailed.increment();
+            }
+        }
+
+        private void play() throws Exception {
+            String page = send(GET, null);
+            send(NEW, "action=new");
+            send(DIR, "action=dir&dir=EAST");
+            // one ship per even row, longest first; every length fits from column 0
+            for (int i = 0; i < ShipFactory.ShipType.values().length; i++) {
+                send(PLACE, "action=place&x=0&y=" + (i * 2));
+            }
+
+            GameBoard view = new GameBoard();   // what the player knows about the enemy board
+            CPUPlayer shooter = new CPUPlayer(strategy(strategyName));
+            page = send(GET, null);
+            while (!page.contains("Game Over")) {
+                Position pos = shooter.determineAttackPosition(view);
+                send(ATTACK, "action=attack&x=" + pos.getX() + "&y=" + pos.getY());
+                page = send(POLL, null);
+                while (page.contains("taking aim")) {
+                    page = send(POLL, null);
+                }
+
+                String[] enemy = enemyCells(page);
+                String cls = enemy[pos.getCell()];
+                boolean sunk = cls.contains("sunk");
+                boolean hit = sunk || cls.contains("hit");
+                view.receiveAttack(pos);
+                shooter.recordAttackResult(pos, hit, sunk ? sunkType(enemy, pos) : null, sunk);
+            }
+            gamesFinished.increment();
+            if (page.contains("Player wins")) gamesWon.increment();
+        }
+
+        // waits for this request's slot, sends it and records both latencies
+        private String send(int action, String form) throws Exception {
+            long now = System.nanoTime();
+            if (now < intended) {
+                TimeUnit.NANOSECONDS.sleep(intended - now);
+            }
+            HttpRequest.Builder b = HttpRequest.newBuilder(base).timeout(Duration.ofSeconds(30))
+                    .header(GameServer.LOAD_TEST_HEADER, "1");
+            if (sid != null) b.header("Cookie", "sid=" + sid);
+            if (form != null) {
+                b.header("Content-Type", "application/x-www-form-urlencoded")
+                 .POST(HttpRequest.BodyPublishers.ofString(form));
+            }
+
+            long start = System.nanoTime();
+            requests[action].increment();
+            HttpResponse<String> res;
+            try {
+                res = client.send(b.build(), HttpResponse.BodyHandlers.ofString());
+            } catch (Exception e) {
+                errors[action].increment();
+                throw e;
+            }
+            long end = System.nanoTime();
+            service.record(end - start);
+            // start is never before intended, so a late send counts against the server
+            corrected.record(end - intended);
+            intended += thinkNanos;
+
+            int expected = form != null ? 303 : 200;
+            if (res.statusCode() != expected) {
+                errors[action].increment();
+                throw new IllegalStateException(ACTIONS[action] + " returned " + res.statusCode());
+            }
+            if (sid == null) {
+                res.headers().firstValue("Set-Cookie").map(SID::matcher).filter(Matcher::find)
+                   .ifPresent(m -> sid = m.group(1));
+            }
+            return res.body();
+        }
+    }
+
+    // css classes of the enemy board cells by Grid cell; the enemy board is the second 100 cells
+    private static String[] enemyCells(String page) {
+        String[] cells = new String[Grid.CELLS];
+        Matcher m = CELL.matcher(page);
+        int i = 0;
+        for (; i < Grid.CELLS + cells.length && m.find(); i++) {
+            if (i >= Grid.CELLS) cells[i - Grid.CELLS] = m.group(1) != null ? m.group(1) : "";
+        }
+        if (i < Grid.CELLS + cells.length) throw new IllegalStateException("Enemy board not found in page");
+        return cells;
+    }
+
+    /**
+     * Ship.getType() of the ship just sunk at pos, from the run of sunk cells
+     * through it. Null when that is ambiguous (sunk ships side by side) or no
+     * ship has that length; the strategy then works it out from its own hits.
+     */
+    private static String sunkType(String[] cells, Position pos) {
+        int across = 1 + sunkRun(cells, pos.getCell(), Direction.EAST) + sunkRun(cells, pos.getCell(), Direction.WEST);
+        int down = 1 + sunkRun(cells, pos.getCell(), Direction.SOUTH) + sunkRun(cells, pos.getCell(), Direction.NORTH);
+        if (across > 1 && down > 1) return null;
+        int length = Math.max(across, down);
+        ShipFactory factory = new ShipFactory(msg -> {});
+        for (ShipFactory.ShipType type : ShipFactory.ShipType.values()) {
+            Ship ship = factory.createShip(type);
+            if (ship.getLength() == length) return ship.getType();
+        }
+        return null;
+    }
+
+    private static int sunkRun(String[] cells, int cell, Direction dir) {
+        int n = 0;
+        for (int next = Grid.neighbor(cell, dir); next >= 0 && cells[next].contains("sunk"); next = Grid.neighbor(next, dir)) n++;
+        return n;
+    }
+
+    private static AttackStrategy strategy(String name) {
+        return switch (name) {
+            case "random" -> new RandomAttackStrategy();
+            case "targeted" -> new TargetedAttackStrategy();
+            case "multi" -> new MultiTargetStrategy();
+            default -> new SmartCPUStrategy();
+        };
+    }
+
+    // ── Run ──────────────────────────────────────────────────────────────────
+
+    public void run() throws InterruptedException {
+        ExecutorService executor = playerExecutor();
+        long start = System.nanoTime();
+        long intervalNanos = (long) (1e9 / rate);
+
+        for (int i = 0; i < players; i++) {
+            long due = start + i * intervalNanos;
+            long now = System.nanoTime();
+            if (now < due) TimeUnit.NANOSECONDS.sleep(due - now);
+            executor.execute(new Player(due));
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.DAYS);
+
+        report(System.nanoTime() - start);
+    }
+
+    private static ExecutorService playerExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            System.out.println("Virtual threads unavailable, using platform threads");
+            AtomicLong count = new AtomicLong();
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "player-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    private void report(long nanos) {
+        double seconds = nanos / 1e9;
+        long total = 0, failed = 0;
+        for (int i = 0; i < ACTIONS.length; i++) {
+            total += requests[i].sum();
+            failed += errors[i].sum();
+        }
+
+        System.out.printf("Players:     %d at %.1f/s, think %d ms, %s strategy%n",
+                players, rate, TimeUnit.NANOSECONDS.toMillis(thinkNanos), strategyName);
+        System.out.printf("Games:       %d finished, %d won, %d players failed%n",
+                gamesFinished.sum(), gamesWon.sum(), playersFailed.sum());
+        System.out.printf("Elapsed:     %.1f s%n", seconds);
+        System.out.printf("Throughput:  %.0f req/s, %.1f games/s%n", total / seconds, gamesFinished.sum() / seconds);
+        System.out.printf("Errors:      %d of %d requests (%.2f%%)%n", failed, total, total == 0 ? 0 : 100.0 * failed / total);
+        for (int i = 0; i < ACTIONS.length; i++) {
+            System.out.printf("  %-7s %9d requests %6d errors%n", ACTIONS[i], requests[i].sum(), errors[i].sum());
+        }
+        System.out.println("Latency (ms)     p50      p90      p99    p99.9      max");
+        service.print("  service  ");
+        corrected.print("  corrected");
+    }
+
+    // ── Latency histogram ────────────────────────────────────────────────────
+
+    /**
+     * Log-linear histogram of microsecond values: 32 linear sub-buckets per
+     * power of two, so every value is kept to within about 3%.
+     */
+    static final class LatencyHistogram {
+        private static final int SUB_BITS = 6;
+        private static final int SUB = 1 << SUB_BITS;
+        private static final int HALF = SUB / 2;
+        private final AtomicLongArray counts = new AtomicLongArray(SUB + 58 * HALF);
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long nanos) {
+            long micros = Math.max(0, nanos / 1000);
+            counts.incrementAndGet(index(micros));
+            max.accumulateAndGet(micros, Math::max);
+        }
+
+        // values below SUB get their own bucket, larger ones keep their top SUB_BITS bits
+        private static int index(long v) {
+            if (v < SUB) return (int) v;
+            int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS + 1;
+            return SUB + (shift - 1) * HALF + (int) (v >>> shift) - HALF;
+        }
+
+        // lowest value that lands in bucket i
+        private static long lowest(int i) {
+            if (i < SUB) return i;
+            int j = i - SUB;
+            int shift = j / HALF + 1;
+            return (long) (j % HALF + HALF) << shift;
+        }
+
+        long percentile(double p) {
+            long total = 0;
+            for (int i = 0; i < counts.length(); i++) total += counts.get(i);
+            if (total == 0) return 0;
+            long rank = (long) Math.ceil(p / 100 * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= rank) return lowest(i);
+            }
+            return max.get();
+        }
+
+        void print(String label) {
+            System.out.printf("%s %8.2f %8.2f %8.2f %8.2f %8.2f%n", label,
+                    percentile(50) / 1000.0, percentile(90) / 1000.0, percentile(99) / 1000.0,
+                    percentile(99.9) / 1000.0, max.get() / 1000.0);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Usage: java LoadGenerator [--url=http://localhost:8080] [--players=1000]"
+                        + " [--rate=100] [--think=100] [--strategy=smart|random|targeted|multi]");
+                System.exit(1);
+            }
+            opts.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        new LoadGenerator(
+                URI.create(opts.getOrDefault("url", "http://localhost:8080") + "/"),
+                Integer.parseInt(opts.getOrDefault("players", "1000")),
+                Double.parseDouble(opts.getOrDefault("rate", "100")),
+                Long.parseLong(opts.getOrDefault("think", "100")),
+                opts.getOrDefault("strategy", "smart")
+        ).run();
+    }
+}
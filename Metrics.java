@@ -0,0 +1,222 @@
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Server counters and latency histograms, rendered in the Prometheus text format.
+ * Recording only bumps LongAdders in fixed buckets: no locks, no allocation.
+ */
+public final class Metrics {
+    // the actions handled by GameServer.handleAction, in label order
+    static final String[] ACTIONS = { "new", "dir", "place", "attack", "practice", "undo", "name", "hint" };
+
+    // bucket upper bounds in nanoseconds, 50us .. 2.5s
+    private static final long[] BOUNDS = {
+            50_000L, 100_000L, 250_000L, 500_000L,
+            1_000_000L, 2_500_000L, 5_000_000L, 10_000_000L, 25_000_000L, 50_000_000L,
+            100_000_000L, 250_000_000L, 500_000_000L, 1_000_000_000L, 2_500_000_000L
+    };
+    private static final String[] LE = new String[BOUNDS.length];
+
+    static {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            LE[i] = BigDecimal.valueOf(BOUNDS[i], 9).stripTrailingZeros().toPlainString();
+        }
+    }
+
+    /** A fixed-bucket latency histogram. */
+    public static final class Histogram {
+        private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+        private final LongAdder sumNanos = new LongAdder();
+
+        Histogram() {
+            for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+        }
+
+        public void observe(long nanos) {
+            int i = 0;
+            while (i < BOUNDS.length && nanos > BOUNDS[i]) i++;
+            buckets[i].increment();
+            sumNanos.add(nanos);
+        }
+
+        // cumulative buckets, as Prometheus expects
+        private void write(StringBuilder sb, String name, String labels) {
+            String sep = labels.isEmpty() ? "" : labels + ",";
+            long cumulative = 0;
+            for (int i = 0; i < BOUNDS.length; i++) {
+                cumulative += buckets[i].sum();
+                sb.append(name).append("_bucket{").append(sep).append("le=\"")
+                  .append(LE[i]).append("\"} ").append(cumulative).append('\n');
+            }
+            cumulative += buckets[BOUNDS.length].sum();
+            sb.append(name).append("_bucket{").append(sep).append("le=\"+Inf\"} ").append(cumulative).append('\n');
+            String braces = labels.isEmpty() ? "" : "{" + labels + "}";
+            sb.append(name).append("_sum").append(braces).append(' ').append(sumNanos.sum() / 1e9).append('\n');
+            sb.append(name).append("_count").append(braces).append(' ').append(cumulative).append('\n');
+        }
+    }
+
+    public static final Histogram PAGE_RENDER = new Histogram();
+    public static final Histogram CPU_DECISION = new Histogram();
+
+    private static final Histogram[] actionLatency = new Histogram[ACTIONS.length];
+    private static final LongAdder[] actionErrors = new LongAdder[ACTIONS.length];
+    private static final LongAdder serverErrors = new LongAdder();
+    private static final LongAdder cpuMoveErrors = new LongAdder();
+    private static final LongAdder rateLimited = new LongAdder();
+    private static final LongAdder cpuMovesRejected = new LongAdder();
+
+    static {
+        for (int i = 0; i < ACTIONS.length; i++) {
+            actionLatency[i] = new Histogram();
+            actionErrors[i] = new LongAdder();
+        }
+    }
+
+    private Metrics() {}
+
+    // index into ACTIONS, or -1 for anything else
+    public static int actionIndex(String action) {
+        return switch (action) {
+            case "new" -> 0;
+            case "dir" -> 1;
+            case "place" -> 2;
+            case "attack" -> 3;
+            case "practice" -> 4;
+            case "undo" -> 5;
+            case "name" -> 6;
+            case "hint" -> 7;
+            default -> -1;
+        };
+    }
+
+    public static void recordAction(int action, long nanos) {
+        if (action >= 0) actionLatency[action].observe(nanos);
+    }
+
+    public static void actionError(int action) {
+        if (action >= 0) actionErrors[action].increment();
+    }
+
+    public static void serverError() {
+        serverErrors.increment();
+    }
+
+    public static void cpuMoveError() {
+        cpuMoveErrors.increment();
+    }
+
+    public static void rateLimited() {
+        rateLimited.increment();
+    }
+
+    public static void cpuMoveRejected() {
+        cpuMovesRejected.increment();
+    }
+
+    // renders everything; gauges are read from the live sessions and limits at scrape time
+    public static String render(Collection<GameSession> sessions, RateLimiter limiter) {
+        StringBuilder sb = new StringBuilder(8 * 1024);
+
+        sb.append("# HELP battleship_action_duration_seconds Time to handle a game action.\n");
+        sb.append("# TYPE battleship_action_duration_seconds histogram\n");
+        for (int i = 0; i < ACTIONS.length; i++) {
+            actionLatency[i].write(sb, "battleship_action_duration_seconds", "action=\"" + ACTIONS[i] + "\"");
+        }
+
+        sb.append("# HELP battleship_page_render_seconds Time to build the game page.\n");
+        sb.append("# TYPE battleship_page_render_seconds histogram\n");
+        PAGE_RENDER.write(sb, "battleship_page_render_seconds", "");
+
+        sb.append("# HELP battleship_cpu_decision_seconds Time for the CPU to pick a shot.\n");
+        sb.append("# TYPE battleship_cpu_decision_seconds histogram\n");
+        CPU_DECISION.write(sb, "battleship_cpu_decision_seconds", "");
+
+        sb.append("# HELP battleship_ai_batches_total Batches of CPU moves scored together by HeatmapBatch.\n");
+        sb.append("# TYPE battleship_ai_batches_total counter\n");
+        sb.append("battleship_ai_batches_total ").append(HeatmapBatch.getBatches()).append('\n');
+
+        sb.append("# HELP battleship_ai_batched_moves_total CPU moves scored in those batches.\n");
+        sb.append("# TYPE battleship_ai_batched_moves_total counter\n");
+        sb.append("battleship_ai_batched_moves_total ").append(HeatmapBatch.getBatchedMoves()).append('\n');
+
+        HintService hints = HintService.shared();
+        sb.append("# HELP battleship_hint_computations_total Shot hints computed.\n");
+        sb.append("# TYPE battleship_hint_computations_total counter\n");
+        sb.append("battleship_hint_computations_total ").append(hints.getComputations()).append('\n');
+
+        sb.append("# HELP battleship_hint_cache_hits_total Shot hints served from the cache or joined while computing.\n");
+        sb.append("# TYPE battleship_hint_cache_hits_total counter\n");
+        sb.append("battleship_hint_cache_hits_total ").append(hints.getCacheHits()).append('\n');
+
+        sb.append("# HELP battleship_hint_cache_entries Knowledge states in the hint cache.\n");
+        sb.append("# TYPE battleship_hint_cache_entries gauge\n");
+        sb.append("battleship_hint_cache_entries ").append(hints.size()).append('\n');
+
+        sb.append("# HELP battleship_action_errors_total Actions that failed with an error.\n");
+        sb.append("# TYPE battleship_action_errors_total counter\n");
+        for (int i = 0; i < ACTIONS.length; i++) {
+            sb.append("battleship_action_errors_total{action=\"").append(ACTIONS[i]).append("\"} ")
+              .append(actionErrors[i].sum()).append('\n');
+        }
+
+        sb.append("# HELP battleship_server_errors_total Requests answered with a 500.\n");
+        sb.append("# TYPE battleship_server_errors_total counter\n");
+        sb.append("battleship_server_errors_total ").append(serverErrors.sum()).append('\n');
+
+        sb.append("# HELP battleship_cpu_move_errors_total CPU moves that failed.\n");
+        sb.append("# TYPE battleship_cpu_move_errors_total counter\n");
+        sb.append("battleship_cpu_move_errors_total ").append(cpuMoveErrors.sum()).append('\n');
+
+        sb.append("# HELP battleship_rate_limited_total Actions refused with 429 by the per-client limit.\n");
+        sb.append("# TYPE battleship_rate_limited_total counter\n");
+        sb.append("battleship_rate_limited_total ").append(rateLimited.sum()).append('\n');
+
+        sb.append("# HELP battleship_cpu_moves_rejected_total Attacks refused with 503 because no CPU move slot was free.\n");
+        sb.append("# TYPE battleship_cpu_moves_rejected_total counter\n");
+        sb.append("battleship_cpu_moves_rejected_total ").append(cpuMovesRejected.sum()).append('\n');
+
+        sb.append("# HELP battleship_cpu_moves_in_flight CPU moves being decided right now.\n");
+        sb.append("# TYPE battleship_cpu_moves_in_flight gauge\n");
+        sb.append("battleship_cpu_moves_in_flight ").append(ComputeExecutor.getMovesInFlight()).append('\n');
+
+        sb.append("# HELP battleship_cpu_moves_limit Most CPU moves allowed in flight.\n");
+        sb.append("# TYPE battleship_cpu_moves_limit gauge\n");
+        sb.append("battleship_cpu_moves_limit ").append(ComputeExecutor.getMaxMovesInFlight()).append('\n');
+
+        sb.append("# HELP battleship_rate_limit_per_second Actions per second each client is allowed.\n");
+        sb.append("# TYPE battleship_rate_limit_per_second gauge\n");
+        sb.append("battleship_rate_limit_per_second ").append(limiter.getPerSecond()).append('\n');
+
+        sb.append("# HELP battleship_rate_limit_burst Actions a client may send at once.\n");
+        sb.append("# TYPE battleship_rate_limit_burst gauge\n");
+        sb.append("battleship_rate_limit_burst ").append(limiter.getBurst()).append('\n');
+
+        sb.append("# HELP battleship_rate_limit_clients Clients with a tracked token bucket.\n");
+        sb.append("# TYPE battleship_rate_limit_clients gauge\n");
+        sb.append("battleship_rate_limit_clients ").append(limiter.getClientCount()).append('\n');
+
+        long logEntries = 0;
+        int logMax = 0;
+        for (GameSession s : sessions) {
+            int size = s.getLogSize();
+            logEntries += size;
+            logMax = Math.max(logMax, size);
+        }
+
+        sb.append("# HELP battleship_sessions_active Sessions held by the server.\n");
+        sb.append("# TYPE battleship_sessions_active gauge\n");
+        sb.append("battleship_sessions_active ").append(sessions.size()).append('\n');
+
+        sb.append("# HELP battleship_session_log_entries Log lines buffered across all sessions.\n");
+        sb.append("# TYPE battleship_session_log_entries gauge\n");
+        sb.append("battleship_session_log_entries ").append(logEntries).append('\n');
+
+        sb.append("# HELP battleship_session_log_entries_max Largest single session log.\n");
+        sb.append("# TYPE battleship_session_log_entries_max gauge\n");
+        sb.append("battleship_session_log_entries_max ").append(logMax).append('\n');
+
+        return sb.toString();
+    }
+}
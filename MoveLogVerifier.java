@@ -0,0 +1,138 @@
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Re-plays a game that a browser played offline and checks it against the
+ * same rules GameController enforces, using real GameBoards.
+ *
+ * The log arrives in batches of 4-character moves:
+ *   Pxyd  player places its next ship (largest first) at x,y facing d (N/E/S/W)
+ *   Exyd  enemy ship placement, same order
+ *   AxyR  player shot at x,y with the client's result R (H = hit, M = miss)
+ *   CxyR  cpu shot at the player's board
+ * Fleets must be complete before the first shot, turns alternate starting
+ * with the player, and the game ends when one fleet is sunk.
+ *
+ * Verified means only that the log is a legal game. The client chose both
+ * fleets and every CPU shot, so a scripted log passes as easily as a played
+ * one; nothing here proves a person played it against the server's CPU.
+ */
+public class MoveLogVerifier {
+    private static final GameObserver SILENT = msg -> {};
+    private static final ShipFactory.ShipType[] PLACEMENT_ORDER = ShipFactory.ShipType.values().clone();
+    static {
+        // same order GameController asks the player for ships in
+        Arrays.sort(PLACEMENT_ORDER, Comparator.comparingInt(ShipFactory.ShipType::getLength).reversed());
+    }
+
+    private final GameBoard playerBoard = new GameBoard();
+    private final GameBoard enemyBoard = new GameBoard();
+    private final ShipFactory shipFactory = new ShipFactory(SILENT);
+    private final ReplayRecorder replay = new ReplayRecorder(0);
+    private int playerShipsPlaced;
+    private int enemyShipsPlaced;
+    private boolean playerTurn = true;
+    private int winner = -1;
+    private int movesApplied;
+
+    // applies moves in order; throws IllegalArgumentException on the first illegal one
+    public void apply(String moves) {
+        if (moves.length() % 4 != 0) {
+            throw new IllegalArgumentException("Move log length must be a multiple of 4");
+        }
+        for (int i = 0; i < moves.length(); i += 4) {
+            applyMove(moves.charAt(i), moves.charAt(i + 1), moves.charAt(i + 2), moves.charAt(i + 3));
+            movesApplied++;
+        }
+    }
+
+    private void applyMove(char kind, char cx, char cy, char extra) {
+        if (isFinished()) {
+            throw new IllegalArgumentException("Move " + movesApplied + " after game over");
+        }
+        Position pos = Position.of(digit(cx), digit(cy));
+
+        switch (kind) {
+            case 'P' -> {
+                if (playerShipsPlaced == PLACEMENT_ORDER.length) {
+                    throw new IllegalArgumentException("Player fleet already placed");
+                }
+                place(playerBoard, PLACEMENT_ORDER[playerShipsPlaced++], pos, direction(extra));
+            }
+            case 'E' -> {
+                if (enemyShipsPlaced == PLACEMENT_ORDER.length) {
+                    throw new IllegalArgumentException("Enemy fleet already placed");
+                }
+                place(enemyBoard, PLACEMENT_ORDER[enemyShipsPlaced++], pos, direction(extra));
+            }
+            case 'A' -> shoot(true, enemyBoard, pos, extra);
+            case 'C' -> shoot(false, playerBoard, pos, extra);
+            default -> throw new IllegalArgumentException("Unknown move type '" + kind + "'");
+        }
+    }
+
+    private void place(GameBoard board, ShipFactory.ShipType type, Position pos, Direction dir) {
+        if (!board.canPlaceShip(pos, dir, type.getLength())) {
+            throw new IllegalArgumentException("Invalid placement for " + type + " at " + pos + " facing " + dir);
+        }
+        board.placeShip(shipFactory.createShip(type), pos, dir);
+    }
+
+    private void shoot(boolean byPlayer, GameBoard target, Position pos, char claimed) {
+        if (playerShipsPlaced < PLACEMENT_ORDER.length || enemyShipsPlaced < PLACEMENT_ORDER.length) {
+            throw new IllegalArgumentException("Shot fired before both fleets were placed");
+        }
+        if (byPlayer != playerTurn) {
+            throw new IllegalArgumentException((byPlayer ? "Player" : "CPU") + " fired out of turn");
+        }
+        if (target.isHit(pos)) {
+            throw new IllegalArgumentException("Position " + pos + " was already attacked");
+        }
+
+        replay.recordShot(byPlayer ? 0 : 1, pos);
+        boolean hit = target.receiveAttack(pos);
+        if (hit != (claimed == 'H')) {
+            throw new IllegalArgumentException("Client reported " + (hit ? "a miss" : "a hit") + " at " + pos);
+        }
+
+        if (hit && target.isAllShipsSunk()) {
+            winner = byPlayer ? 0 : 1;
+        }
+        playerTurn = !playerTurn;
+    }
+
+    private static int digit(char c) {
+        if (c < '0' || c > '9') {
+            throw new IllegalArgumentException("Bad coordinate '" + c + "'");
+        }
+        return c - '0';
+    }
+
+    private static Direction direction(char c) {
+        return switch (c) {
+            case 'N' -> Direction.NORTH;
+            case 'E' -> Direction.EAST;
+            case 'S' -> Direction.SOUTH;
+            case 'W' -> Direction.WEST;
+            default -> throw new IllegalArgumentException("Bad direction '" + c + "'");
+        };
+    }
+
+    public int getMovesApplied() {
+        return movesApplied;
+    }
+
+    public boolean isFinished() {
+        return winner >= 0;
+    }
+
+    // 0 = player, 1 = cpu, -1 while unfinished
+    public int getWinner() {
+        return winner;
+    }
+
+    // replay record of the verified game; only valid once finished
+    public byte[] toReplay() {
+        return replay.finish(winner, playerBoard, enemyBoard);
+    }
+}
@@ -0,0 +1,224 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Hunt-and-target that keeps every unresolved hit, so a second ship hit
+ * while chasing the first is finished off afterwards instead of forgotten.
+ *
+ * What it knows lives in one byte per cell (unknown, miss, hit, sunk) and
+ * the unresolved hits in discovery order. Each move is one pass over those
+ * hits, oldest first: extend a line of hits through the hit along its axis
+ * to the first unknown cell past either end, else try the hit's unknown
+ * neighbors. With no such cell it hunts on a checkerboard, since every ship
+ * covers at least two cells. A sinking hit retires the ship's cells along
+ * the line through it; hits that don't fit that ship stay in the queue as
+ * the next target. No recursion and nothing allocated per move.
+ */
+public class MultiTargetStrategy implements AttackStrategy {
+    private static final byte UNKNOWN = 0, MISS = 1, HIT = 2, SUNK = 3;
+    // Ship.getType() -> length, read off the ships themselves ("Aircraft Carrier" is 5)
+    private static final String[] SHIP_TYPES = new String[ShipFactory.ShipType.values().length];
+    private static final int[] SHIP_LENGTHS = new int[SHIP_TYPES.length];
+    private static final int MAX_LENGTH;
+    static {
+        ShipFactory factory = new ShipFactory(msg -> {});
+        for (ShipFactory.ShipType type : ShipFactory.ShipType.values()) {
+            Ship ship = factory.createShip(type);
+            SHIP_TYPES[type.ordinal()] = ship.getType();
+            SHIP_LENGTHS[type.ordinal()] = ship.getLength();
+        }
+        MAX_LENGTH = Arrays.stream(SHIP_LENGTHS).max().orElse(1);
+    }
+    private static final Direction[][] AXES = {
+            { Direction.EAST, Direction.WEST },
+            { Direction.SOUTH, Direction.NORTH },
+    };
+
+    private final byte[] state = new byte[Grid.CELLS];
+    private final int[] hits = new int[Grid.CELLS];        // unresolved hits, oldest first
+    private int hitCount;
+    private final int[] candidates = new int[Grid.CELLS];  // hunt scratch
+    private int aimAxis = -1;                              // AXES index the last targeted shot followed
+    private final Random random;
+
+    public MultiTargetStrategy() {
+        this(new Random());
+    }
+
+    public MultiTargetStrategy(Random random) {
+        this.random = random;
+    }
+
+    // true while a hit has not been accounted for by a sunk ship
+    public boolean hasTargets() {
+        return hitCount > 0;
+    }
+
+    @Override
+    public Position getNextAttackPosition(GameBoard board, List<Position> history) {
+        int cell = target(board);
+        if (cell < 0) cell = hunt(board);
+        return Position.of(cell);
+    }
+
+    // the next cell to fire at around the unresolved hits, or -1 when none is open
+    private int target(GameBoard board) {
+        for (int i = 0; i < hitCount; i++) {
+            int hit = hits[i];
+            // a line of hits: keep going along it
+            for (int a = 0; a < AXES.length; a++) {
+                Direction[] axis = AXES[a];
+                if (!isHit(Grid.neighbor(hit, axis[0])) && !isHit(Grid.neighbor(hit, axis[1]))) continue;
+                for (Direction dir : axis) {
+                    int end = lineEnd(hit, dir);
+                    if (isOpen(board, end)) {
+                        aimAxis = a;
+                        return end;
+                    }
+                }
+            }
+            // a lone hit, or a line blocked at both ends: try around it
+            for (int a = 0; a < AXES.length; a++) {
+                for (Direction dir : AXES[a]) {
+                    int next = Grid.neighbor(hit, dir);
+                    if (isOpen(board, next)) {
+                        aimAxis = a;
+                        return next;
+                    }
+                }
+            }
+        }
+        aimAxis = -1;
+        return -1;
+    }
+
+    // the first cell past the run of hits from cell in dir, or -1 at the edge
+    private int lineEnd(int cell, Direction dir) {
+        int next = Grid.neighbor(cell, dir);
+        while (isHit(next)) next = Grid.neighbor(next, dir);
+        return next;
+    }
+
+    // a random unknown cell, preferring the checkerboard squares
+    private int hunt(GameBoard board) {
+        int n = 0;
+        for (int c = 0; c < Grid.CELLS; c++) {
+            if (((Grid.x(c) + Grid.y(c)) & 1) == 0 && isOpen(board, c)) candidates[n++] = c;
+        }
+        if (n == 0) {
+            for (int c = 0; c < Grid.CELLS; c++) {
+                if (isOpen(board, c)) candidates[n++] = c;
+            }
+        }
+        // a full board has nothing left; CPUPlayer never asks then
+        return n == 0 ? 0 : candidates[random.nextInt(n)];
+    }
+
+    private boolean isOpen(GameBoard board, int cell) {
+        return cell >= 0 && state[cell] == UNKNOWN && !board.isHit(cell);
+    }
+
+    private boolean isHit(int cell) {
+        return cell >= 0 && state[cell] == HIT;
+    }
+
+    @Override
+    public void recordHit(Position pos, String shipType, boolean isSunk) {
+        int cell = pos.getCell();
+        if (state[cell] != HIT) {
+            state[cell] = HIT;
+            hits[hitCount++] = cell;
+        }
+        if (isSunk) retire(cell, shipLength(shipType));
+    }
+
+    /**
+     * Marks the sunk ship's cells: length hits in a line through cell. The
+     * axis whose run of hits matches the length best wins, on a tie the one
+     * the sinking shot was aimed along, and the ship is taken to lie on the
+     * side of cell with more hits, as the sinking shot is usually its far end.
+     * A length of 0 (ship type not reported) is guessed from the hits.
+     */
+    private void retire(int cell, int length) {
+        if (length == 0) length = guessLength(cell);
+        Direction[] best = null;
+        int bestRun = 0;
+        for (int a = 0; a < AXES.length; a++) {
+            Direction[] axis = AXES[a];
+            int run = 1 + run(cell, axis[0]) + run(cell, axis[1]);
+            if (run < length) continue;
+            if (best == null || run < bestRun || run == bestRun && a == aimAxis) {
+                best = axis;
+                bestRun = run;
+            }
+        }
+
+        state[cell] = SUNK;
+        if (best != null) {
+            int forward = run(cell, best[0]), backward = run(cell, best[1]);
+            Direction first = forward >= backward ? best[0] : best[1];
+            Direction second = first == best[0] ? best[1] : best[0];
+            int left = length - 1;
+            left = sink(cell, first, left);
+            sink(cell, second, left);
+        }
+        compactHits();
+    }
+
+    // hits in a row from cell in dir, not counting cell
+    private int run(int cell, Direction dir) {
+        int n = 0;
+        for (int next = Grid.neighbor(cell, dir); isHit(next); next = Grid.neighbor(next, dir)) n++;
+        return n;
+    }
+
+    // marks up to count hits from cell in dir as sunk; returns how many are still to mark
+    private int sink(int cell, Direction dir, int count) {
+        for (int next = Grid.neighbor(cell, dir); count > 0 && isHit(next); next = Grid.neighbor(next, dir)) {
+            state[next] = SUNK;
+            count--;
+        }
+        return count;
+    }
+
+    // drops sunk cells from the hit queue, keeping the order of the rest
+    private void compactHits() {
+        int kept = 0;
+        for (int i = 0; i < hitCount; i++) {
+            if (state[hits[i]] == HIT) hits[kept++] = hits[i];
+        }
+        hitCount = kept;
+    }
+
+    // length of an unnamed sunk ship: the run of hits through cell along the aimed axis, else the longest run
+    private int guessLength(int cell) {
+        int longest = 1;
+        for (int a = 0; a < AXES.length; a++) {
+            int run = 1 + run(cell, AXES[a][0]) + run(cell, AXES[a][1]);
+            if (a == aimAxis && run > 1) return Math.min(run, MAX_LENGTH);
+            longest = Math.max(longest, run);
+        }
+        return Math.min(longest, MAX_LENGTH);
+    }
+
+    // 0 when shipType is null or not a fleet type; retire then guesses from the hits
+    private static int shipLength(String shipType) {
+        for (int i = 0; i < SHIP_TYPES.length; i++) {
+            if (SHIP_TYPES[i].equals(shipType)) return SHIP_LENGTHS[i];
+        }
+        return 0;
+    }
+
+    @Override
+    public void recordMiss(Position pos) {
+        if (state[pos.getCell()] == UNKNOWN) state[pos.getCell()] = MISS;
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(state, UNKNOWN);
+        hitCount = 0;
+        aimAxis = -1;
+    }
+}
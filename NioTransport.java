@@ -0,0 +1,617 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Alternative to the com.sun HttpServer transport, built on one NIO selector.
+ * Handles HTTP/1.1 keep-alive for the single-player page, /leaderboard,
+ * /metrics and /static/, plus a WebSocket at /ws. PvP, /watch and /offline
+ * are only on the HttpServer transport.
+ *
+ * /ws is a protocol for custom clients; the server-rendered page doesn't
+ * use it. A client sends text frames with the form's fields
+ * ("action=attack&x=3&y=4") and gets a JSON state frame (see encodeState)
+ * after each action and whenever the CPU moves, or {"error":429} or
+ * {"error":503} when the action was refused.
+ *
+ * Requests are parsed and dispatched on the selector thread through
+ * GameServer.handleAction, so there is no thread hop per message. Reads and
+ * writes go through pooled direct buffers that a connection only holds while
+ * it has unfinished data. Files under /static/ are written straight from
+ * StaticAssets' mapped buffers without a copy. The file writes at game over
+ * (player stats, replays) are queued for their own threads, so a finished
+ * game never stalls the selector.
+ *
+ * Run: java GameServer --transport=nio
+ */
+public class NioTransport {
+    private static final int BUFFER_BYTES = 16 * 1024;
+    private static final int MAX_POOLED = 1024;
+    private static final long IDLE_MILLIS = 30_000;
+    private static final long WS_IDLE_MILLIS = 5 * 60_000;
+    private static final String WS_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final String SESSION_COOKIE = "sid";
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    // selector thread only
+    private final ArrayDeque<ByteBuffer> pool = new ArrayDeque<>();
+    // work handed in from other threads, e.g. a CPU move that just landed
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private long lastSweep = System.currentTimeMillis();
+
+    public NioTransport(int port) throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public void start() {
+        Thread t = new Thread(this::run, "nio-transport");
+        t.start();
+    }
+
+    /** Per-socket state; only touched on the selector thread. */
+    private final class Connection {
+        final SocketChannel channel;
+        final String address;   // client IP, the rate limit key
+        SelectionKey key;
+        ByteBuffer in;
+        final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+        long lastActive = System.currentTimeMillis();
+        boolean closeAfterWrite;
+        boolean websocket;
+        GameSession session;
+        Runnable sessionListener;
+
+        Connection(SocketChannel channel, String address) {
+            this.channel = channel;
+            this.address = address;
+        }
+    }
+
+    // ── Event loop ───────────────────────────────────────────────────────────
+
+    private void run() {
+        while (true) {
+            try {
+                selector.select(1000);
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        // one bad push must not take the only selector thread with it
+                        e.printStackTrace();
+                    }
+                }
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection c = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable()) read(c);
+                        if (key.isValid() && key.isWritable()) flush(c);
+                    } catch (IOException | RuntimeException e) {
+                        close(c);
+                    }
+                }
+                sweepIdle();
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel ch;
+        while ((ch = serverChannel.accept()) != null) {
+            try {
+                ch.configureBlocking(false);
+                ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                Connection c = new Connection(ch, ((InetSocketAddress) ch.getRemoteAddress()).getAddress().getHostAddress());
+                c.key = ch.register(selector, SelectionKey.OP_READ, c);
+            } catch (IOException | RuntimeException e) {
+                // a client that hung up straight away; keep accepting the rest
+                ch.close();
+            }
+        }
+    }
+
+    private void sweepIdle() {
+        long now = System.currentTimeMillis();
+        if (now - lastSweep < 1000) return;
+        lastSweep = now;
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection c) {
+                long limit = c.websocket ? WS_IDLE_MILLIS : IDLE_MILLIS;
+                if (now - c.lastActive > limit) close(c);
+            }
+        }
+    }
+
+    private void close(Connection c) {
+        if (c.session != null && c.sessionListener != null) {
+            c.session.removeChangeListener(c.sessionListener);
+        }
+        if (c.in != null) {
+            release(c.in);
+            c.in = null;
+        }
+        while (!c.out.isEmpty()) {
+            release(c.out.poll());
+        }
+        c.key.cancel();
+        try { c.channel.close(); } catch (IOException ignored) {}
+    }
+
+    // ── Buffer pool ──────────────────────────────────────────────────────────
+
+    private ByteBuffer acquire() {
+        ByteBuffer b = pool.poll();
+        return b != null ? b : ByteBuffer.allocateDirect(BUFFER_BYTES);
+    }
+
+    private void release(ByteBuffer b) {
+        // read-only buffers are borrowed static asset views, not ours to pool
+        if (!b.isReadOnly() && pool.size() < MAX_POOLED) {
+            b.clear();
+            pool.push(b);
+        }
+    }
+
+    // ── Reading ──────────────────────────────────────────────────────────────
+
+    private void read(Connection c) throws IOException {
+        if (c.in == null) c.in = acquire();
+        int n = c.channel.read(c.in);
+        if (n < 0) {
+            close(c);
+            return;
+        }
+        c.lastActive = System.currentTimeMillis();
+
+        c.in.flip();
+        boolean progress = true;
+        while (progress && c.key.isValid() && !c.closeAfterWrite && c.in.hasRemaining()) {
+            progress = c.websocket ? readFrame(c) : readRequest(c);
+        }
+        if (!c.key.isValid()) return;
+
+        if (!c.in.hasRemaining()) {
+            // nothing partial left: give the buffer back while the connection idles
+            release(c.in);
+            c.in = null;
+        } else if (c.in.position() == 0 && c.in.limit() == c.in.capacity()) {
+            // a single message larger than the buffer
+            close(c);
+        } else {
+            c.in.compact();
+        }
+    }
+
+    /** Parses one HTTP request if it has fully arrived; false if more bytes are needed. */
+    private boolean readRequest(Connection c) throws IOException {
+        ByteBuffer in = c.in;
+        int start = in.position();
+        int headerEnd = indexOfHeaderEnd(in);
+        if (headerEnd < 0) return false;
+
+        byte[] headBytes = new byte[headerEnd - start];
+        in.get(headBytes);
+        in.position(headerEnd + 4);
+        String[] lines = new String(headBytes, StandardCharsets.ISO_8859_1).split("\r\n");
+        String[] requestLine = lines[0].split(" ");
+        if (requestLine.length < 3) {
+            respond(c, 400, "Bad Request", "text/plain", "Bad request".getBytes(StandardCharsets.UTF_8), true, null);
+            return false;
+        }
+
+        Map<String, String> headers = new HashMap<>();
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon > 0) {
+                headers.put(lines[i].substring(0, colon).trim().toLowerCase(Locale.ROOT), lines[i].substring(colon + 1).trim());
+            }
+        }
+
+        int contentLength = 0;
+        try {
+            contentLength = Integer.parseInt(headers.getOrDefault("content-length", "0"));
+        } catch (NumberFormatException ignored) {}
+        if (in.remaining() < contentLength) {
+            // wait for the rest of the body
+            in.position(start);
+            return false;
+        }
+        byte[] body = new byte[contentLength];
+        in.get(body);
+
+        handleRequest(c, requestLine[0], requestLine[1], requestLine[2], headers, body);
+        return true;
+    }
+
+    private static int indexOfHeaderEnd(ByteBuffer in) {
+        for (int i = in.position(); i + 3 < in.limit(); i++) {
+            if (in.get(i) == '\r' && in.get(i + 1) == '\n' && in.get(i + 2) == '\r' && in.get(i + 3) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // ── HTTP dispatch ────────────────────────────────────────────────────────
+
+    private void handleRequest(Connection c, String method, String target, String version,
+                               Map<String, String> headers, byte[] body) throws IOException {
+        String connection = headers.getOrDefault("connection", "").toLowerCase(Locale.ROOT);
+        boolean close = version.equals("HTTP/1.0") ? !connection.contains("keep-alive") : connection.contains("close");
+        String path = target.contains("?") ? target.substring(0, target.indexOf('?')) : target;
+
+        if (path.startsWith("/static/")) {
+            String query = target.contains("?") ? target.substring(target.indexOf('?') + 1) : null;
+            serveStatic(c, StaticAssets.shared().get(path), query, headers, close);
+            return;
+        }
+
+        if (path.equals("/metrics")) {
+            respond(c, 200, "OK", GameServer.METRICS_CONTENT_TYPE,
+                    GameServer.metricsText().getBytes(StandardCharsets.UTF_8), close, null);
+            return;
+        }
+        if (path.equals("/leaderboard")) {
+            respond(c, 200, "OK", "text/html; charset=UTF-8", GameServer.leaderboardBody(), close, null);
+            return;
+        }
+        if (path.startsWith("/pvp") || path.startsWith("/watch") || path.equals("/offline") || path.equals("/api/offline")) {
+            byte[] notice = (path + " is only on the default transport; start GameServer without --transport=nio.")
+                    .getBytes(StandardCharsets.UTF_8);
+            respond(c, 404, "Not Found", "text/plain; charset=UTF-8", notice, close, null);
+            return;
+        }
+        boolean ws = path.equals("/ws") && "websocket".equalsIgnoreCase(headers.get("upgrade"));
+        if (!ws && !path.equals("/")) {
+            respond(c, 404, "Not Found", "text/plain", "Not found".getBytes(StandardCharsets.UTF_8), close, null);
+            return;
+        }
+
+        String sid = readCookie(headers.get("cookie"));
+        String setCookie = null;
+        if (sid == null) {
+            sid = UUID.randomUUID().toString();
+            setCookie = SESSION_COOKIE + "=" + sid + "; Path=/; HttpOnly";
+        }
+        GameSession session = GameServer.admit(c.address, sid, method.equals("POST"));
+        if (session == null) {
+            reject(c, 429, "Too Many Requests", "Too many requests, slow down.", close, setCookie);
+            return;
+        }
+        if (headers.containsKey(GameServer.LOAD_TEST_HEADER.toLowerCase(Locale.ROOT))) session.markSynthetic();
+        if (ws) {
+            upgrade(c, session, headers.get("sec-websocket-key"));
+            return;
+        }
+
+        if (method.equals("POST")) {
+            try {
+                GameServer.handleAction(session, body, 0, body.length);
+            } catch (RejectedExecutionException e) {
+                reject(c, 503, "Service Unavailable", "The server is busy, try again in a moment.", close, setCookie);
+                return;
+            }
+            // Post-Redirect-Get, same as the HttpServer transport
+            String extra = "Location: /\r\n" + (setCookie != null ? "Set-Cookie: " + setCookie + "\r\n" : "");
+            writeHead(c, 303, "See Other", null, 0, close, extra);
+        } else {
+            ResponseBuffer buf = ResponseBuffer.get();
+            GameServer.appendPage(buf.text(), session);
+            buf.encode();
+            respond(c, 200, "OK", "text/html; charset=UTF-8", buf.bytes(), buf.length(), close, setCookie);
+        }
+    }
+
+    private void respond(Connection c, int status, String reason, String contentType, byte[] body,
+                         boolean close, String setCookie) throws IOException {
+        respond(c, status, reason, contentType, body, body.length, close, setCookie);
+    }
+
+    // body is copied into the connection's buffers before this returns, so it may be reused
+    private void respond(Connection c, int status, String reason, String contentType, byte[] body, int length,
+                         boolean close, String setCookie) throws IOException {
+        String extra = setCookie != null ? "Set-Cookie: " + setCookie + "\r\n" : "";
+        writeHead(c, status, reason, contentType, length, close, extra);
+        write(c, body, 0, length);
+        flush(c);
+    }
+
+    // headers are copied, the body is queued as a view of the cached asset
+    private void serveStatic(Connection c, StaticAssets.Asset asset, String query,
+                             Map<String, String> headers, boolean close) throws IOException {
+        if (asset == null) {
+            respond(c, 404, "Not Found", "text/plain", "Not found".getBytes(StandardCharsets.UTF_8), close, null);
+            return;
+        }
+        boolean gzip = asset.hasGzip() && StaticAssets.acceptsGzip(headers.get("accept-encoding"));
+        String extra = "ETag: " + asset.etag(gzip) + "\r\n"
+                + "Cache-Control: " + asset.cacheControl(query) + "\r\n"
+                + "Vary: Accept-Encoding\r\n";
+        if (asset.notModified(headers.get("if-none-match"), gzip)) {
+            writeHead(c, 304, "Not Modified", null, 0, close, extra);
+            return;
+        }
+
+        ByteBuffer body = asset.body(gzip);
+        if (gzip) extra += "Content-Encoding: gzip\r\n";
+        writeHead(c, 200, "OK", asset.getContentType(), body.remaining(), close, extra);
+        if (body.hasRemaining()) c.out.add(body);
+        flush(c);
+    }
+
+    // fast refusal for overload, same as the HttpServer transport
+    private void reject(Connection c, int status, String reason, String message,
+                        boolean close, String setCookie) throws IOException {
+        byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        String extra = "Retry-After: 1\r\n" + (setCookie != null ? "Set-Cookie: " + setCookie + "\r\n" : "");
+        writeHead(c, status, reason, "text/plain; charset=UTF-8", body.length, close, extra);
+        write(c, body, 0, body.length);
+        flush(c);
+    }
+
+    private void writeHead(Connection c, int status, String reason, String contentType, int length,
+                           boolean close, String extraHeaders) throws IOException {
+        StringBuilder sb = new StringBuilder(128);
+        sb.append("HTTP/1.1 ").append(status).append(' ').append(reason).append("\r\n");
+        if (contentType != null) sb.append("Content-Type: ").append(contentType).append("\r\n");
+        sb.append("Content-Length: ").append(length).append("\r\n");
+        sb.append(close ? "Connection: close\r\n" : "Connection: keep-alive\r\n");
+        sb.append(extraHeaders).append("\r\n");
+        byte[] head = sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+        write(c, head, 0, head.length);
+        if (close) c.closeAfterWrite = true;
+        if (length == 0) flush(c);
+    }
+
+    private static String readCookie(String header) {
+        if (header == null) return null;
+        for (String part : header.split(";")) {
+            String[] kv = part.trim().split("=", 2);
+            if (kv.length == 2 && kv[0].equals(SESSION_COOKIE) && !kv[1].isEmpty() && kv[1].length() <= 64) {
+                return kv[1];
+            }
+        }
+        return null;
+    }
+
+    // ── Writing ──────────────────────────────────────────────────────────────
+
+    // copies bytes into the connection's pooled output buffers
+    private void write(Connection c, byte[] bytes, int off, int len) {
+        while (len > 0) {
+            ByteBuffer last = c.out.peekLast();
+            if (last == null || last.isReadOnly() || !last.hasRemaining()) {
+                last = acquire();
+                c.out.add(last);
+            }
+            int n = Math.min(len, last.remaining());
+            last.put(bytes, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    private void flush(Connection c) throws IOException {
+        while (!c.out.isEmpty()) {
+            ByteBuffer b = c.out.peek();
+            // pooled buffers are filled in write mode; borrowed ones are already readable
+            boolean borrowed = b.isReadOnly();
+            if (!borrowed) b.flip();
+            c.channel.write(b);
+            if (b.hasRemaining()) {
+                // socket is full: keep the rest and wait for OP_WRITE
+                if (!borrowed) b.compact();
+                c.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+            release(c.out.poll());
+        }
+        if (c.closeAfterWrite) {
+            close(c);
+        } else if (c.key.isValid()) {
+            c.key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    // ── WebSocket ────────────────────────────────────────────────────────────
+
+    private void upgrade(Connection c, GameSession session, String key) throws IOException {
+        if (key == null) {
+            respond(c, 400, "Bad Request", "text/plain", "Missing Sec-WebSocket-Key".getBytes(StandardCharsets.UTF_8), true, null);
+            return;
+        }
+        String accept;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1")
+                    .digest((key + WS_GUID).getBytes(StandardCharsets.ISO_8859_1));
+            accept = Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        byte[] head = ("HTTP/1.1 101 Switching Protocols\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + accept + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        write(c, head, 0, head.length);
+        c.websocket = true;
+        c.session = session;
+
+        // CPU moves land on a compute thread; hop once to the selector to push the new state
+        c.sessionListener = () -> {
+            tasks.add(() -> {
+                if (c.key.isValid()) sendStateQuietly(c);
+            });
+            selector.wakeup();
+        };
+        session.addChangeListener(c.sessionListener);
+        sendState(c);
+    }
+
+    /** Parses one client frame if it has fully arrived; false if more bytes are needed. */
+    private boolean readFrame(Connection c) throws IOException {
+        ByteBuffer in = c.in;
+        int start = in.position();
+        if (in.remaining() < 2) return false;
+
+        int b0 = in.get() & 0xFF;
+        int b1 = in.get() & 0xFF;
+        boolean fin = (b0 & 0x80) != 0;
+        int opcode = b0 & 0x0F;
+        boolean masked = (b1 & 0x80) != 0;
+        long length = b1 & 0x7F;
+
+        if (length == 126) {
+            if (in.remaining() < 2) { in.position(start); return false; }
+            length = in.getShort() & 0xFFFF;
+        } else if (length == 127) {
+            if (in.remaining() < 8) { in.position(start); return false; }
+            length = in.getLong();
+        }
+        if (!masked || length > BUFFER_BYTES || !fin) {
+            // clients must mask; large or fragmented messages are not part of this protocol
+            sendClose(c, 1009);
+            return false;
+        }
+        if (in.remaining() < 4 + length) {
+            in.position(start);
+            return false;
+        }
+
+        byte[] mask = new byte[4];
+        in.get(mask);
+        byte[] payload = new byte[(int) length];
+        in.get(payload);
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] ^= mask[i & 3];
+        }
+
+        switch (opcode) {
+            case 0x1 -> {
+                if (!GameServer.allowAction(c.address)) {
+                    writeFrame(c, 0x1, "{\"error\":429}".getBytes(StandardCharsets.UTF_8));
+                    flush(c);
+                    return true;
+                }
+                try {
+                    GameServer.handleAction(c.session, payload, 0, payload.length);
+                } catch (RejectedExecutionException e) {
+                    writeFrame(c, 0x1, "{\"error\":503}".getBytes(StandardCharsets.UTF_8));
+                    flush(c);
+                    return true;
+                }
+                sendState(c);
+            }
+            case 0x8 -> sendClose(c, 1000);
+            case 0x9 -> {
+                writeFrame(c, 0xA, payload);
+                flush(c);
+            }
+            default -> { } // pong and binary frames are ignored
+        }
+        return true;
+    }
+
+    private void sendClose(Connection c, int code) throws IOException {
+        writeFrame(c, 0x8, new byte[] { (byte) (code >> 8), (byte) code });
+        c.closeAfterWrite = true;
+        flush(c);
+    }
+
+    private void writeFrame(Connection c, int opcode, byte[] payload) {
+        byte[] head;
+        if (payload.length < 126) {
+            head = new byte[] { (byte) (0x80 | opcode), (byte) payload.length };
+        } else if (payload.length <= 0xFFFF) {
+            head = new byte[] { (byte) (0x80 | opcode), 126, (byte) (payload.length >> 8), (byte) payload.length };
+        } else {
+            head = new byte[10];
+            head[0] = (byte) (0x80 | opcode);
+            head[1] = 127;
+            for (int i = 0; i < 8; i++) {
+                head[9 - i] = (byte) ((long) payload.length >> (8 * i));
+            }
+        }
+        write(c, head, 0, head.length);
+        write(c, payload, 0, payload.length);
+    }
+
+    private void sendStateQuietly(Connection c) {
+        try {
+            sendState(c);
+        } catch (IOException e) {
+            close(c);
+        }
+    }
+
+    private void sendState(Connection c) throws IOException {
+        writeFrame(c, 0x1, encodeState(c.session).getBytes(StandardCharsets.UTF_8));
+        flush(c);
+    }
+
+    /**
+     * Game state pushed over the WebSocket. Boards are 100 characters,
+     * cell y * 10 + x: 0 = water, 1 = ship, 2 = hit, 3 = miss.
+     */
+    private static String encodeState(GameSession session) {
+        StringBuilder sb = new StringBuilder(512);
+        synchronized (session) {
+            GameController game = session.getGame();
+            String phase = game.isPlacementPhase() ? "placement"
+                    : game.isGameOver() ? "over"
+                    : session.isCpuThinking() ? "cpu" : "attack";
+            sb.append("{\"phase\":\"").append(phase).append('"')
+              .append(",\"dir\":\"").append(session.getCurrentDir()).append('"')
+              .append(",\"player\":\"");
+            appendBoard(sb, game.getPlayerBoard(), true);
+            sb.append("\",\"enemy\":\"");
+            appendBoard(sb, game.getEnemyBoard(), false);
+            sb.append("\",\"log\":[");
+            List<String> log = session.getLog();
+            synchronized (log) {
+                for (int i = 0; i < Math.min(5, log.size()); i++) {
+                    if (i > 0) sb.append(',');
+                    sb.append('"').append(log.get(i).replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+                }
+            }
+            sb.append("]}");
+        }
+        return sb.toString();
+    }
+
+    private static void appendBoard(StringBuilder sb, GameBoard board, boolean showShips) {
+        for (int c = 0; c < Grid.CELLS; c++) {
+            Cell cell = board.cell(c);
+            if (cell.isHit()) sb.append(cell.hasShip() ? '2' : '3');
+            else sb.append(cell.hasShip() && showShips ? '1' : '0');
+        }
+    }
+}
@@ -0,0 +1,179 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts where human players put each ship type, across all games.
+ * Writers bump striped LongAdder counters, so thousands of games can record
+ * placements without contending. Readers get an immutable Snapshot that is
+ * refreshed at most every REFRESH_MILLIS, also without locking.
+ */
+public class PlacementHeatmap {
+    private static final int CELLS = 100;
+    private static final int TYPES = ShipFactory.ShipType.values().length;
+    private static final long REFRESH_MILLIS = 1000;
+    private static final int FILE_VERSION = 1;
+
+    private static final PlacementHeatmap SHARED = new PlacementHeatmap();
+
+    private final LongAdder[][] cellCounts = new LongAdder[TYPES][CELLS];
+    private final LongAdder[] placements = new LongAdder[TYPES];
+    private volatile Snapshot latest;
+    private ScheduledExecutorService snapshotter;
+
+    /** Immutable view of the counts at one point in time. */
+    public static final class Snapshot {
+        private final long[][] counts;
+        private final long[] placements;
+        private final long takenAt;
+
+        private Snapshot(long[][] counts, long[] placements, long takenAt) {
+            this.counts = counts;
+            this.placements = placements;
+            this.takenAt = takenAt;
+        }
+
+        public long count(ShipFactory.ShipType type, int cell) {
+            return counts[type.ordinal()][cell];
+        }
+
+        public long placements(ShipFactory.ShipType type) {
+            return placements[type.ordinal()];
+        }
+
+        // chance a human put this ship type on the cell (y * 10 + x)
+        public double probability(ShipFactory.ShipType type, int cell) {
+            long total = placements[type.ordinal()];
+            return total == 0 ? 0 : (double) counts[type.ordinal()][cell] / total;
+        }
+
+        // expected number of ship cells on this cell, summed over all types
+        public double occupancy(int cell) {
+            double sum = 0;
+            for (int t = 0; t < TYPES; t++) {
+                if (placements[t] > 0) sum += (double) counts[t][cell] / placements[t];
+            }
+            return sum;
+        }
+
+        public boolean isEmpty() {
+            for (long p : placements) {
+                if (p > 0) return false;
+            }
+            return true;
+        }
+    }
+
+    public PlacementHeatmap() {
+        for (int t = 0; t < TYPES; t++) {
+            placements[t] = new LongAdder();
+            for (int c = 0; c < CELLS; c++) {
+                cellCounts[t][c] = new LongAdder();
+            }
+        }
+        latest = takeSnapshot();
+    }
+
+    // the process-wide heatmap fed by GameController
+    public static PlacementHeatmap shared() {
+        return SHARED;
+    }
+
+    public void record(ShipFactory.ShipType type, Position start, Direction dir) {
+        LongAdder[] counts = cellCounts[type.ordinal()];
+        // cells past the edge are skipped
+        int cells = Math.min(type.getLength(), Grid.reach(start.getCell(), dir) + 1);
+        for (int i = 0, c = start.getCell(); i < cells; i++, c += Grid.step(dir)) {
+            counts[c].increment();
+        }
+        placements[type.ordinal()].increment();
+    }
+
+    // lock-free read; a stale snapshot is rebuilt by whichever reader notices first
+    public Snapshot latest() {
+        Snapshot snap = latest;
+        if (System.currentTimeMillis() - snap.takenAt >= REFRESH_MILLIS) {
+            snap = takeSnapshot();
+            latest = snap;
+        }
+        return snap;
+    }
+
+    private Snapshot takeSnapshot() {
+        long[][] counts = new long[TYPES][CELLS];
+        long[] totals = new long[TYPES];
+        for (int t = 0; t < TYPES; t++) {
+            totals[t] = placements[t].sum();
+            for (int c = 0; c < CELLS; c++) {
+                counts[t][c] = cellCounts[t][c].sum();
+            }
+        }
+        return new Snapshot(counts, totals, System.currentTimeMillis());
+    }
+
+    // ── Persistence ─────────────────────────────────────────────────────────
+
+    /**
+     * Adds counts saved in file (if it exists) and then rewrites the file
+     * every periodSeconds, plus once more on shutdown.
+     */
+    public synchronized void startSnapshots(Path file, long periodSeconds) throws IOException {
+        if (snapshotter != null) return;
+        if (Files.exists(file)) {
+            load(file);
+        }
+        snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "heatmap-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+        snapshotter.scheduleAtFixedRate(() -> saveQuietly(file), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> saveQuietly(file)));
+    }
+
+    private void saveQuietly(Path file) {
+        try {
+            save(file);
+        } catch (IOException e) {
+            System.err.println("Heatmap snapshot failed: " + e.getMessage());
+        }
+    }
+
+    // writes to a temp file and renames it, so a crash never leaves a half-written file
+    public void save(Path file) throws IOException {
+        Snapshot snap = takeSnapshot();
+        latest = snap;
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(FILE_VERSION);
+            out.writeInt(TYPES);
+            for (int t = 0; t < TYPES; t++) {
+                out.writeLong(snap.placements[t]);
+                for (int c = 0; c < CELLS; c++) {
+                    out.writeLong(snap.counts[t][c]);
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public void load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_VERSION || in.readInt() != TYPES) {
+                throw new IOException("Unsupported heatmap file " + file);
+            }
+            for (int t = 0; t < TYPES; t++) {
+                placements[t].add(in.readLong());
+                for (int c = 0; c < CELLS; c++) {
+                    cellCounts[t][c].add(in.readLong());
+                }
+            }
+        }
+        latest = takeSnapshot();
+    }
+}
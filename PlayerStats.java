@@ -0,0 +1,404 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wins, losses, shots and hits per player name, kept on disk.
+ *
+ * Data file: "BPS1" magic, then one record per finished game, only ever
+ *            appended: name length (byte), name (UTF-8), won (byte),
+ *            shots (short), hits (short), end time (long, epoch millis).
+ * Index:     FILE.idx, a memory-mapped open-addressing hash table of
+ *            running totals with one 64-byte slot per player, so a lookup
+ *            or an update touches one or two slots. Its header records how
+ *            much of the data file it covers; when that doesn't match
+ *            (first run, crash, deleted index) it is rebuilt from the data.
+ *
+ * The top-N leaderboard is an immutable list rebuilt in the background, so
+ * reading it never waits for a writer. One process owns the files at a time.
+ */
+public final class PlayerStats {
+    public static final byte[] MAGIC = { 'B', 'P', 'S', '1' };
+    public static final byte[] INDEX_MAGIC = { 'B', 'P', 'I', '1' };
+    public static final int MAX_NAME_BYTES = 32;
+    public static final int TOP = 20;
+
+    // index header: magic, slot count, player count, bytes of the data file it covers
+    private static final int HEADER_CAPACITY = 4, HEADER_COUNT = 8, HEADER_COVERED = 12, HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 64;       // name length, name, wins, losses, shots, hits
+    private static final int SLOT_WINS = 40, SLOT_LOSSES = 44, SLOT_SHOTS = 48, SLOT_HITS = 56;
+    private static final int INITIAL_SLOTS = 1024;
+
+    private final Path dataFile;
+    private final Path indexFile;
+    private final FileChannel data;
+    private final FileLock lock;
+    private final ByteBuffer record = ByteBuffer.allocate(1 + MAX_NAME_BYTES + 1 + 2 + 2 + 8);
+    private MappedByteBuffer index;
+    private int capacity;
+    private int count;
+    private long writes;
+    private long writesRanked = -1;
+    private volatile List<Entry> top = List.of();
+    private ScheduledExecutorService ranker;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "stats-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** One player's totals. */
+    public static final class Entry {
+        private final String name;
+        private final int wins;
+        private final int losses;
+        private final long shots;
+        private final long hits;
+
+        Entry(String name, int wins, int losses, long shots, long hits) {
+            this.name = name;
+            this.wins = wins;
+            this.losses = losses;
+            this.shots = shots;
+            this.hits = hits;
+        }
+
+        public String getName() { return name; }
+        public int getWins() { return wins; }
+        public int getLosses() { return losses; }
+        public long getShots() { return shots; }
+        public long getHits() { return hits; }
+
+        public int games() {
+            return wins + losses;
+        }
+
+        // share of shots that hit a ship, 0 before the first shot
+        public double accuracy() {
+            return shots == 0 ? 0 : (double) hits / shots;
+        }
+    }
+
+    // most wins first, then the better shot, then by name
+    private static final Comparator<Entry> RANKING = Comparator.comparingInt(Entry::getWins).reversed()
+            .thenComparing(Comparator.comparingDouble(Entry::accuracy).reversed())
+            .thenComparing(Entry::getName);
+
+    // the TOP best of entries, best first; for rankings merged from several files
+    static List<Entry> rank(Collection<Entry> entries) {
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(RANKING);
+        return sorted.size() > TOP ? List.copyOf(sorted.subList(0, TOP)) : Collections.unmodifiableList(sorted);
+    }
+
+    private PlayerStats(Path dataFile, FileChannel data, FileLock lock) {
+        this.dataFile = dataFile;
+        this.indexFile = dataFile.resolveSibling(dataFile.getFileName() + ".idx");
+        this.data = data;
+        this.lock = lock;
+    }
+
+    /**
+     * Opens (or creates) the data file and its index, rebuilding the index
+     * when it is missing or stale. Throws IllegalArgumentException when the
+     * file is not a stats file, IOException when another process holds it.
+     */
+    public static PlayerStats open(Path file) throws IOException {
+        FileChannel data = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            FileLock lock = data.tryLock();
+            if (lock == null) throw new IOException(file + " is in use by another process");
+            if (data.size() == 0) {
+                data.write(ByteBuffer.wrap(MAGIC), 0);
+            } else {
+                ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+                data.read(magic, 0);
+                if (!Arrays.equals(magic.array(), MAGIC)) throw new IllegalArgumentException("Not a player stats file");
+            }
+            PlayerStats stats = new PlayerStats(file, data, lock);
+            synchronized (stats) {
+                if (!stats.mapIndex()) stats.rebuildIndex();
+                stats.rank();
+            }
+            return stats;
+        } catch (IOException | RuntimeException e) {
+            data.close();
+            throw e;
+        }
+    }
+
+    // ── Writes ───────────────────────────────────────────────────────────────
+
+    /** Appends one finished game for name and adds it to the player's totals. */
+    public synchronized void record(String name, boolean won, int shots, int hits) throws IOException {
+        byte[] bytes = nameBytes(name);
+        record.clear();
+        record.put((byte) bytes.length).put(bytes).put((byte) (won ? 1 : 0))
+              .putShort((short) shots).putShort((short) hits).putLong(System.currentTimeMillis());
+        record.flip();
+        long at = data.size();
+        while (record.hasRemaining()) {
+            at += data.write(record, at);
+        }
+        add(bytes, won, shots, hits);
+        index.putLong(HEADER_COVERED, at);
+        writes++;
+    }
+
+    /**
+     * record() on a background thread, in call order, for callers that must
+     * not wait on the file, like the NIO selector. Failures are logged.
+     */
+    public void recordLater(String name, boolean won, int shots, int hits) {
+        try {
+            writer.execute(() -> {
+                try {
+                    record(name, won, shots, hits);
+                } catch (IOException e) {
+                    System.err.println("Player stats update failed: " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException closed) {
+            System.err.println("Player stats update dropped, stats are closed");
+        }
+    }
+
+    // adds one game to the player's slot, claiming a slot for a new player
+    private void add(byte[] name, boolean won, int shots, int hits) throws IOException {
+        int slot = find(name);
+        if (index.get(slotAt(slot)) == 0) {
+            if ((count + 1) * 10L > capacity * 7L) {
+                grow();
+                slot = find(name);
+            }
+            int at = slotAt(slot);
+            index.put(at, (byte) name.length);
+            index.put(at + 1, name);
+            index.putInt(HEADER_COUNT, ++count);
+        }
+        int at = slotAt(slot);
+        if (won) {
+            index.putInt(at + SLOT_WINS, index.getInt(at + SLOT_WINS) + 1);
+        } else {
+            index.putInt(at + SLOT_LOSSES, index.getInt(at + SLOT_LOSSES) + 1);
+        }
+        index.putLong(at + SLOT_SHOTS, index.getLong(at + SLOT_SHOTS) + shots);
+        index.putLong(at + SLOT_HITS, index.getLong(at + SLOT_HITS) + hits);
+    }
+
+    // writes the index to disk; the data file is forced first so the index never covers lost records
+    public synchronized void flush() throws IOException {
+        data.force(false);
+        index.force();
+    }
+
+    // finishes the queued recordLater() calls first; not synchronized, as they need the lock
+    public void close() throws IOException {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (ranker != null) ranker.shutdown();
+            flush();
+            lock.release();
+            data.close();
+        }
+    }
+
+    // ── Reads ────────────────────────────────────────────────────────────────
+
+    /** The player's totals, or null for a name that never finished a game. */
+    public synchronized Entry lookup(String name) {
+        byte[] bytes = nameBytes(name);
+        int at = slotAt(find(bytes));
+        return index.get(at) == 0 ? null : entryAt(at);
+    }
+
+    public synchronized int players() {
+        return count;
+    }
+
+    // the best TOP players as of the last ranking; never blocks
+    public List<Entry> top() {
+        return top;
+    }
+
+    /** Re-ranks every periodSeconds, skipping runs with no new games, until close(). */
+    public synchronized void startRanking(long periodSeconds) {
+        if (ranker != null) return;
+        ranker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stats-ranking");
+            t.setDaemon(true);
+            return t;
+        });
+        ranker.scheduleAtFixedRate(this::rank, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    // keeps the TOP best in a min-heap while scanning the slots, then publishes them sorted
+    private void rank() {
+        PriorityQueue<Entry> best = new PriorityQueue<>(TOP + 1, RANKING.reversed());
+        synchronized (this) {
+            if (writes == writesRanked) return;
+            writesRanked = writes;
+            for (int slot = 0; slot < capacity; slot++) {
+                int at = slotAt(slot);
+                if (index.get(at) == 0) continue;
+                best.add(entryAt(at));
+                if (best.size() > TOP) best.poll();
+            }
+        }
+        List<Entry> sorted = new ArrayList<>(best);
+        sorted.sort(RANKING);
+        top = Collections.unmodifiableList(sorted);
+    }
+
+    // ── Index ────────────────────────────────────────────────────────────────
+
+    // linear probing from the name's hash; the slot holding name, or the empty slot where it would go
+    private int find(byte[] name) {
+        int h = 0x811c9dc5;
+        for (byte b : name) h = (h ^ (b & 0xFF)) * 0x01000193;
+        int mask = capacity - 1;
+        for (int slot = (h ^ h >>> 16) & mask; ; slot = (slot + 1) & mask) {
+            int at = slotAt(slot);
+            int len = index.get(at);
+            if (len == 0) return slot;
+            if (len == name.length && nameMatches(at, name)) return slot;
+        }
+    }
+
+    private boolean nameMatches(int at, byte[] name) {
+        for (int i = 0; i < name.length; i++) {
+            if (index.get(at + 1 + i) != name[i]) return false;
+        }
+        return true;
+    }
+
+    private Entry entryAt(int at) {
+        byte[] name = new byte[index.get(at)];
+        index.get(at + 1, name);
+        return new Entry(new String(name, StandardCharsets.UTF_8), index.getInt(at + SLOT_WINS),
+                index.getInt(at + SLOT_LOSSES), index.getLong(at + SLOT_SHOTS), index.getLong(at + SLOT_HITS));
+    }
+
+    private static int slotAt(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    // maps an existing index; false when it is missing, malformed or doesn't cover the data file
+    private boolean mapIndex() throws IOException {
+        if (!Files.exists(indexFile)) return false;
+        MappedByteBuffer map;
+        try (FileChannel ch = FileChannel.open(indexFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (ch.size() < HEADER_BYTES) return false;
+            map = ch.map(FileChannel.MapMode.READ_WRITE, 0, ch.size());
+        }
+        for (int i = 0; i < INDEX_MAGIC.length; i++) {
+            if (map.get(i) != INDEX_MAGIC[i]) return false;
+        }
+        int slots = map.getInt(HEADER_CAPACITY);
+        if (slots <= 0 || Integer.bitCount(slots) != 1 || map.capacity() != slotAt(slots)) return false;
+        if (map.getLong(HEADER_COVERED) != data.size()) return false;
+        index = map;
+        capacity = slots;
+        count = map.getInt(HEADER_COUNT);
+        return true;
+    }
+
+    // an empty index with the given number of slots, renamed over the current one;
+    // the mapping outlives its channel and follows the file through the rename
+    private MappedByteBuffer createIndex(int slots) throws IOException {
+        Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        MappedByteBuffer map;
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            map = ch.map(FileChannel.MapMode.READ_WRITE, 0, slotAt(slots));
+        }
+        map.put(0, INDEX_MAGIC);
+        map.putInt(HEADER_CAPACITY, slots);
+        Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return map;
+    }
+
+    // doubles the table and reinserts every player
+    private void grow() throws IOException {
+        MappedByteBuffer old = index;
+        int oldCapacity = capacity;
+        long covered = old.getLong(HEADER_COVERED);
+        index = createIndex(oldCapacity * 2);
+        capacity = oldCapacity * 2;
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            int from = slotAt(slot);
+            int len = old.get(from);
+            if (len == 0) continue;
+            byte[] name = new byte[len];
+            old.get(from + 1, name);
+            index.put(slotAt(find(name)), old, from, SLOT_BYTES);
+        }
+        index.putInt(HEADER_COUNT, count);
+        index.putLong(HEADER_COVERED, covered);
+    }
+
+    // replays the whole data file into a fresh index, dropping a torn record at the end
+    private void rebuildIndex() throws IOException {
+        index = createIndex(INITIAL_SLOTS);
+        capacity = INITIAL_SLOTS;
+        count = 0;
+        long good = MAGIC.length;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(dataFile)))) {
+            in.skipNBytes(MAGIC.length);
+            while (true) {
+                int len = in.read();
+                if (len < 0) break;
+                if (len == 0 || len > MAX_NAME_BYTES) throw new IllegalArgumentException("Corrupt player stats record at " + good);
+                byte[] name = new byte[len];
+                in.readFully(name);
+                boolean won = in.readByte() != 0;
+                int shots = in.readUnsignedShort();
+                int hits = in.readUnsignedShort();
+                in.readLong();
+                add(name, won, shots, hits);
+                good += 1 + len + 1 + 2 + 2 + 8;
+            }
+        } catch (EOFException e) {
+            // the process died halfway through an append
+        }
+        if (data.size() > good) data.truncate(good);
+        index.putLong(HEADER_COVERED, good);
+        index.force();
+    }
+
+    // the UTF-8 bytes of a valid name; throws IllegalArgumentException for an empty or long one
+    static byte[] nameBytes(String name) {
+        byte[] bytes = name == null ? new byte[0] : name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length == 0 || bytes.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Player names are 1 to " + MAX_NAME_BYTES + " bytes");
+        }
+        return bytes;
+    }
+}
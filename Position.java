@@ -1,6 +1,33 @@
 public class Position {
     private final int x;
     private final int y;
+    private final int cell;   // Grid index, y * 10 + x
+
+    private static final Position[] CACHE = new Position[100];
+
+    static {
+        for (int y = 0; y < 10; y++) {
+            for (int x = 0; x < 10; x++) {
+                CACHE[y * 10 + x] = new Position(x, y);
+            }
+        }
+    }
+
+    // shared instance for an on-board coordinate; throws like the constructor when out of bounds
+    public static Position of(int x, int y) {
+        if (x < 0 || x >= 10 || y < 0 || y >= 10) {
+            throw new IllegalArgumentException("Position out of bounds");
+        }
+        return CACHE[y * 10 + x];
+    }
+
+    // shared instance for a Grid cell index
+    public static Position of(int cell) {
+        if (cell < 0 || cell >= CACHE.length) {
+            throw new IllegalArgumentException("Position out of bounds");
+        }
+        return CACHE[cell];
+    }
 
     public Position(int x, int y) {
         if (x < 0 || x >= 10 || y < 0 || y >= 10) {
@@ -8,23 +35,18 @@ public class Position {
         }
         this.x = x;
         this.y = y;
+        this.cell = y * 10 + x;
     }
 
     // Getters
     public int getX() { return x; }
     public int getY() { return y; }
+    public int getCell() { return cell; }
 
-    // gets all valid adjacent tiles
+    // the shared neighbor in direction, or null off the board
     public Position getAdjacent(Direction direction) {
-        int newX = x + direction.getXOffset();
-        int newY = y + direction.getYOffset();
-
-        // check bounds before creating new Position
-        if (newX < 0 || newX >= 10 || newY < 0 || newY >= 10) {
-            return null;
-        }
-
-        return new Position(newX, newY);
+        int next = Grid.neighbor(cell, direction);
+        return next < 0 ? null : CACHE[next];
     }
 
     @Override
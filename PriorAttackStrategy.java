@@ -0,0 +1,58 @@
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Hunts by sampling unattacked cells in proportion to where human players
+ * usually place ships, read from the shared PlacementHeatmap.
+ * With no data yet it behaves like RandomAttackStrategy.
+ */
+public class PriorAttackStrategy implements AttackStrategy {
+    // a uniform fleet covers 14 of 100 cells; blending it in keeps every cell reachable
+    private static final double UNIFORM_OCCUPANCY = 14 / 100.0;
+
+    private final PlacementHeatmap heatmap;
+    private final Random random = new Random();
+    private final double[] weights = new double[100];
+
+    public PriorAttackStrategy() {
+        this(PlacementHeatmap.shared());
+    }
+
+    public PriorAttackStrategy(PlacementHeatmap heatmap) {
+        this.heatmap = heatmap;
+    }
+
+    @Override
+    public Position getNextAttackPosition(GameBoard board, List<Position> history) {
+        PlacementHeatmap.Snapshot prior = heatmap.latest();
+
+        double total = 0;
+        for (int cell = 0; cell < 100; cell++) {
+            weights[cell] = UNIFORM_OCCUPANCY + prior.occupancy(cell);
+        }
+        for (Position p : history) {
+            weights[p.getY() * 10 + p.getX()] = 0;
+        }
+        for (double w : weights) {
+            total += w;
+        }
+
+        // roulette-wheel pick over the remaining cells
+        double r = random.nextDouble() * total;
+        int last = -1;
+        for (int cell = 0; cell < 100; cell++) {
+            if (weights[cell] == 0) continue;
+            last = cell;
+            r -= weights[cell];
+            if (r < 0) break;
+        }
+        if (last < 0) {
+            return new RandomAttackStrategy().getNextAttackPosition(board, history);
+        }
+        return Position.of(last);
+    }
+
+    @Override public void recordHit(Position pos, String shipType, boolean isSunk) {}
+    @Override public void recordMiss(Position pos) {}
+    @Override public void reset() {}
+}
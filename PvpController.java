@@ -0,0 +1,125 @@
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Rules for a game between two human players (seats 0 and 1).
+ * Both seats place the same fleet, largest ship first, then take turns
+ * firing at each other, seat 0 first. Every event is sent to each seat's
+ * observer from that seat's point of view. Callers synchronize on the
+ * controller.
+ */
+public class PvpController {
+    private static final GameObserver SILENT = msg -> {};
+    private static final ShipFactory.ShipType[] PLACEMENT_ORDER = ShipFactory.ShipType.values().clone();
+    static {
+        Arrays.sort(PLACEMENT_ORDER, Comparator.comparingInt(ShipFactory.ShipType::getLength).reversed());
+    }
+
+    private final GameBoard[] boards = { new GameBoard(), new GameBoard() };
+    private final GameObserver[] observers = { SILENT, SILENT };
+    private final int[] shipsPlaced = new int[2];
+    private final ShipFactory shipFactory = new ShipFactory(SILENT);
+    private int turn = 0;
+    private int winner = -1;
+
+    public void setObserver(int seat, GameObserver observer) {
+        observers[seat] = observer;
+    }
+
+    public boolean isPlacementPhase() {
+        return shipsPlaced[0] < PLACEMENT_ORDER.length || shipsPlaced[1] < PLACEMENT_ORDER.length;
+    }
+
+    public boolean isPlacementDone(int seat) {
+        return shipsPlaced[seat] == PLACEMENT_ORDER.length;
+    }
+
+    // the ship this seat places next, or null when its fleet is complete
+    public ShipFactory.ShipType getCurrentShipTypeToPlace(int seat) {
+        return isPlacementDone(seat) ? null : PLACEMENT_ORDER[shipsPlaced[seat]];
+    }
+
+    public boolean tryPlaceShip(int seat, Position pos, Direction dir) {
+        ShipFactory.ShipType type = getCurrentShipTypeToPlace(seat);
+        if (type == null) return false;
+
+        GameBoard board = boards[seat];
+        if (!board.canPlaceShip(pos, dir, type.getLength())) {
+            observers[seat].update("Invalid placement for " + type + " at " + pos + " facing " + dir);
+            return false;
+        }
+        board.placeShip(shipFactory.createShip(type), pos, dir);
+        PlacementHeatmap.shared().record(type, pos, dir);
+        shipsPlaced[seat]++;
+
+        ShipFactory.ShipType next = getCurrentShipTypeToPlace(seat);
+        if (next != null) {
+            observers[seat].update("Ship placed! Now place your " + next + " (length: " + next.getLength() + ")");
+        } else if (isPlacementPhase()) {
+            observers[seat].update("Fleet ready! Waiting for your opponent to finish placing.");
+            observers[1 - seat].update("Your opponent's fleet is ready.");
+        } else {
+            observers[turn].update("All ships placed! Your turn - fire at the enemy board!");
+            observers[1 - turn].update("All ships placed! Waiting for your opponent's shot.");
+        }
+        return true;
+    }
+
+    // fires a shot for seat if it is that seat's turn; returns true on a hit
+    public boolean attack(int seat, Position pos) {
+        if (isPlacementPhase() || isGameOver() || seat != turn) return false;
+
+        GameBoard target = boards[1 - seat];
+        if (target.isHit(pos)) {
+            observers[seat].update("This position has already been attacked");
+            return false;
+        }
+
+        boolean hit = target.receiveAttack(pos);
+        if (hit) {
+            Ship ship = target.getShipAt(pos);
+            observers[seat].update("You HIT at " + pos + "!");
+            observers[1 - seat].update("Opponent HIT at " + pos + "!");
+            if (ship.isSunk()) {
+                observers[seat].update("Enemy " + ship.getType() + " has been sunk!");
+                observers[1 - seat].update("Your " + ship.getType() + " has been sunk!");
+            }
+            if (target.isAllShipsSunk()) {
+                winner = seat;
+                observers[seat].update("You win! All enemy ships sunk!");
+                observers[1 - seat].update("You lose! All your ships sunk!");
+                return true;
+            }
+        } else {
+            observers[seat].update("You MISSED at " + pos);
+            observers[1 - seat].update("Opponent MISSED at " + pos);
+        }
+
+        turn = 1 - seat;
+        observers[turn].update("Your turn!");
+        return hit;
+    }
+
+    // ends the game in the other seat's favour, e.g. when a player leaves
+    public void forfeit(int seat) {
+        if (isGameOver()) return;
+        winner = 1 - seat;
+        observers[winner].update("Your opponent left. You win!");
+    }
+
+    public GameBoard getBoard(int seat) {
+        return boards[seat];
+    }
+
+    public int getTurn() {
+        return turn;
+    }
+
+    public boolean isGameOver() {
+        return winner >= 0;
+    }
+
+    public int getWinner() {
+        return winner;
+    }
+}
@@ -0,0 +1,272 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Pairs human players into PvpController matches.
+ * The queue is a single lock-free waiting slot: joining either parks the
+ * player there or takes whoever is waiting, so pairing, turn handoff and
+ * teardown are O(1) and never take a shared lock. Events are pushed to each
+ * player's parked long-poll callback instead of being polled for.
+ *
+ * Players who stop polling (a closed tab) are evicted after IDLE_MILLIS, so
+ * they neither pile up nor get paired with the next person who joins.
+ */
+public class PvpLobby {
+    private static final int MAX_LOG = 40;
+    private static final long LONG_POLL_SECONDS = 25;
+    // a live page is always parked in a poll or reloading after one
+    private static final long IDLE_MILLIS = 2 * LONG_POLL_SECONDS * 1000;
+
+    private final Map<String, Player> players = new ConcurrentHashMap<>();
+    private final AtomicReference<Player> waiting = new AtomicReference<>();
+    private final ScheduledThreadPoolExecutor timeouts = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread t = new Thread(r, "pvp-long-poll");
+        t.setDaemon(true);
+        return t;
+    });
+    // long polls woken inside withMatch, completed once the match lock is released
+    private final ThreadLocal<List<Runnable>> deferredWakeups = new ThreadLocal<>();
+
+    public PvpLobby() {
+        timeouts.setRemoveOnCancelPolicy(true);
+        timeouts.scheduleWithFixedDelay(this::evictIdle, LONG_POLL_SECONDS, LONG_POLL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /** One person in the lobby or in a match. Only its owner and its opponent touch it. */
+    public final class Player {
+        private final String id;
+        private final List<String> log = Collections.synchronizedList(new ArrayList<>());
+        private PvpController match;
+        private int seat;
+        private Direction currentDir = Direction.EAST;
+        private long seq;
+        private LongConsumer waiter;
+        private ScheduledFuture<?> waiterTimeout;
+        private boolean left;
+        private volatile long lastSeen = System.currentTimeMillis();
+
+        private Player(String id) {
+            this.id = id;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public synchronized PvpController getMatch() {
+            return match;
+        }
+
+        public synchronized int getSeat() {
+            return seat;
+        }
+
+        public synchronized Direction getCurrentDir() {
+            return currentDir;
+        }
+
+        public synchronized void setCurrentDir(Direction dir) {
+            currentDir = dir;
+        }
+
+        // newest first; synchronize on the list while iterating
+        public List<String> getLog() {
+            return log;
+        }
+
+        public synchronized long getSeq() {
+            return seq;
+        }
+
+        // false once the player has left; leave() marks that under the same lock
+        private synchronized boolean attach(PvpController match, int seat) {
+            if (left) return false;
+            this.match = match;
+            this.seat = seat;
+            return true;
+        }
+
+        // the match to forfeit, if any; attach() fails from now on
+        private synchronized PvpController markLeft() {
+            left = true;
+            return match;
+        }
+
+        private synchronized boolean isIdle(long now) {
+            return waiter == null && now - lastSeen > IDLE_MILLIS;
+        }
+
+        // records an event and wakes this player's parked long poll, if any
+        public void push(String msg) {
+            LongConsumer w;
+            long now;
+            synchronized (this) {
+                synchronized (log) {
+                    log.add(0, msg);
+                    if (log.size() > MAX_LOG) log.remove(log.size() - 1);
+                }
+                now = ++seq;
+                w = takeWaiter();
+            }
+            if (w != null) wake(w, now);
+        }
+
+        /**
+         * Calls callback with the latest event number as soon as there is an
+         * event newer than after, or after LONG_POLL_SECONDS without one.
+         * A newer poll replaces (and releases) an older one.
+         */
+        public void awaitEvent(long after, LongConsumer callback) {
+            LongConsumer previous;
+            long now;
+            synchronized (this) {
+                now = seq;
+                previous = takeWaiter();
+                if (now <= after) {
+                    waiter = callback;
+                    waiterTimeout = timeouts.schedule(this::expireWaiter, LONG_POLL_SECONDS, TimeUnit.SECONDS);
+                }
+            }
+            if (previous != null) previous.accept(now);
+            if (now > after) callback.accept(now);
+        }
+
+        private void expireWaiter() {
+            LongConsumer w;
+            long now;
+            synchronized (this) {
+                w = waiter;
+                waiter = null;
+                waiterTimeout = null;
+                now = seq;
+            }
+            if (w != null) w.accept(now);
+        }
+
+        private LongConsumer takeWaiter() {
+            LongConsumer w = waiter;
+            waiter = null;
+            if (waiterTimeout != null) {
+                waiterTimeout.cancel(false);
+                waiterTimeout = null;
+            }
+            return w;
+        }
+    }
+
+    // completes a long poll now, or after withMatch releases the match lock
+    private void wake(LongConsumer waiter, long seq) {
+        List<Runnable> later = deferredWakeups.get();
+        if (later != null) {
+            later.add(() -> waiter.accept(seq));
+        } else {
+            waiter.accept(seq);
+        }
+    }
+
+    /**
+     * Runs action on match under its lock. The events it pushes are logged
+     * straight away, but the long polls they wake are answered only after the
+     * lock is released, so a slow HTTP write never holds up the opponent.
+     */
+    public void withMatch(PvpController match, Consumer<PvpController> action) {
+        List<Runnable> outer = deferredWakeups.get();
+        List<Runnable> wakeups = new ArrayList<>();
+        deferredWakeups.set(wakeups);
+        try {
+            synchronized (match) {
+                action.accept(match);
+            }
+        } finally {
+            deferredWakeups.set(outer);
+            for (Runnable r : wakeups) r.run();
+        }
+    }
+
+    // the player's entry, marking it as still in use
+    public Player get(String id) {
+        Player p = id == null ? null : players.get(id);
+        if (p != null) p.lastSeen = System.currentTimeMillis();
+        return p;
+    }
+
+    // enters the queue (leaving any previous match) and pairs with a waiting player if there is one
+    public Player join(String id) {
+        leave(id);
+        Player p = new Player(id);
+        players.put(id, p);
+
+        for (;;) {
+            Player w = waiting.get();
+            if (w == null) {
+                if (waiting.compareAndSet(null, p)) {
+                    p.push("Looking for an opponent...");
+                    return p;
+                }
+            } else if (waiting.compareAndSet(w, null)) {
+                // the waiting player may have left or re-joined in the meantime
+                if (players.get(w.id) != w || !startMatch(w, p)) continue;
+                return p;
+            }
+        }
+    }
+
+    // false, with nothing changed, when first left after being taken from the queue
+    private boolean startMatch(Player first, Player second) {
+        PvpController match = new PvpController();
+        match.setObserver(0, first::push);
+        match.setObserver(1, second::push);
+        if (!first.attach(match, 0)) return false;
+        if (!second.attach(match, 1)) {
+            // second left in the same instant; first hears it as a forfeit
+            withMatch(match, m -> m.forfeit(1));
+            return true;
+        }
+
+        ShipFactory.ShipType type = match.getCurrentShipTypeToPlace(0);
+        String prompt = "Opponent found! Place your " + type + " (length: " + type.getLength() + ")";
+        first.push(prompt);
+        second.push(prompt);
+        return true;
+    }
+
+    // removes the player; an unfinished match is forfeited to the opponent
+    public void leave(String id) {
+        Player p = players.get(id);
+        if (p != null) leave(p);
+    }
+
+    private void leave(Player p) {
+        if (!players.remove(p.id, p)) return;
+        waiting.compareAndSet(p, null);
+
+        PvpController match = p.markLeft();
+        if (match != null) {
+            int seat = p.getSeat();
+            withMatch(match, m -> m.forfeit(seat));
+        }
+        // release a parked long poll so the page notices
+        p.push("You left the match.");
+    }
+
+    // drops players whose page has stopped polling
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        for (Player p : players.values()) {
+            if (p.isIdle(now)) leave(p);
+        }
+    }
+
+    public int size() {
+        return players.size();
+    }
+}
@@ -11,12 +11,12 @@ public class RandomAttackStrategy implements AttackStrategy {
         int attempts = 0;
 
         do {
-            pos = new Position(random.nextInt(10), random.nextInt(10));
+            pos = Position.of(random.nextInt(Grid.CELLS));
             attempts++;
             if (attempts > 100) { // Fallback if random fails
                 for (int x = 0; x < 10; x++) {
                     for (int y = 0; y < 10; y++) {
-                        pos = new Position(x, y);
+                        pos = Position.of(x, y);
                         if (!history.contains(pos)) return pos;
                     }
                 }
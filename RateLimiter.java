@@ -0,0 +1,79 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket per client. Each client may burst up to 'burst' actions and
+ * then gets 'perSecond' more every second; anything beyond that is refused
+ * right away instead of waiting its turn on the session lock.
+ */
+public class RateLimiter {
+    private static final long IDLE_NANOS = 10L * 60 * 1_000_000_000L;
+
+    private final double perSecond;
+    private final double burst;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastPurge = new AtomicLong(System.nanoTime());
+
+    private static final class Bucket {
+        private double tokens;
+        private long last;
+
+        Bucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.last = now;
+        }
+
+        synchronized boolean take(long now, double perSecond, double burst) {
+            tokens = Math.min(burst, tokens + (now - last) * perSecond / 1e9);
+            last = now;
+            if (tokens < 1) return false;
+            tokens -= 1;
+            return true;
+        }
+
+        synchronized long lastUsed() {
+            return last;
+        }
+    }
+
+    public RateLimiter(double perSecond, double burst) {
+        if (perSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate must be positive and burst at least 1");
+        }
+        this.perSecond = perSecond;
+        this.burst = burst;
+    }
+
+    // -Dbattleship.rateLimit (actions per second, default 20) and -Dbattleship.rateBurst (default 40)
+    public static RateLimiter fromProperties() {
+        return new RateLimiter(
+                Double.parseDouble(System.getProperty("battleship.rateLimit", "20")),
+                Double.parseDouble(System.getProperty("battleship.rateBurst", "40")));
+    }
+
+    public boolean tryAcquire(String client) {
+        long now = System.nanoTime();
+        purgeIdle(now);
+        return buckets.computeIfAbsent(client, k -> new Bucket(burst, now)).take(now, perSecond, burst);
+    }
+
+    // forgets clients idle long enough to have refilled anyway; scans at most once a minute
+    private void purgeIdle(long now) {
+        long last = lastPurge.get();
+        if (now - last < 60_000_000_000L || !lastPurge.compareAndSet(last, now)) return;
+        buckets.values().removeIf(b -> now - b.lastUsed() > IDLE_NANOS);
+    }
+
+    public double getPerSecond() {
+        return perSecond;
+    }
+
+    public double getBurst() {
+        return burst;
+    }
+
+    public int getClientCount() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,99 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary replay format.
+ *
+ * File:   "BSR1" magic, then records back to back.
+ * Record: winner (1 byte, 0 = player/side 0, 1 = cpu/side 1)
+ *         seed (8 bytes)
+ *         side 0 fleet, side 1 fleet (4 shorts each, in ShipType order)
+ *         shot count (1 byte, unsigned)
+ *         shots (1 byte each: bit 7 = side that fired, bits 0-6 = cell y * 10 + x)
+ *
+ * A placement index is cell * 4 + direction ordinal, always stored from the
+ * ship's top-left cell facing EAST or SOUTH, so it decodes without a GameBoard.
+ */
+public final class Replay {
+    public static final byte[] MAGIC = { 'B', 'S', 'R', '1' };
+    public static final int SHIPS = ShipFactory.ShipType.values().length;
+    public static final int HEADER_BYTES = 1 + 8 + 2 * SHIPS * 2 + 1;
+    // each side can fire at most once per cell
+    public static final int MAX_SHOTS = 200;
+    public static final int MAX_RECORD_BYTES = HEADER_BYTES + MAX_SHOTS;
+
+    private static final int[] LENGTHS = new int[SHIPS];
+    static {
+        for (ShipFactory.ShipType type : ShipFactory.ShipType.values()) {
+            LENGTHS[type.ordinal()] = type.getLength();
+        }
+    }
+
+    private Replay() {}
+
+    public static int shipLength(int shipIndex) {
+        return LENGTHS[shipIndex];
+    }
+
+    public static byte encodeShot(int side, Position pos) {
+        return (byte) ((side << 7) | (pos.getY() * 10 + pos.getX()));
+    }
+
+    public static int shotSide(byte shot) {
+        return (shot >> 7) & 1;
+    }
+
+    public static int shotCell(byte shot) {
+        return shot & 0x7F;
+    }
+
+    public static int placementCell(int placement) {
+        return placement >> 2;
+    }
+
+    public static Direction placementDirection(int placement) {
+        return Direction.of(placement & 3);
+    }
+
+    /**
+     * Finds each ship's cells on a finished board and returns its placement
+     * index, in ShipType order. Ship types are told apart by length.
+     */
+    public static short[] encodeFleet(GameBoard board) {
+        short[] fleet = new short[SHIPS];
+        boolean[] seen = new boolean[SHIPS];
+
+        for (int y = 0; y < 10; y++) {
+            for (int x = 0; x < 10; x++) {
+                Cell cell = board.cell(Grid.index(x, y));
+                if (!cell.hasShip()) continue;
+                int shipIndex = indexOf(cell.getShip());
+                if (shipIndex < 0 || seen[shipIndex]) continue;
+
+                // scanning row by row, the first cell is the top-left one
+                seen[shipIndex] = true;
+                boolean horizontal = x + 1 < 10 && board.cell(Grid.index(x + 1, y)).getShip() == cell.getShip();
+                Direction dir = horizontal ? Direction.EAST : Direction.SOUTH;
+                fleet[shipIndex] = (short) ((y * 10 + x) * 4 + dir.ordinal());
+            }
+        }
+        return fleet;
+    }
+
+    private static int indexOf(Ship ship) {
+        for (int i = 0; i < SHIPS; i++) {
+            if (LENGTHS[i] == ship.getLength()) return i;
+        }
+        return -1;
+    }
+
+    // writes one record; out must have MAX_RECORD_BYTES free
+    public static void writeRecord(ByteBuffer out, int winner, long seed,
+                                   short[] fleet0, short[] fleet1, byte[] shots, int shotCount) {
+        out.put((byte) winner);
+        out.putLong(seed);
+        for (short p : fleet0) out.putShort(p);
+        for (short p : fleet1) out.putShort(p);
+        out.put((byte) shotCount);
+        out.put(shots, 0, shotCount);
+    }
+}
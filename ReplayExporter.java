@@ -0,0 +1,100 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Appends finished games to a replay file.
+ * write() only queues the record, so the thread that ended the game (the NIO
+ * selector among them) never waits on the file. The flush thread batches the
+ * queue in a direct buffer and writes it in large chunks, so many games
+ * finishing at once cost one syscall per 64 KB, not per game. It runs every
+ * FLUSH_MILLIS, and sooner once 64 KB are queued, so a crash or kill -9 loses
+ * at most that much play; close() also forces it to disk.
+ */
+public class ReplayExporter implements Closeable {
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final long FLUSH_MILLIS = 1000;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final Queue<byte[]> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedBytes = new AtomicInteger();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "replay-flush");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public ReplayExporter(Path file) throws IOException {
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (channel.size() == 0) {
+            buffer.put(Replay.MAGIC);
+        }
+        flusher.scheduleWithFixedDelay(this::flushPending, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    // hands queued records to the OS, which keeps them through a process crash
+    private synchronized void flushPending() {
+        if (!channel.isOpen()) return;
+        try {
+            drain();
+            if (buffer.position() > 0) flushBuffer();
+        } catch (IOException e) {
+            // losing a replay must never break a game
+            System.err.println("Replay export failed: " + e.getMessage());
+        }
+    }
+
+    // called from whatever thread finished the game; never touches the file
+    public void write(byte[] record) {
+        queue.add(record);
+        if (queuedBytes.addAndGet(record.length) >= BUFFER_BYTES) {
+            try {
+                flusher.execute(this::flushPending);
+            } catch (RejectedExecutionException closed) {
+                // close() drains the queue itself
+            }
+        }
+    }
+
+    public synchronized void flush() throws IOException {
+        drain();
+        flushBuffer();
+        channel.force(false);
+    }
+
+    // moves queued records into the buffer, writing it out whenever the next one doesn't fit
+    private void drain() throws IOException {
+        for (byte[] record; (record = queue.poll()) != null; ) {
+            queuedBytes.addAndGet(-record.length);
+            if (buffer.remaining() < record.length) flushBuffer();
+            buffer.put(record);
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flusher.shutdown();
+        flush();
+        channel.close();
+    }
+}
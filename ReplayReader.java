@@ -0,0 +1,172 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Streams a replay file through memory-mapped windows and aggregates stats.
+ * Each record is decoded into a few reused primitive arrays; no GameBoard,
+ * Ship or Position objects are created, so millions of games scan quickly.
+ *
+ * Run: java ReplayReader replays.bsr
+ */
+public class ReplayReader {
+    private static final long WINDOW_BYTES = 256L * 1024 * 1024;
+
+    /** Aggregates over every game in a file. Side 0 is the player, side 1 the CPU. */
+    public static class Stats {
+        public long games;
+        public long totalShots;
+        public final long[] wins = new long[2];
+        // shots and hits fired by each side, per cell y * 10 + x
+        public final long[][] shotHeatmap = new long[2][100];
+        public final long[][] hitHeatmap = new long[2][100];
+        // sinkOrder[side][ship][rank]: how often side's ship was the rank-th to sink
+        public final long[][][] sinkOrder = new long[2][Replay.SHIPS][Replay.SHIPS];
+
+        public double averageGameLength() {
+            return games == 0 ? 0 : (double) totalShots / games;
+        }
+
+        public void print(PrintStream out) {
+            out.printf("Games: %d, player wins: %d, cpu wins: %d%n", games, wins[0], wins[1]);
+            out.printf("Average game length: %.1f shots%n", averageGameLength());
+            for (int side = 0; side < 2; side++) {
+                out.println((side == 0 ? "Player" : "CPU") + " hit heatmap (hits / shots %):");
+                for (int y = 0; y < 10; y++) {
+                    StringBuilder row = new StringBuilder();
+                    for (int x = 0; x < 10; x++) {
+                        int cell = y * 10 + x;
+                        long shots = shotHeatmap[side][cell];
+                        row.append(String.format("%6.1f", shots == 0 ? 0.0 : 100.0 * hitHeatmap[side][cell] / shots));
+                    }
+                    out.println(row);
+                }
+            }
+            for (int side = 0; side < 2; side++) {
+                out.println((side == 0 ? "Player" : "CPU") + " fleet sink order (ship: counts by rank):");
+                for (ShipFactory.ShipType type : ShipFactory.ShipType.values()) {
+                    out.println("  " + type + ": " + Arrays.toString(sinkOrder[side][type.ordinal()]));
+                }
+            }
+        }
+    }
+
+    // reused per record: which ship (index + 1) sits on each cell, and hits per ship
+    private final byte[][] owner = new byte[2][100];
+    private final int[][] shipHits = new int[2][Replay.SHIPS];
+    private final int[] sunkCount = new int[2];
+    private final boolean[][] shotAt = new boolean[2][Grid.CELLS];   // cells each side has fired at
+
+    public Stats scan(Path file) throws IOException {
+        Stats stats = new Stats();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long offset = Replay.MAGIC.length;
+            checkMagic(channel);
+
+            while (offset < size) {
+                long length = Math.min(WINDOW_BYTES, size - offset);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                boolean last = offset + length == size;
+
+                // stop short of a record that might straddle the window edge; the next window starts there
+                while (window.hasRemaining()) {
+                    if (!last && window.remaining() < Replay.MAX_RECORD_BYTES) break;
+                    if (!readRecord(window, offset, stats)) {
+                        throw new IOException("Truncated replay record at byte " + (offset + window.position()));
+                    }
+                }
+                offset += window.position();
+            }
+        }
+        return stats;
+    }
+
+    private static void checkMagic(FileChannel channel) throws IOException {
+        MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                Math.min(Replay.MAGIC.length, channel.size()));
+        for (byte b : Replay.MAGIC) {
+            if (!head.hasRemaining() || head.get() != b) {
+                throw new IOException("Not a replay file");
+            }
+        }
+    }
+
+    /**
+     * Decodes one record from the buffer into stats; false if the buffer ends
+     * mid-record. base is the file offset of the buffer, for error messages.
+     */
+    private boolean readRecord(MappedByteBuffer in, long base, Stats stats) throws IOException {
+        int start = in.position();
+        if (in.remaining() < Replay.HEADER_BYTES) return false;
+
+        int winner = in.get();
+        in.getLong(); // seed, not needed for aggregates
+        for (int side = 0; side < 2; side++) {
+            Arrays.fill(owner[side], (byte) 0);
+            Arrays.fill(shipHits[side], 0);
+            Arrays.fill(shotAt[side], false);
+            for (int ship = 0; ship < Replay.SHIPS; ship++) {
+                markShip(side, ship, in.getShort());
+            }
+        }
+        sunkCount[0] = sunkCount[1] = 0;
+
+        int shotCount = in.get() & 0xFF;
+        if (in.remaining() < shotCount) {
+            in.position(start);
+            return false;
+        }
+
+        for (int i = 0; i < shotCount; i++) {
+            byte shot = in.get();
+            int shooter = Replay.shotSide(shot);
+            int defender = 1 - shooter;
+            int cell = Replay.shotCell(shot);
+            // a repeated shot would count its hit twice and could sink a ship that wasn't sunk
+            if (cell >= Grid.CELLS) {
+                throw new IOException("Shot at cell " + cell + " off the board at byte " + (base + in.position() - 1));
+            }
+            if (shotAt[shooter][cell]) {
+                throw new IOException("Repeated shot at cell " + cell + " at byte " + (base + in.position() - 1));
+            }
+            shotAt[shooter][cell] = true;
+
+            stats.shotHeatmap[shooter][cell]++;
+            int ship = owner[defender][cell] - 1;
+            if (ship >= 0) {
+                stats.hitHeatmap[shooter][cell]++;
+                if (++shipHits[defender][ship] == Replay.shipLength(ship)) {
+                    stats.sinkOrder[defender][ship][sunkCount[defender]++]++;
+                }
+            }
+        }
+
+        stats.games++;
+        stats.totalShots += shotCount;
+        if (winner == 0 || winner == 1) stats.wins[winner]++;
+        return true;
+    }
+
+    private void markShip(int side, int ship, int placement) {
+        int cell = Replay.placementCell(placement);
+        if (cell < 0 || cell >= Grid.CELLS) return;
+        Direction dir = Replay.placementDirection(placement);
+        int cells = Math.min(Replay.shipLength(ship), Grid.reach(cell, dir) + 1);
+        for (int i = 0, c = cell; i < cells; i++, c += Grid.step(dir)) {
+            owner[side][c] = (byte) (ship + 1);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: java ReplayReader <replay file>");
+            System.exit(1);
+        }
+        new ReplayReader().scan(Path.of(args[0])).print(System.out);
+    }
+}
@@ -0,0 +1,38 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Collects one game's shots as they happen and turns the finished game into
+ * a Replay record.
+ */
+public class ReplayRecorder {
+    private final long seed;
+    private final byte[] shots = new byte[Replay.MAX_SHOTS];
+    private int shotCount;
+
+    public ReplayRecorder(long seed) {
+        this.seed = seed;
+    }
+
+    public void recordShot(int side, Position pos) {
+        if (shotCount < shots.length) {
+            shots[shotCount++] = Replay.encodeShot(side, pos);
+        }
+    }
+
+    public int getShotCount() {
+        return shotCount;
+    }
+
+    // shot i in Replay.encodeShot form
+    public byte getShot(int i) {
+        return shots[i];
+    }
+
+    // encodes the finished game; board0 is side 0's fleet
+    public byte[] finish(int winner, GameBoard board0, GameBoard board1) {
+        ByteBuffer out = ByteBuffer.allocate(Replay.HEADER_BYTES + shotCount);
+        Replay.writeRecord(out, winner, seed,
+                Replay.encodeFleet(board0), Replay.encodeFleet(board1), shots, shotCount);
+        return out.array();
+    }
+}
@@ -0,0 +1,96 @@
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Per-thread scratch space for request bodies and rendered pages.
+ * The text builder and byte arrays are kept between requests, so steady
+ * traffic reuses the same memory instead of allocating a String and a
+ * byte[] copy of every page.
+ */
+final class ResponseBuffer {
+    private static final int MAX_BODY = 4096;
+    private static final ThreadLocal<ResponseBuffer> LOCAL = ThreadLocal.withInitial(ResponseBuffer::new);
+
+    private final StringBuilder text = new StringBuilder(32 * 1024);
+    private final byte[] body = new byte[MAX_BODY];
+    private byte[] bytes = new byte[32 * 1024];
+    private int bodyLength;
+    private int length;
+
+    private ResponseBuffer() {}
+
+    // this thread's buffer, with the text builder emptied
+    static ResponseBuffer get() {
+        ResponseBuffer b = LOCAL.get();
+        b.text.setLength(0);
+        return b;
+    }
+
+    StringBuilder text() {
+        return text;
+    }
+
+    // reads a request body into the reusable array; false when it fills it, and the rest is left unread
+    boolean readBody(InputStream in) throws IOException {
+        int n = 0;
+        int r;
+        while (n < MAX_BODY && (r = in.read(body, n, MAX_BODY - n)) > 0) {
+            n += r;
+        }
+        bodyLength = n;
+        return n < MAX_BODY;
+    }
+
+    byte[] body() {
+        return body;
+    }
+
+    int bodyLength() {
+        return bodyLength;
+    }
+
+    // UTF-8 encodes text() into bytes(); valid until the next encode on this thread
+    ResponseBuffer encode() {
+        int n = text.length();
+        ensure(n * 3);
+        byte[] out = bytes;
+        int p = 0;
+        for (int i = 0; i < n; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                out[p++] = (byte) c;
+            } else if (c < 0x800) {
+                out[p++] = (byte) (0xC0 | c >> 6);
+                out[p++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, text.charAt(++i));
+                out[p++] = (byte) (0xF0 | cp >> 18);
+                out[p++] = (byte) (0x80 | cp >> 12 & 0x3F);
+                out[p++] = (byte) (0x80 | cp >> 6 & 0x3F);
+                out[p++] = (byte) (0x80 | cp & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                out[p++] = '?';
+            } else {
+                out[p++] = (byte) (0xE0 | c >> 12);
+                out[p++] = (byte) (0x80 | c >> 6 & 0x3F);
+                out[p++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        length = p;
+        return this;
+    }
+
+    byte[] bytes() {
+        return bytes;
+    }
+
+    int length() {
+        return length;
+    }
+
+    private void ensure(int capacity) {
+        if (bytes.length < capacity) {
+            bytes = new byte[Math.max(capacity, bytes.length * 2)];
+        }
+    }
+}
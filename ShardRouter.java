@@ -0,0 +1,565 @@
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.net.*;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Front router for a sharded deployment: several GameServer worker processes
+ * on one host, each owning the sessions that hash to it. Requests are sent to
+ * the owner of their "sid" cookie on a consistent-hash ring, so adding or
+ * removing a worker only moves the sessions between it and its neighbours.
+ * Those sessions are exported from the old owner and imported into the new
+ * one before traffic resumes.
+ *
+ * The PvP lobby lives in one process, so every /pvp request goes to the
+ * worker that owns the key "pvp". Only single-player sessions are migrated;
+ * PvP games, offline uploads and the featured game stay where they are.
+ *
+ * The router keeps the per-client rate limit (battleship.rateLimit and
+ * rateBurst), so a client gets the same budget however many workers there
+ * are; workers don't limit again. /leaderboard is merged from every worker's
+ * ranking. /metrics is answered by whichever worker owns the caller's
+ * session, so scrape each worker on 127.0.0.1:N for the full picture.
+ *
+ * Run:   java ShardRouter [--port=8080] [--spawn=2] [--base-port=9001]
+ *        (starts the workers itself with "GameServer --port=N --worker" and this
+ *         JVM's -Dbattleship.* properties; the stats, replays and heatmap files
+ *         are held by one process each, so worker N gets its own, e.g.
+ *         stats.bps becomes stats-N.bps)
+ *        java ShardRouter --workers=9001,9002
+ *        (routes to workers that are already running; give each its own files,
+ *         a second worker refuses a stats file another one holds)
+ *        [--admin-port=8081]
+ * Admin: GET  /router/workers                    lists workers and their sessions
+ *        POST /router/workers action=add&port=N  starts a worker and rebalances
+ *        POST /router/workers action=remove&port=N
+ *        (on a separate listener bound to 127.0.0.1, like the workers themselves)
+ */
+public class ShardRouter {
+    private static final int VIRTUAL_NODES = 100;
+    private static final String SESSION_COOKIE = "sid";
+    private static final String PVP_KEY = "pvp";
+    // opened by one process at a time, so each spawned worker gets its own copy
+    private static final Set<String> PER_WORKER_FILES = Set.of(
+            "battleship.stats", "battleship.replays", "battleship.heatmap");
+    private static final long LEADERBOARD_MILLIS = 10_000;
+    private static final long KNOWN_SID_MILLIS = Long.getLong("battleship.sessionIdleSeconds", 30 * 60) * 1000;
+    // the client manages these itself, or they only describe the hop to the router;
+    // X-Forwarded-For is replaced with the address the router saw
+    private static final Set<String> SKIPPED_HEADERS = Set.of(
+            "connection", "content-length", "expect", "host", "keep-alive",
+            "transfer-encoding", "upgrade", "te", "trailer", "proxy-connection",
+            "x-forwarded-for");
+
+    private final NavigableMap<Long, Integer> ring = new TreeMap<>();
+    private final Set<Integer> workers = new TreeSet<>();
+    private final Map<Integer, Process> spawned = new ConcurrentHashMap<>();
+    private final ReadWriteLock membership = new ReentrantReadWriteLock();
+    private final RateLimiter rateLimiter = RateLimiter.fromProperties();
+    // sids the router has already charged a first visit for, with when they were last used
+    private final Map<String, Long> knownSids = new ConcurrentHashMap<>();
+    private final AtomicLong lastSidPurge = new AtomicLong(System.currentTimeMillis());
+    private volatile byte[] leaderboard;
+    private volatile long leaderboardAt;
+    private final HttpClient client = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    // ── Ring ─────────────────────────────────────────────────────────────────
+
+    // FNV-1a with a final mix, so similar keys still land far apart on the ring
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // the worker port that owns key; caller holds the membership lock
+    private int owner(String key) {
+        Map.Entry<Long, Integer> e = ring.ceilingEntry(hash(key));
+        return (e != null ? e : ring.firstEntry()).getValue();
+    }
+
+    private void addToRing(int port) {
+        workers.add(port);
+        for (int i = 0; i < VIRTUAL_NODES; i++) {
+            ring.put(hash("worker-" + port + "#" + i), port);
+        }
+    }
+
+    private void removeFromRing(int port) {
+        workers.remove(port);
+        ring.values().removeIf(p -> p == port);
+    }
+
+    // ── Membership ───────────────────────────────────────────────────────────
+
+    /**
+     * Starts "java GameServer --port=N --worker" with this JVM's classpath and
+     * battleship.* properties, and waits until it answers.
+     */
+    public void spawnWorker(int port) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (!name.startsWith("battleship.")) continue;
+            String value = System.getProperty(name);
+            if (PER_WORKER_FILES.contains(name)) value = perWorker(value, port);
+            command.add("-D" + name + "=" + value);
+        }
+        command.addAll(List.of("GameServer", "--port=" + port, "--worker"));
+        Process p = new ProcessBuilder(command).inheritIO().start();
+        spawned.put(port, p);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (System.nanoTime() < deadline) {
+            if (!p.isAlive()) throw new IOException("Worker on port " + port + " exited with " + p.exitValue());
+            try {
+                get(port, "/internal/sessions");
+                return;
+            } catch (IOException notYet) {
+                Thread.sleep(100);
+            }
+        }
+        p.destroy();
+        spawned.remove(port);
+        throw new IOException("Worker on port " + port + " did not start");
+    }
+
+    // stats.bps -> stats-9001.bps, next to the original
+    static String perWorker(String path, int port) {
+        Path file = Path.of(path);
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String own = dot > 0 ? name.substring(0, dot) + "-" + port + name.substring(dot) : name + "-" + port;
+        return file.resolveSibling(own).toString();
+    }
+
+    /** Adds a running worker to the ring and moves over the sessions it now owns. */
+    public void addWorker(int port) throws IOException, InterruptedException {
+        membership.writeLock().lock();
+        try {
+            if (workers.contains(port)) return;
+            Set<Integer> before = new TreeSet<>(workers);
+            addToRing(port);
+            try {
+                for (int from : before) {
+                    rebalance(from);
+                }
+            } catch (IOException | RuntimeException e) {
+                removeFromRing(port);
+                moveBack(Set.of(port));
+                throw e;
+            }
+        } finally {
+            membership.writeLock().unlock();
+        }
+    }
+
+    /** Hands every session on the worker to its new owner, then stops it if the router started it. */
+    public void removeWorker(int port) throws IOException, InterruptedException {
+        membership.writeLock().lock();
+        try {
+            if (!workers.contains(port)) return;
+            if (workers.size() == 1) throw new IllegalArgumentException("Cannot remove the last worker");
+            removeFromRing(port);
+            try {
+                rebalance(port);
+            } catch (IOException | RuntimeException e) {
+                addToRing(port);
+                Set<Integer> others = new TreeSet<>(workers);
+                others.remove(port);
+                moveBack(others);
+                throw e;
+            }
+        } finally {
+            membership.writeLock().unlock();
+        }
+        Process p = spawned.remove(port);
+        if (p != null) p.destroy();
+    }
+
+    // moves each session on worker "from" whose owner is now someone else; caller holds the write lock
+    private void rebalance(int from) throws IOException, InterruptedException {
+        int moved = 0;
+        for (String sid : get(from, "/internal/sessions").split("\n")) {
+            if (sid.isEmpty()) continue;
+            int to = owner(sid);
+            if (to == from) continue;
+            migrate(sid, from, to);
+            moved++;
+        }
+        if (moved > 0) System.out.println("Moved " + moved + " sessions from worker " + from);
+    }
+
+    /**
+     * After a failed add or remove has put the ring back, returns the sessions
+     * that had already moved to the owner they have again. Best effort: the
+     * worker that broke the rebalance may still be unreachable.
+     */
+    private void moveBack(Set<Integer> from) throws InterruptedException {
+        for (int port : from) {
+            try {
+                rebalance(port);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Could not move sessions back from worker " + port + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void migrate(String sid, int from, int to) throws IOException, InterruptedException {
+        HttpResponse<byte[]> export = client.send(
+                HttpRequest.newBuilder(workerUri(from, "/internal/session?id=" + URLEncoder.encode(sid, StandardCharsets.UTF_8))).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (export.statusCode() == 404) return;   // evicted since it was listed
+        if (export.statusCode() != 200) throw new IOException("Export of " + sid + " from " + from + " failed: " + export.statusCode());
+
+        try {
+            importSession(to, export.body());
+        } catch (IOException e) {
+            // the export removed it from the old worker; put it back rather than lose the game
+            importSession(from, export.body());
+            throw e;
+        }
+    }
+
+    private void importSession(int port, byte[] snapshot) throws IOException, InterruptedException {
+        HttpResponse<Void> res = client.send(
+                HttpRequest.newBuilder(workerUri(port, "/internal/session"))
+                        .header("Content-Type", "application/octet-stream")
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(snapshot)).build(),
+                HttpResponse.BodyHandlers.discarding());
+        if (res.statusCode() != 204) throw new IOException("Import into " + port + " failed: " + res.statusCode());
+    }
+
+    private String get(int port, String path) throws IOException, InterruptedException {
+        HttpResponse<String> res = client.send(
+                HttpRequest.newBuilder(workerUri(port, path)).timeout(Duration.ofSeconds(5)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (res.statusCode() != 200) throw new IOException(path + " on " + port + " returned " + res.statusCode());
+        return res.body();
+    }
+
+    private static URI workerUri(int port, String pathAndQuery) {
+        return URI.create("http://127.0.0.1:" + port + pathAndQuery);
+    }
+
+    // ── Forwarding ───────────────────────────────────────────────────────────
+
+    private void handle(HttpExchange ex) throws IOException {
+        try {
+            String path = ex.getRequestURI().getRawPath();
+            if (path.startsWith("/internal/")) {
+                // session transfer is for the router only
+                ex.sendResponseHeaders(404, -1);
+                ex.getResponseBody().close();
+                return;
+            }
+            if (path.equals("/leaderboard")) {
+                serveLeaderboard(ex);
+                return;
+            }
+            String sid = readCookie(ex);
+            boolean fresh = sid == null;
+            if (!admit(ex, path, sid)) {
+                byte[] body = "Too many requests, slow down.".getBytes(StandardCharsets.UTF_8);
+                ex.getResponseHeaders().add("Content-Type", "text/plain; charset=UTF-8");
+                ex.getResponseHeaders().add("Retry-After", "1");
+                ex.sendResponseHeaders(429, body.length);
+                ex.getResponseBody().write(body);
+                ex.getResponseBody().close();
+                return;
+            }
+            if (fresh) {
+                // issued here, so the worker picked by the ring is the one that creates the session
+                sid = UUID.randomUUID().toString();
+                ex.getResponseHeaders().add("Set-Cookie", SESSION_COOKIE + "=" + sid + "; Path=/; HttpOnly");
+            }
+            String key = path.startsWith("/pvp") ? PVP_KEY : sid;
+
+            String cookie = fresh ? SESSION_COOKIE + "=" + sid : null;
+
+            // for the game the lock is held until the worker has answered, so a migration never
+            // races a request for the session; bodies are copied after it is released. Nothing
+            // else is migrated, so those requests (the PvP long-poll among them) only need the
+            // owner looked up and never hold up a membership change
+            HttpResponse<InputStream> res = null;
+            int port;
+            membership.readLock().lock();
+            try {
+                port = owner(key);
+                if (usesSession(path)) res = forward(ex, port, cookie);
+            } finally {
+                membership.readLock().unlock();
+            }
+            if (res == null) res = forward(ex, port, cookie);
+            respond(ex, res);
+        } catch (Exception e) {
+            byte[] err = ("Bad gateway: " + e.getMessage()).getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().add("Content-Type", "text/plain; charset=UTF-8");
+            ex.sendResponseHeaders(502, err.length);
+            ex.getResponseBody().write(err);
+            ex.getResponseBody().close();
+        }
+    }
+
+    /**
+     * Charges the client's bucket for what a standalone GameServer charges:
+     * every POST, every /watch/subscribe and the first visit of a sid this
+     * router hasn't seen (null for a fresh one). False when the bucket is empty.
+     */
+    private boolean admit(HttpExchange ex, String path, String sid) {
+        boolean post = "POST".equalsIgnoreCase(ex.getRequestMethod());
+        boolean firstVisit = usesSession(path) && (sid == null || !knownSids.containsKey(sid));
+        if ((post || firstVisit || path.equals("/watch/subscribe"))
+                && !rateLimiter.tryAcquire(ex.getRemoteAddress().getAddress().getHostAddress())) {
+            return false;
+        }
+        if (sid != null && usesSession(path)) {
+            purgeKnownSids();
+            knownSids.put(sid, System.currentTimeMillis());
+        }
+        return true;
+    }
+
+    // forgets sids idle longer than a worker keeps their sessions; scans at most once a minute
+    private void purgeKnownSids() {
+        long now = System.currentTimeMillis();
+        long last = lastSidPurge.get();
+        if (now - last < Math.min(60_000, KNOWN_SID_MILLIS) || !lastSidPurge.compareAndSet(last, now)) return;
+        long cutoff = now - KNOWN_SID_MILLIS;
+        knownSids.values().removeIf(seen -> seen < cutoff);
+    }
+
+    // true for requests that read or change a single-player session, the only state migrate() moves
+    private static boolean usesSession(String path) {
+        return !path.startsWith("/pvp") && !path.startsWith("/watch") && !path.startsWith("/static/")
+                && !path.startsWith("/offline") && !path.startsWith("/api/offline")
+                && !path.equals("/metrics") && !path.equals("/leaderboard");
+    }
+
+    // cookie replaces the client's Cookie header when not null
+    private HttpResponse<InputStream> forward(HttpExchange ex, int port, String cookie) throws IOException, InterruptedException {
+        URI uri = ex.getRequestURI();
+        String target = uri.getRawPath() + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
+        HttpRequest.Builder b = HttpRequest.newBuilder(workerUri(port, target));
+        for (Map.Entry<String, List<String>> h : ex.getRequestHeaders().entrySet()) {
+            String name = h.getKey().toLowerCase(Locale.ROOT);
+            if (SKIPPED_HEADERS.contains(name) || cookie != null && name.equals("cookie")) continue;
+            for (String v : h.getValue()) b.header(h.getKey(), v);
+        }
+        if (cookie != null) b.header("Cookie", cookie);
+        // the worker rate-limits by client address, which it would otherwise see as the router's
+        b.header("X-Forwarded-For", ex.getRemoteAddress().getAddress().getHostAddress());
+
+        byte[] body = ex.getRequestBody().readAllBytes();
+        b.method(ex.getRequestMethod(), body.length == 0
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofByteArray(body));
+        return client.send(b.build(), HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    private static void respond(HttpExchange ex, HttpResponse<InputStream> res) throws IOException {
+        for (Map.Entry<String, List<String>> h : res.headers().map().entrySet()) {
+            String name = h.getKey().toLowerCase(Locale.ROOT);
+            if (SKIPPED_HEADERS.contains(name) || name.startsWith(":")) continue;
+            for (String v : h.getValue()) ex.getResponseHeaders().add(h.getKey(), v);
+        }
+        OptionalLong length = res.headers().firstValueAsLong("Content-Length");
+        int status = res.statusCode();
+        boolean empty = status == 204 || status == 304 || "HEAD".equals(ex.getRequestMethod())
+                || length.isPresent() && length.getAsLong() == 0;
+        // no length means the worker streams (server-sent events), so stream it on too
+        ex.sendResponseHeaders(status, empty ? -1 : length.orElse(0));
+        try (InputStream in = res.body(); OutputStream out = ex.getResponseBody()) {
+            byte[] chunk = new byte[8192];
+            for (int n; (n = in.read(chunk)) > 0; ) {
+                out.write(chunk, 0, n);
+                if (length.isEmpty()) out.flush();
+            }
+        }
+    }
+
+    private static String readCookie(HttpExchange ex) {
+        List<String> headers = ex.getRequestHeaders().get("Cookie");
+        if (headers == null) return null;
+        for (String header : headers) {
+            for (String part : header.split(";")) {
+                String[] kv = part.trim().split("=", 2);
+                if (kv.length == 2 && kv[0].equals(SESSION_COOKIE) && !kv[1].isEmpty() && kv[1].length() <= 64) return kv[1];
+            }
+        }
+        return null;
+    }
+
+    // ── Leaderboard ──────────────────────────────────────────────────────────
+
+    // the page rendered from every worker's ranking, refreshed at most every LEADERBOARD_MILLIS
+    private void serveLeaderboard(HttpExchange ex) throws IOException, InterruptedException {
+        byte[] body = leaderboard;
+        if (body == null || System.currentTimeMillis() - leaderboardAt > LEADERBOARD_MILLIS) {
+            body = mergedLeaderboard();
+            leaderboard = body;
+            leaderboardAt = System.currentTimeMillis();
+        }
+        ex.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+        ex.getResponseHeaders().add("Cache-Control", "max-age=" + LEADERBOARD_MILLIS / 1000);
+        ex.sendResponseHeaders(200, body.length);
+        ex.getResponseBody().write(body);
+        ex.getResponseBody().close();
+    }
+
+    /**
+     * Sums each player's totals over the workers' rankings. A worker only
+     * reports its own top players, so a player whose games are spread thin
+     * over several workers can be missing or short.
+     */
+    private byte[] mergedLeaderboard() throws IOException, InterruptedException {
+        Set<Integer> ports;
+        membership.readLock().lock();
+        try {
+            ports = new TreeSet<>(workers);
+        } finally {
+            membership.readLock().unlock();
+        }
+
+        Map<String, PlayerStats.Entry> totals = new HashMap<>();
+        boolean statsOn = false;
+        for (int port : ports) {
+            HttpResponse<String> res = client.send(
+                    HttpRequest.newBuilder(workerUri(port, "/internal/leaderboard")).timeout(Duration.ofSeconds(5)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (res.statusCode() == 404) continue;   // stats are off on that worker
+            if (res.statusCode() != 200) throw new IOException("/internal/leaderboard on " + port + " returned " + res.statusCode());
+            statsOn = true;
+            for (String line : res.body().split("\n")) {
+                String[] f = line.split("\t");
+                if (f.length != 5) continue;
+                PlayerStats.Entry e = new PlayerStats.Entry(URLDecoder.decode(f[0], StandardCharsets.UTF_8),
+                        Integer.parseInt(f[1]), Integer.parseInt(f[2]), Long.parseLong(f[3]), Long.parseLong(f[4]));
+                totals.merge(e.getName(), e, (a, b) -> new PlayerStats.Entry(a.getName(), a.getWins() + b.getWins(),
+                        a.getLosses() + b.getLosses(), a.getShots() + b.getShots(), a.getHits() + b.getHits()));
+            }
+        }
+        return GameServer.buildLeaderboard(PlayerStats.rank(totals.values()), statsOn).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // ── Admin ────────────────────────────────────────────────────────────────
+
+    private void handleAdmin(HttpExchange ex) throws IOException {
+        int status = 200;
+        StringBuilder out = new StringBuilder();
+        try {
+            if ("POST".equalsIgnoreCase(ex.getRequestMethod())) {
+                Map<String, String> p = GameServer.parseParams(new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+                int port = Integer.parseInt(p.getOrDefault("port", ""));
+                switch (p.getOrDefault("action", "")) {
+                    case "add" -> {
+                        if (!isUp(port)) spawnWorker(port);
+                        addWorker(port);
+                    }
+                    case "remove" -> removeWorker(port);
+                    default -> throw new IllegalArgumentException("Unknown action, expected add or remove");
+                }
+            }
+            membership.readLock().lock();
+            try {
+                for (int port : workers) {
+                    String ids = isUp(port) ? get(port, "/internal/sessions") : null;
+                    out.append(port).append(spawned.containsKey(port) ? " spawned " : " external ")
+                       .append(ids == null ? "down" : ids.isEmpty() ? "0 sessions" : ids.split("\n").length + " sessions")
+                       .append('\n');
+                }
+            } finally {
+                membership.readLock().unlock();
+            }
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            out.append(e.getMessage()).append('\n');
+        } catch (Exception e) {
+            status = 500;
+            out.append(e.getMessage()).append('\n');
+        }
+        byte[] body = out.toString().getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().add("Content-Type", "text/plain; charset=UTF-8");
+        ex.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        ex.getResponseBody().write(body);
+        ex.getResponseBody().close();
+    }
+
+    private boolean isUp(int port) {
+        try {
+            get(port, "/internal/sessions");
+            return true;
+        } catch (IOException | InterruptedException e) {
+            return false;
+        }
+    }
+
+    // ── Entry point ──────────────────────────────────────────────────────────
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Usage: java ShardRouter [--port=8080] [--admin-port=8081] [--spawn=2] [--base-port=9001] [--workers=9001,9002]");
+                System.exit(1);
+            }
+            opts.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        ShardRouter router = new ShardRouter();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> router.spawned.values().forEach(Process::destroy)));
+
+        if (opts.containsKey("workers")) {
+            for (String port : opts.get("workers").split(",")) {
+                router.addWorker(Integer.parseInt(port.trim()));
+            }
+        } else {
+            int basePort = Integer.parseInt(opts.getOrDefault("base-port", "9001"));
+            int count = Integer.parseInt(opts.getOrDefault("spawn", "2"));
+            for (int i = 0; i < count; i++) {
+                router.spawnWorker(basePort + i);
+                router.addWorker(basePort + i);
+            }
+        }
+
+        int port = Integer.parseInt(opts.getOrDefault("port", "8080"));
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/", router::handle);
+        // forwarding blocks on the worker, and event streams stay open
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        // the admin API starts processes and moves sessions, so only this host may reach it
+        int adminPort = Integer.parseInt(opts.getOrDefault("admin-port", String.valueOf(port + 1)));
+        HttpServer admin = HttpServer.create(new InetSocketAddress("127.0.0.1", adminPort), 0);
+        admin.createContext("/router/workers", router::handleAdmin);
+        admin.start();
+
+        System.out.println("Shard router is running at http://localhost:" + port + " in front of workers " + router.workers);
+        System.out.println("Admin API at http://127.0.0.1:" + adminPort + "/router/workers");
+        System.out.println("Press Ctrl+C to stop the router and the workers it started.");
+    }
+}
@@ -2,46 +2,38 @@ import java.util.List;
 
 // this class lets the cpu switch between targeted and random attack strategy
 public class SmartCPUStrategy implements AttackStrategy {
-    private AttackStrategy currentStrategy;
     private final AttackStrategy randomStrategy;
-    private final AttackStrategy targetedStrategy;
+    private final MultiTargetStrategy targetedStrategy;
 
     public SmartCPUStrategy() {
         this.randomStrategy = new RandomAttackStrategy();
-        this.targetedStrategy = new TargetedAttackStrategy();
-        this.currentStrategy = randomStrategy;
+        this.targetedStrategy = new MultiTargetStrategy();
     }
 
+    // target while any hit is unresolved, even after sinking another ship
     @Override
     public Position getNextAttackPosition(GameBoard board, List<Position> history) {
-        return currentStrategy.getNextAttackPosition(board, history);
+        return targetedStrategy.hasTargets()
+                ? targetedStrategy.getNextAttackPosition(board, history)
+                : randomStrategy.getNextAttackPosition(board, history);
     }
 
+    // the targeted strategy sees every result so it knows the misses around later hits
     @Override
     public void recordHit(Position pos, String shipType, boolean isSunk) {
-        currentStrategy.recordHit(pos, shipType, isSunk);
-
-        // switch to targeted strategy after first hit
-        if (currentStrategy == randomStrategy && !isSunk) {
-            currentStrategy = targetedStrategy;
-            targetedStrategy.recordHit(pos, shipType, false);
-        }
-
-        // return to random strategy after sinking a ship
-        if (isSunk) {
-            currentStrategy = randomStrategy;
-        }
+        randomStrategy.recordHit(pos, shipType, isSunk);
+        targetedStrategy.recordHit(pos, shipType, isSunk);
     }
 
     @Override
     public void recordMiss(Position pos) {
-        currentStrategy.recordMiss(pos);
+        randomStrategy.recordMiss(pos);
+        targetedStrategy.recordMiss(pos);
     }
 
     @Override
     public void reset() {
-        currentStrategy = randomStrategy;
         randomStrategy.reset();
         targetedStrategy.reset();
     }
-}
\ No newline at end of file
+}
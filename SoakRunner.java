@@ -0,0 +1,248 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Long-running leak check. Plays games back to back through the same session,
+ * action and page paths the server uses, with short-lived sessions so idle
+ * eviction is exercised too. Every sample it takes a class histogram (which
+ * forces a full GC) and reads the heap left after that collection.
+ *
+ * At the end it fits retained heap against completed games (with live
+ * sessions as a second variable) and fails when memory per game trends
+ * upward, listing the classes whose live instance counts grew with it. The
+ * first quarter of the samples is warm-up and not part of the fit.
+ *
+ * A worker that dies on an exception, a run too short to fit, or one where
+ * no games completed after warm-up (a stall) fails too.
+ *
+ * Usage: java SoakRunner [--minutes=60] [--workers=4] [--sample=30]
+ *                        [--idle=2] [--max-bytes-per-game=100]
+ */
+public class SoakRunner {
+    private static final ObjectName DIAGNOSTICS = objectName("com.sun.management:type=DiagnosticCommand");
+
+    private final int workers;
+    private final LongAdder gamesCompleted = new LongAdder();
+    private final LongAdder workerFailures = new LongAdder();
+    private final AtomicLong sessionIds = new AtomicLong();
+    private volatile boolean running = true;
+
+    private static class Sample {
+        final long games;
+        final long retainedBytes;
+        final int sessions;
+        final Map<String, Long> instances;
+
+        Sample(long games, long retainedBytes, int sessions, Map<String, Long> instances) {
+            this.games = games;
+            this.retainedBytes = retainedBytes;
+            this.sessions = sessions;
+            this.instances = instances;
+        }
+    }
+
+    public SoakRunner(int workers) {
+        this.workers = workers;
+    }
+
+    // ── Simulated players ────────────────────────────────────────────────────
+
+    private void playGames() {
+        try {
+            while (running) {
+                playOneGame();
+                gamesCompleted.increment();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException | Error e) {
+            // the run is failed, but the other workers keep the heap trend going until it ends
+            workerFailures.increment();
+            System.err.println(Thread.currentThread().getName() + " died:");
+            e.printStackTrace();
+        }
+    }
+
+    private void playOneGame() throws InterruptedException {
+        GameSession session = GameServer.session("soak-" + sessionIds.incrementAndGet());
+        Semaphore cpuMoved = new Semaphore(0);
+        session.addChangeListener(cpuMoved::release);
+
+        act(session, "action=new");
+        act(session, "action=dir&dir=EAST");
+        for (int i = 0; i < ShipFactory.ShipType.values().length; i++) {
+            act(session, "action=place&x=0&y=" + (i * 2));
+        }
+
+        GameController game = session.getGame();
+        GameBoard enemy = game.getEnemyBoard();
+        CPUPlayer shooter = new CPUPlayer(new SmartCPUStrategy());
+        while (!game.isGameOver() && running) {
+            Position pos = shooter.determineAttackPosition(enemy);
+            act(session, "action=attack&x=" + pos.getX() + "&y=" + pos.getY());
+            if (!game.isGameOver()) {
+                cpuMoved.tryAcquire(10, TimeUnit.SECONDS);
+            }
+
+            Ship ship = enemy.getShipAt(pos);
+            shooter.recordAttackResult(pos, ship != null, ship != null ? ship.getType() : null,
+                    ship != null && ship.isSunk());
+            GameServer.buildPage(session);
+        }
+    }
+
+    private static void act(GameSession session, String form) {
+        GameServer.handleAction(session, GameServer.parseParams(form));
+    }
+
+    // ── Sampling ─────────────────────────────────────────────────────────────
+
+    private Sample sample() throws Exception {
+        Map<String, Long> instances = liveInstances();   // runs a full GC first
+        long retained = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage afterGc = pool.getCollectionUsage();
+            if (pool.getType() == MemoryType.HEAP && afterGc != null) retained += afterGc.getUsed();
+        }
+        return new Sample(gamesCompleted.sum(), retained, GameServer.sessionCount(), instances);
+    }
+
+    // live instances per game class, from the same histogram as jcmd GC.class_histogram
+    private static Map<String, Long> liveInstances() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        String histogram = (String) server.invoke(DIAGNOSTICS, "gcClassHistogram",
+                new Object[] { new String[0] }, new String[] { String[].class.getName() });
+
+        Map<String, Long> counts = new HashMap<>();
+        for (String line : histogram.split("\n")) {
+            String[] cols = line.trim().split("\\s+");
+            if (cols.length < 4 || !cols[0].endsWith(":")) continue;
+            String name = cols[3];
+            // game classes live in the default package; lambdas are folded into their owner
+            if (name.contains(".") || name.startsWith("[")) continue;
+            int lambda = name.indexOf("$$Lambda");
+            if (lambda > 0) name = name.substring(0, lambda) + "$$Lambda";
+            counts.merge(name, Long.parseLong(cols[1]), Long::sum);
+        }
+        return counts;
+    }
+
+    // ── Run ──────────────────────────────────────────────────────────────────
+
+    public boolean run(double minutes, int sampleSeconds, double maxBytesPerGame) throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            Thread t = new Thread(this::playGames, "soak-" + i);
+            t.setDaemon(true);
+            t.start();
+            threads.add(t);
+        }
+
+        List<Sample> samples = new ArrayList<>();
+        long end = System.nanoTime() + (long) (minutes * 60e9);
+        System.out.println("   games   retained KB   sessions");
+        while (System.nanoTime() < end) {
+            TimeUnit.SECONDS.sleep(Math.max(1, Math.min(sampleSeconds, (end - System.nanoTime()) / 1_000_000_000L)));
+            Sample s = sample();
+            samples.add(s);
+            System.out.printf("%8d %13d %10d%n", s.games, s.retainedBytes / 1024, s.sessions);
+            if (workerFailures.sum() == workers) break;   // nothing left to measure
+        }
+        running = false;
+        for (Thread t : threads) t.join(15_000);
+
+        return report(samples, maxBytesPerGame);
+    }
+
+    private boolean report(List<Sample> samples, double maxBytesPerGame) {
+        if (workerFailures.sum() > 0) {
+            System.out.println("FAIL: " + workerFailures.sum() + " of " + workers + " workers died");
+            return false;
+        }
+        List<Sample> fit = samples.subList(samples.size() / 4, samples.size());
+        if (fit.size() < 3) {
+            System.out.println("FAIL: not enough samples to fit a trend; run longer or sample more often");
+            return false;
+        }
+        if (fit.get(fit.size() - 1).games == fit.get(0).games) {
+            System.out.println("FAIL: no games completed after warm-up; the workers are stalled");
+            return false;
+        }
+
+        double bytesPerGame = slope(fit, s -> (double) s.retainedBytes);
+        System.out.printf("Games completed: %d%n", samples.get(samples.size() - 1).games);
+        System.out.printf("Retained heap trend: %.1f bytes per game (limit %.1f)%n", bytesPerGame, maxBytesPerGame);
+
+        Set<String> classes = new TreeSet<>();
+        for (Sample s : fit) classes.addAll(s.instances.keySet());
+        List<String> growing = new ArrayList<>();
+        for (String cls : classes) {
+            double perGame = slope(fit, s -> (double) s.instances.getOrDefault(cls, 0L));
+            if (perGame > 0.01) growing.add(String.format("  %-40s %+.3f instances per game", cls, perGame));
+        }
+        if (!growing.isEmpty()) {
+            System.out.println("Classes growing with games:");
+            growing.forEach(System.out::println);
+        }
+
+        boolean ok = bytesPerGame <= maxBytesPerGame;
+        System.out.println(ok ? "PASS" : "FAIL: retained memory grows with completed games");
+        return ok;
+    }
+
+    // least-squares growth of y per completed game, holding the number of live
+    // sessions fixed so sessions still waiting for eviction don't read as a leak
+    private static double slope(List<Sample> samples, ToDoubleFunction<Sample> y) {
+        double n = samples.size(), mg = 0, ms = 0, my = 0;
+        for (Sample s : samples) {
+            mg += s.games / n; ms += s.sessions / n; my += y.applyAsDouble(s) / n;
+        }
+        double gg = 0, ss = 0, gs = 0, gy = 0, sy = 0;
+        for (Sample s : samples) {
+            double g = s.games - mg, se = s.sessions - ms, v = y.applyAsDouble(s) - my;
+            gg += g * g; ss += se * se; gs += g * se; gy += g * v; sy += se * v;
+        }
+        double denom = gg * ss - gs * gs;
+        if (Math.abs(denom) < 1e-9 * gg * Math.max(ss, 1)) return gg == 0 ? 0 : gy / gg;
+        return (gy * ss - sy * gs) / denom;
+    }
+
+    private static ObjectName objectName(String name) {
+        try {
+            return new ObjectName(name);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Usage: java SoakRunner [--minutes=60] [--workers=4] [--sample=30]"
+                        + " [--idle=2] [--max-bytes-per-game=100]");
+                System.exit(1);
+            }
+            opts.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        // must be set before GameServer is first touched
+        System.setProperty("battleship.sessionIdleSeconds", opts.getOrDefault("idle", "2"));
+
+        boolean ok = new SoakRunner(Integer.parseInt(opts.getOrDefault("workers", "4"))).run(
+                Double.parseDouble(opts.getOrDefault("minutes", "60")),
+                Integer.parseInt(opts.getOrDefault("sample", "30")),
+                Double.parseDouble(opts.getOrDefault("max-bytes-per-game", "100")));
+        System.exit(ok ? 0 : 1);
+    }
+}
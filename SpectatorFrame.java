@@ -0,0 +1,233 @@
+import javax.swing.*;
+import java.awt.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Watches two AttackStrategy instances play each other, game after game.
+ * A background thread plays shots at the chosen rate (0 = uncapped). The EDT
+ * draws at most once per frame from a snapshot, however many shots happened
+ * in between, and keeps a running win-rate panel.
+ */
+public class SpectatorFrame extends JFrame {
+    private static final int FRAME_MILLIS = 16;
+
+    private static final Map<String, Supplier<AttackStrategy>> STRATEGIES = new LinkedHashMap<>();
+    static {
+        STRATEGIES.put("Smart", SmartCPUStrategy::new);
+        STRATEGIES.put("Targeted", TargetedAttackStrategy::new);
+        STRATEGIES.put("Multi-target", MultiTargetStrategy::new);
+        STRATEGIES.put("Random", RandomAttackStrategy::new);
+        STRATEGIES.put("Placement prior", PriorAttackStrategy::new);
+    }
+
+    private final JComboBox<String> strategyA = new JComboBox<>(STRATEGIES.keySet().toArray(new String[0]));
+    private final JComboBox<String> strategyB = new JComboBox<>(STRATEGIES.keySet().toArray(new String[0]));
+    private final JSpinner rateSpinner = new JSpinner(new SpinnerNumberModel(10, 0, 1_000_000, 10));
+    private final JButton startButton = new JButton("Start");
+    private final JLabel statsLabel = new JLabel(" ", JLabel.CENTER);
+    private final BoardComponent boardA = new BoardComponent(true);
+    private final BoardComponent boardB = new BoardComponent(true);
+    private final Timer frameTimer = new Timer(FRAME_MILLIS, e -> drawFrame());
+
+    // shared between the sim thread and the EDT, guarded by lock
+    private final Object lock = new Object();
+    private AiMatch match;
+    private long games;
+    private final long[] wins = new long[2];
+    private long totalShots;
+
+    // written by the sim thread, cleared by the EDT once per frame
+    private volatile boolean dirty;
+    private volatile int shotsPerSecond = 10;
+    private volatile Thread simThread;
+
+    // EDT-only frame state
+    private final byte[] statesA = new byte[100];
+    private final byte[] statesB = new byte[100];
+    private long lastRateGames;
+    private long lastRateNanos = System.nanoTime();
+    private double gamesPerSecond;
+
+    public SpectatorFrame() {
+        setTitle("Battleship - AI Spectator");
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setLayout(new BorderLayout());
+
+        strategyB.setSelectedItem("Targeted");
+        rateSpinner.addChangeListener(e -> shotsPerSecond = (Integer) rateSpinner.getValue());
+        startButton.addActionListener(e -> {
+            if (simThread == null) start(); else stop();
+        });
+
+        JPanel controls = new JPanel();
+        controls.add(new JLabel("Side A:"));
+        controls.add(strategyA);
+        controls.add(new JLabel("Side B:"));
+        controls.add(strategyB);
+        controls.add(new JLabel("Shots/sec (0 = uncapped):"));
+        controls.add(rateSpinner);
+        controls.add(startButton);
+
+        JPanel boardsPanel = new JPanel(new GridLayout(1, 2, 50, 0));
+        boardsPanel.setBorder(BorderFactory.createEmptyBorder(10, 20, 10, 20));
+        boardsPanel.add(titled(boardA, "Side A fleet"));
+        boardsPanel.add(titled(boardB, "Side B fleet"));
+
+        statsLabel.setFont(new Font("Arial", Font.BOLD, 14));
+        statsLabel.setBorder(BorderFactory.createEmptyBorder(5, 5, 10, 5));
+
+        add(controls, BorderLayout.NORTH);
+        add(boardsPanel, BorderLayout.CENTER);
+        add(statsLabel, BorderLayout.SOUTH);
+
+        boardA.setEnabled(false);
+        boardB.setEnabled(false);
+        boardA.showSnapshot(statesA);
+        boardB.showSnapshot(statesB);
+
+        pack();
+        setLocationRelativeTo(null);
+    }
+
+    @Override
+    public void dispose() {
+        stop();
+        super.dispose();
+    }
+
+    private JPanel titled(JComponent board, String title) {
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        JLabel titleLabel = new JLabel(title, JLabel.CENTER);
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 16));
+        panel.add(titleLabel, BorderLayout.NORTH);
+        panel.add(board, BorderLayout.CENTER);
+        return panel;
+    }
+
+    private void start() {
+        Supplier<AttackStrategy> a = STRATEGIES.get((String) strategyA.getSelectedItem());
+        Supplier<AttackStrategy> b = STRATEGIES.get((String) strategyB.getSelectedItem());
+        strategyA.setEnabled(false);
+        strategyB.setEnabled(false);
+        startButton.setText("Stop");
+
+        synchronized (lock) {
+            match = null;
+            games = 0;
+            wins[0] = wins[1] = 0;
+            totalShots = 0;
+        }
+        lastRateGames = 0;
+        lastRateNanos = System.nanoTime();
+        gamesPerSecond = 0;
+
+        Thread t = new Thread(() -> simulate(a, b), "spectator-sim");
+        t.setDaemon(true);
+        simThread = t;
+        t.start();
+        frameTimer.start();
+    }
+
+    private void stop() {
+        Thread t = simThread;
+        simThread = null;
+        if (t != null) t.interrupt();
+        frameTimer.stop();
+        strategyA.setEnabled(true);
+        strategyB.setEnabled(true);
+        startButton.setText("Start");
+    }
+
+    // sim thread: plays shots back to back, pacing only when a rate is set
+    private void simulate(Supplier<AttackStrategy> a, Supplier<AttackStrategy> b) {
+        Random random = new Random();
+        long next = System.nanoTime();
+
+        while (simThread == Thread.currentThread()) {
+            synchronized (lock) {
+                if (match == null || match.isOver()) {
+                    // alternate who opens so neither side gets a first-move edge
+                    match = new AiMatch(a.get(), b.get(), (int) (games % 2), random);
+                }
+                match.step();
+                if (match.isOver()) {
+                    games++;
+                    wins[match.getWinner()]++;
+                    totalShots += match.getShots();
+                }
+            }
+            dirty = true;
+
+            int rate = shotsPerSecond;
+            if (rate > 0) {
+                next += 1_000_000_000L / rate;
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                } else if (wait < -100_000_000L) {
+                    // fell far behind (e.g. rate raised), don't try to catch up in a burst
+                    next = System.nanoTime();
+                }
+            } else {
+                next = System.nanoTime();
+            }
+        }
+    }
+
+    // EDT: copies the latest state once per frame and repaints only changed cells
+    private void drawFrame() {
+        if (!dirty) return;
+        dirty = false;
+
+        long g;
+        long winsA;
+        long winsB;
+        long shots;
+        synchronized (lock) {
+            if (match == null) return;
+            snapshot(match.getBoard(0), statesA);
+            snapshot(match.getBoard(1), statesB);
+            g = games;
+            winsA = wins[0];
+            winsB = wins[1];
+            shots = totalShots;
+        }
+
+        boardA.showSnapshot(statesA);
+        boardB.showSnapshot(statesB);
+
+        long now = System.nanoTime();
+        if (now - lastRateNanos >= 500_000_000L) {
+            gamesPerSecond = (g - lastRateGames) * 1e9 / (now - lastRateNanos);
+            lastRateGames = g;
+            lastRateNanos = now;
+        }
+
+        statsLabel.setText(String.format(
+                "Games: %d   |   A (%s) wins: %.1f%%   |   B (%s) wins: %.1f%%   |   Avg shots/game: %.1f   |   %.0f games/s",
+                g,
+                strategyA.getSelectedItem(), g == 0 ? 0.0 : 100.0 * winsA / g,
+                strategyB.getSelectedItem(), g == 0 ? 0.0 : 100.0 * winsB / g,
+                g == 0 ? 0.0 : (double) shots / g,
+                gamesPerSecond));
+    }
+
+    private static void snapshot(GameBoard board, byte[] out) {
+        for (int c = 0; c < Grid.CELLS; c++) {
+            out[c] = BoardComponent.stateOf(board.cell(c), true);
+        }
+    }
+
+    public static void main(String[] args) {
+        SwingUtilities.invokeLater(() -> {
+            SpectatorFrame frame = new SpectatorFrame();
+            frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            frame.setVisible(true);
+        });
+    }
+}
@@ -0,0 +1,174 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * index.html and the files under static/, loaded once and kept in memory.
+ * Each file is memory-mapped read-only, and a gzip copy is compressed up
+ * front, so a request only picks a variant and hands out a view of it.
+ * Every variant has a strong ETag. CSS and JS linked with ?v=&lt;hash&gt;
+ * are cacheable for a year; the HTML page is always revalidated.
+ */
+public final class StaticAssets {
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String SHORT = "public, max-age=3600";
+    private static final String REVALIDATE = "no-cache";
+
+    /** One file with its identity and gzip variants. */
+    public static final class Asset {
+        private final String contentType;
+        private final ByteBuffer identity;
+        private final ByteBuffer gzip;   // null when compressing does not make it smaller
+        private final String hash;
+
+        Asset(String contentType, ByteBuffer identity, ByteBuffer gzip, String hash) {
+            this.contentType = contentType;
+            this.identity = identity;
+            this.gzip = gzip;
+            this.hash = hash;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public boolean hasGzip() {
+            return gzip != null;
+        }
+
+        // a fresh read-only view, so concurrent responses don't share a position
+        public ByteBuffer body(boolean gzipped) {
+            return (gzipped && gzip != null ? gzip : identity).duplicate();
+        }
+
+        public String etag(boolean gzipped) {
+            return gzipped && gzip != null ? "\"" + hash + "-gz\"" : "\"" + hash + "\"";
+        }
+
+        // long-lived only when the URL names this exact version
+        public String cacheControl(String query) {
+            if (contentType.startsWith("text/html")) return REVALIDATE;
+            return ("v=" + hash).equals(query) ? IMMUTABLE : SHORT;
+        }
+
+        public boolean notModified(String ifNoneMatch, boolean gzipped) {
+            return ifNoneMatch != null && ifNoneMatch.contains(etag(gzipped));
+        }
+    }
+
+    private static StaticAssets shared;
+
+    private final Map<String, Asset> assets = new HashMap<>();
+
+    // the assets next to the working directory, loaded on first use
+    public static synchronized StaticAssets shared() {
+        if (shared == null) {
+            shared = load(Path.of("."));
+        }
+        return shared;
+    }
+
+    // maps root/index.html to /offline and root/static/* to /static/*; missing files are skipped
+    public static StaticAssets load(Path root) {
+        StaticAssets s = new StaticAssets();
+        try {
+            Path index = root.resolve("index.html");
+            if (Files.isRegularFile(index)) s.add("/offline", index);
+
+            Path dir = root.resolve("static");
+            if (Files.isDirectory(dir)) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                    for (Path f : files) {
+                        if (Files.isRegularFile(f)) s.add("/static/" + f.getFileName(), f);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return s;
+    }
+
+    private void add(String urlPath, Path file) throws IOException {
+        ByteBuffer identity;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            identity = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        byte[] raw = new byte[identity.remaining()];
+        identity.duplicate().get(raw);
+
+        byte[] compressed = gzip(raw);
+        ByteBuffer gz = null;
+        if (compressed.length < raw.length) {
+            gz = ByteBuffer.allocateDirect(compressed.length).put(compressed).flip().asReadOnlyBuffer();
+        }
+        assets.put(urlPath, new Asset(contentType(file), identity, gz, hash(raw)));
+    }
+
+    public Asset get(String urlPath) {
+        return assets.get(urlPath);
+    }
+
+    // urlPath with its content hash appended, so it can be cached for good
+    public String versionedPath(String urlPath) {
+        Asset a = assets.get(urlPath);
+        return a == null ? urlPath : urlPath + "?v=" + a.hash;
+    }
+
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String part : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            String[] coding = part.trim().split(";");
+            if (coding[0].trim().equals("gzip") || coding[0].trim().equals("*")) {
+                return !(coding.length > 1 && coding[1].replace(" ", "").matches("q=0(\\.0*)?"));
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] raw) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 3 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out) { { def.setLevel(Deflater.BEST_COMPRESSION); } }) {
+            gz.write(raw);
+        }
+        return out.toByteArray();
+    }
+
+    private static String hash(byte[] raw) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(raw);
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String contentType(Path file) {
+        String name = file.getFileName().toString();
+        String ext = name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        return switch (ext) {
+            case "html" -> "text/html; charset=UTF-8";
+            case "css" -> "text/css; charset=UTF-8";
+            case "js" -> "text/javascript; charset=UTF-8";
+            case "json" -> "application/json";
+            case "svg" -> "image/svg+xml";
+            case "png" -> "image/png";
+            case "ico" -> "image/x-icon";
+            default -> "application/octet-stream";
+        };
+    }
+}
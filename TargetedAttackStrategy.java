@@ -60,7 +60,7 @@ public class TargetedAttackStrategy implements AttackStrategy {
         } else {
             // continue in opposite direction
             Position nextPos = lastHit.getAdjacent(currentDirection);
-            if (isValid(nextPos, history)) {
+            if (nextPos != null && isValid(nextPos, history)) {
                 return nextPos;
             } else {
                 // if cant continue in opposite direction, try remaining directions
@@ -118,7 +118,7 @@ public class TargetedAttackStrategy implements AttackStrategy {
         currentDirection = null;
         directionEstablished = false;
         tryingOppositeDirection = false;
-        availableDirections = new ArrayList<>(Arrays.asList(Direction.values()));
+        availableDirections = new ArrayList<>(Direction.getAllDirections());
     }
 
     private boolean isValid(Position pos, List<Position> history) {
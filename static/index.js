@@ -0,0 +1,518 @@
+// ─── Ship definitions (mirrors ShipFactory.ShipType order) ───────────────────
+const SHIP_DEFS = [
+  { name: "Carrier",    length: 5 },
+  { name: "Battleship", length: 4 },
+  { name: "Submarine",  length: 3 },
+  { name: "Destroyer",  length: 2 },
+];
+
+const SIZE = 10;
+const DIRECTIONS = ["NORTH", "EAST", "SOUTH", "WEST"];
+
+// ─── Direction helpers (mirrors Direction.java) ───────────────────────────────
+const DIR_OFFSET = { NORTH:[0,-1], EAST:[1,0], SOUTH:[0,1], WEST:[-1,0] };
+const DIR_OPPOSITE = { NORTH:"SOUTH", SOUTH:"NORTH", EAST:"WEST", WEST:"EAST" };
+
+function adjacent(x, y, dir) {
+  const [dx, dy] = DIR_OFFSET[dir];
+  return [x + dx, y + dy];
+}
+function inBounds(x, y) { return x >= 0 && x < SIZE && y >= 0 && y < SIZE; }
+
+// ─── Board (mirrors GameBoard.java) ──────────────────────────────────────────
+function makeBoard() {
+  // cells[x][y] to match Java's cells[x][y] indexing
+  const cells = Array.from({length: SIZE}, () =>
+    Array.from({length: SIZE}, () => ({ ship: null, hit: false }))
+  );
+  return { cells, ships: [] };
+}
+
+function shipPositions(x, y, dir, length) {
+  const out = [];
+  let cx = x, cy = y;
+  for (let i = 0; i < length; i++) {
+    out.push([cx, cy]);
+    [cx, cy] = adjacent(cx, cy, dir);
+  }
+  return out;
+}
+
+function canPlace(board, x, y, dir, length) {
+  const pos = shipPositions(x, y, dir, length);
+  if (pos.length !== length) return false;
+  return pos.every(([px, py]) => inBounds(px, py) && board.cells[px][py].ship === null);
+}
+
+function placeShip(board, x, y, dir, ship) {
+  const pos = shipPositions(x, y, dir, ship.length);
+  ship.cells = pos;
+  pos.forEach(([px, py]) => { board.cells[px][py].ship = ship; });
+  board.ships.push(ship);
+  ship.placed = true;
+}
+
+// mirrors GameBoard.receiveAttack — returns { alreadyHit, hit, ship, sunk }
+function receiveAttack(board, x, y) {
+  const cell = board.cells[x][y];
+  if (cell.hit) return { alreadyHit: true };
+  cell.hit = true;
+  if (cell.ship) {
+    cell.ship.hits++;
+    return { hit: true, ship: cell.ship, sunk: cell.ship.hits >= cell.ship.length };
+  }
+  return { hit: false };
+}
+
+function allSunk(board) { return board.ships.every(s => s.hits >= s.length); }
+
+// mirrors GameBoard.isHit
+function isHit(board, x, y) { return board.cells[x][y].hit; }
+
+// ─── SmartCPU (mirrors SmartCPUStrategy → RandomAttackStrategy + TargetedAttackStrategy)
+function makeCPU() {
+  return {
+    mode: "random",
+    firstHit: null, lastHit: null,
+    currentDir: null,
+    directionEstablished: false,
+    tryingOpposite: false,
+    availableDirs: [],
+
+    reset() {
+      this.mode = "random";
+      this.firstHit = this.lastHit = this.currentDir = null;
+      this.directionEstablished = this.tryingOpposite = false;
+      this.availableDirs = [];
+    },
+
+    // mirrors RandomAttackStrategy.getNextAttackPosition
+    _random(history) {
+      const tried = new Set(history.map(([x,y]) => x*SIZE+y));
+      const pool = [];
+      for (let x = 0; x < SIZE; x++)
+        for (let y = 0; y < SIZE; y++)
+          if (!tried.has(x*SIZE+y)) pool.push([x,y]);
+      return pool[Math.floor(Math.random() * pool.length)];
+    },
+
+    _valid(x, y, history) {
+      return inBounds(x, y) && !history.some(([hx,hy]) => hx===x && hy===y);
+    },
+
+    // mirrors TargetedAttackStrategy.getNextAttackPosition
+    _targeted(history) {
+      if (!this.firstHit) return this._random(history);
+
+      if (!this.directionEstablished) {
+        while (this.availableDirs.length > 0) {
+          const i = Math.floor(Math.random() * this.availableDirs.length);
+          this.currentDir = this.availableDirs.splice(i, 1)[0];
+          const [nx, ny] = adjacent(...this.firstHit, this.currentDir);
+          if (this._valid(nx, ny, history)) return [nx, ny];
+        }
+        return this._random(history);
+      }
+
+      if (!this.tryingOpposite) {
+        const [nx, ny] = adjacent(...this.lastHit, this.currentDir);
+        if (this._valid(nx, ny, history)) return [nx, ny];
+        this.tryingOpposite = true;
+        this.currentDir = DIR_OPPOSITE[this.currentDir];
+        const [ox, oy] = adjacent(...this.firstHit, this.currentDir);
+        if (this._valid(ox, oy, history)) return [ox, oy];
+        this.directionEstablished = false;
+        this.tryingOpposite = false;
+        return this._random(history);
+      }
+
+      const [nx, ny] = adjacent(...this.lastHit, this.currentDir);
+      if (this._valid(nx, ny, history)) return [nx, ny];
+      this.directionEstablished = false;
+      this.tryingOpposite = false;
+      return this._random(history);
+    },
+
+    // mirrors CPUPlayer.determineAttackPosition
+    getNextAttack(board, history) {
+      let pos;
+      do {
+        pos = this.mode === "random" ? this._random(history) : this._targeted(history);
+      } while (pos && isHit(board, pos[0], pos[1]));
+      return pos;
+    },
+
+    // mirrors SmartCPUStrategy.recordHit
+    recordHit(x, y, sunk) {
+      if (this.mode === "random") {
+        this.mode = "targeted";
+        this.firstHit = [x, y];
+        this.lastHit  = [x, y];
+        this.availableDirs = [...DIRECTIONS];
+        this.directionEstablished = false;
+        this.tryingOpposite = false;
+        this.currentDir = null;
+      } else {
+        this.lastHit = [x, y];
+        if (!this.directionEstablished && this.currentDir) this.directionEstablished = true;
+      }
+      if (sunk) this.reset();
+    },
+
+    // mirrors SmartCPUStrategy.recordMiss
+    recordMiss(x, y) {
+      if (this.directionEstablished && !this.tryingOpposite) {
+        this.tryingOpposite = true;
+        this.currentDir = DIR_OPPOSITE[this.currentDir];
+      }
+    },
+  };
+}
+
+// ─── Game state ───────────────────────────────────────────────────────────────
+let playerBoard, enemyBoard;
+let placementIdx;   // index into SHIP_DEFS (mirrors remainingShipTypes)
+let placedCount;    // how many the player has placed
+let currentDir;     // placement direction
+let isPlacementPhase, gameOver, processingTurn;
+let cpuHistory, cpu;
+
+// ─── Move log upload (verified by GameServer's MoveLogVerifier) ──────────────
+// Every move is appended as a 4-char token and sent in batches, so the server
+// sees one request per SYNC_BATCH moves instead of one per shot. When the page
+// is opened from disk there is no server and the log simply stays local.
+const SYNC_URL   = location.protocol.startsWith("http") ? "/api/offline" : null;
+const SYNC_BATCH = 40;
+let gameId, moveLog, uploadedCount, uploading;
+
+function logMove(kind, x, y, extra) {
+  moveLog.push(kind + x + y + extra);
+  if (moveLog.length - uploadedCount >= SYNC_BATCH) uploadMoves(false);
+}
+
+function uploadMoves(isFinal) {
+  if (!SYNC_URL || uploading) return;
+  const id = gameId, seq = uploadedCount, batch = moveLog.slice(seq);
+  if (batch.length === 0 && !isFinal) return;
+  uploading = true;
+
+  const body = new URLSearchParams({ game: id, seq: seq, final: isFinal ? "1" : "0", moves: batch.join("") });
+  fetch(SYNC_URL, { method: "POST", body: body })
+    .then(r => r.json())
+    .then(res => {
+      if (id !== gameId) return;   // a new game started meanwhile
+      if (!res.ok) { addLog("Server rejected this game: " + res.error, "log-info"); return; }
+      uploadedCount = res.accepted;
+      if (isFinal && res.finished) addLog("Result verified by the server.", "log-info");
+    })
+    .catch(() => { /* offline: the unsent moves go out with the next batch */ })
+    .finally(() => {
+      uploading = false;
+      // the final upload may have been skipped while another batch was in flight
+      if (id === gameId && gameOver && uploadedCount < moveLog.length) uploadMoves(true);
+    });
+}
+
+// ─── DOM helpers ─────────────────────────────────────────────────────────────
+const $  = id => document.getElementById(id);
+const col = x  => String.fromCharCode(65 + x);   // A-J
+const row = y  => y + 1;                          // 1-10
+
+function setStatus(msg) { $("status-bar").textContent = msg; }
+
+function addLog(msg, cls) {
+  const p = document.createElement("p");
+  if (cls) p.className = cls;
+  p.textContent = msg;
+  $("log").prepend(p);
+}
+
+function updateShipList() {
+  const el = $("ship-list");
+  el.innerHTML = "";
+  SHIP_DEFS.forEach((def, i) => {
+    const badge = document.createElement("span");
+    badge.className = "ship-badge" +
+      (i < placedCount ? " placed" :
+       i === placementIdx && isPlacementPhase ? " current" : "");
+    badge.textContent = def.name + " (" + def.length + ")";
+    el.appendChild(badge);
+  });
+}
+
+// ─── Board rendering ──────────────────────────────────────────────────────────
+function buildBoardDOM(boardId) {
+  const el = $(boardId);
+  el.innerHTML = "";
+
+  // corner
+  const corner = document.createElement("div");
+  corner.className = "board-label";
+  el.appendChild(corner);
+
+  for (let x = 0; x < SIZE; x++) {
+    const l = document.createElement("div");
+    l.className = "board-label";
+    l.textContent = col(x);
+    el.appendChild(l);
+  }
+
+  for (let y = 0; y < SIZE; y++) {
+    const l = document.createElement("div");
+    l.className = "board-label";
+    l.textContent = row(y);
+    el.appendChild(l);
+
+    for (let x = 0; x < SIZE; x++) {
+      const cell = document.createElement("div");
+      cell.className = "cell";
+      cell.dataset.x = x;
+      cell.dataset.y = y;
+      el.appendChild(cell);
+    }
+  }
+}
+
+function cellEl(boardId, x, y) {
+  return $(boardId).querySelector("[data-x='" + x + "'][data-y='" + y + "']");
+}
+
+// mirrors BattleshipGUI cell color logic
+function renderCell(boardId, x, y, board, hideShips) {
+  const el = cellEl(boardId, x, y);
+  if (!el) return;
+  const c = board.cells[x][y];
+  el.className = "cell";
+  el.onclick = null; el.onmouseenter = null; el.onmouseleave = null;
+
+  if (c.hit) {
+    if (c.ship) {
+      el.classList.add(c.ship.hits >= c.ship.length ? "sunk" : "hit");
+    } else {
+      el.classList.add("miss");
+    }
+  } else if (!hideShips && c.ship) {
+    el.classList.add("ship");
+  } else if (boardId === "enemy-board" && !isPlacementPhase && !gameOver) {
+    el.classList.add("attackable");
+    el.onclick = () => handlePlayerAttack(x, y);
+  } else if (boardId === "player-board" && isPlacementPhase) {
+    el.classList.add("placing");
+    el.onmouseenter = () => showPreview(x, y);
+    el.onmouseleave = clearPreview;
+    el.onclick = () => handlePlacement(x, y);
+  }
+}
+
+function renderBoards() {
+  for (let y = 0; y < SIZE; y++) {
+    for (let x = 0; x < SIZE; x++) {
+      renderCell("player-board", x, y, playerBoard, false);
+      renderCell("enemy-board",  x, y, enemyBoard,  true);
+    }
+  }
+}
+
+// ─── Placement preview ────────────────────────────────────────────────────────
+function showPreview(x, y) {
+  const def = SHIP_DEFS[placementIdx];
+  const valid = canPlace(playerBoard, x, y, currentDir, def.length);
+  shipPositions(x, y, currentDir, def.length).forEach(([px, py]) => {
+    if (!inBounds(px, py)) return;
+    const el = cellEl("player-board", px, py);
+    if (el) el.classList.add(valid ? "preview-valid" : "preview-invalid");
+  });
+}
+
+function clearPreview() {
+  $("player-board").querySelectorAll(".preview-valid, .preview-invalid").forEach(el => {
+    el.classList.remove("preview-valid", "preview-invalid");
+  });
+}
+
+// ─── Placement (mirrors GameController.tryPlacePlayerShip) ───────────────────
+function handlePlacement(x, y) {
+  if (!isPlacementPhase) return;
+  const def = SHIP_DEFS[placementIdx];
+
+  if (!canPlace(playerBoard, x, y, currentDir, def.length)) {
+    addLog("Invalid placement for " + def.name + " at " + col(x) + row(y) + " facing " + currentDir + ".", "log-info");
+    return;
+  }
+
+  const ship = { name: def.name, length: def.length, hits: 0, cells: [], placed: false };
+  placeShip(playerBoard, x, y, currentDir, ship);
+  logMove("P", x, y, currentDir[0]);
+  addLog("Placed " + def.name + " at " + col(x) + row(y) + " facing " + currentDir + ".", "log-info");
+
+  placedCount++;
+  placementIdx++;
+
+  if (placementIdx >= SHIP_DEFS.length) {
+    isPlacementPhase = false;
+    $("rotate-btn").disabled = true;
+    setStatus("All ships placed! Attack the Enemy Waters.");
+    addLog("All ships placed! Game begins — attack the enemy board!", "log-info");
+  } else {
+    const next = SHIP_DEFS[placementIdx];
+    setStatus("Place your " + next.name + " (length " + next.length + ") — Direction: " + currentDir);
+    addLog("Ship placed! Now place your " + next.name + " (length " + next.length + ").", "log-info");
+  }
+
+  updateShipList();
+  renderBoards();
+}
+
+// ─── Attack (mirrors GameController.playerAttack + cpuAttack) ────────────────
+function handlePlayerAttack(x, y) {
+  if (processingTurn || gameOver || isPlacementPhase) return;
+  processingTurn = true;
+
+  const r = receiveAttack(enemyBoard, x, y);
+  if (r.alreadyHit) {
+    addLog("This position has already been attacked.", "log-info");
+    processingTurn = false;
+    return;
+  }
+  logMove("A", x, y, r.hit ? "H" : "M");
+
+  if (r.hit) {
+    if (r.sunk) {
+      addLog("Player HIT and SUNK the enemy " + r.ship.name + "!", "log-sunk");
+    } else {
+      addLog("Player HIT at " + col(x) + row(y) + "!", "log-hit");
+    }
+    if (allSunk(enemyBoard)) {
+      gameOver = true;
+      renderBoards();
+      addLog("Player wins! All enemy ships sunk!", "log-win");
+      uploadMoves(true);
+      showOverlay("Victory!", "You have defeated the enemy fleet!");
+      processingTurn = false;
+      return;
+    }
+  } else {
+    addLog("Player MISSED at " + col(x) + row(y) + ".", "log-miss");
+  }
+
+  renderBoards();
+  setTimeout(doCpuTurn, 650);
+}
+
+function doCpuTurn() {
+  if (gameOver) { processingTurn = false; return; }
+
+  const pos = cpu.getNextAttack(playerBoard, cpuHistory);
+  const [x, y] = pos;
+  cpuHistory.push([x, y]);
+
+  const r = receiveAttack(playerBoard, x, y);
+  logMove("C", x, y, r.hit ? "H" : "M");
+  if (r.hit) {
+    cpu.recordHit(x, y, r.sunk);
+    if (r.sunk) {
+      addLog("Enemy HIT and SUNK your " + r.ship.name + "!", "log-sunk");
+    } else {
+      addLog("Enemy HIT at " + col(x) + row(y) + "!", "log-hit");
+    }
+    if (allSunk(playerBoard)) {
+      gameOver = true;
+      renderBoards();
+      addLog("Enemy wins! All your ships sunk!", "log-lose");
+      uploadMoves(true);
+      showOverlay("Defeat!", "Your fleet has been destroyed!");
+      processingTurn = false;
+      return;
+    }
+  } else {
+    cpu.recordMiss(x, y);
+    addLog("Enemy MISSED at " + col(x) + row(y) + ".", "log-miss");
+  }
+
+  renderBoards();
+  processingTurn = false;
+}
+
+// ─── CPU ship placement (mirrors GameController.placeCPUShips) ────────────────
+function placeCpuShips() {
+  SHIP_DEFS.forEach(def => {
+    let placed = false;
+    while (!placed) {
+      const dir = DIRECTIONS[Math.floor(Math.random() * DIRECTIONS.length)];
+      const x   = Math.floor(Math.random() * SIZE);
+      const y   = Math.floor(Math.random() * SIZE);
+      if (canPlace(enemyBoard, x, y, dir, def.length)) {
+        const ship = { name: def.name, length: def.length, hits: 0, cells: [], placed: false };
+        placeShip(enemyBoard, x, y, dir, ship);
+        logMove("E", x, y, dir[0]);
+        placed = true;
+      }
+    }
+  });
+}
+
+// ─── Overlay ──────────────────────────────────────────────────────────────────
+function showOverlay(title, msg) {
+  $("overlay-title").textContent = title;
+  $("overlay-msg").textContent   = msg;
+  $("overlay").classList.add("show");
+}
+
+// ─── Init / New Game (mirrors GameController constructor) ─────────────────────
+function startGame() {
+  $("overlay").classList.remove("show");
+  $("log").innerHTML = "";
+
+  playerBoard      = makeBoard();
+  enemyBoard       = makeBoard();
+  placementIdx     = 0;
+  placedCount      = 0;
+  currentDir       = "EAST";
+  isPlacementPhase = true;
+  gameOver         = false;
+  processingTurn   = false;
+  cpuHistory       = [];
+  cpu              = makeCPU();
+  gameId           = Date.now().toString(36) + Math.random().toString(36).slice(2);
+  moveLog          = [];
+  uploadedCount    = 0;
+  uploading        = false;
+
+  $("rotate-btn").disabled = false;
+  updateRotateBtn();
+  buildBoardDOM("player-board");
+  buildBoardDOM("enemy-board");
+
+  placeCpuShips();
+  addLog("Enemy ships have been placed.", "log-info");
+
+  const first = SHIP_DEFS[0];
+  setStatus("Place your " + first.name + " (length " + first.length + ")");
+  addLog("Place your " + first.name + " (length " + first.length + ")", "log-info");
+
+  updateShipList();
+  renderBoards();
+}
+
+function updateRotateBtn() {
+  $("rotate-btn").textContent = "\u21BB Rotate \u2014 Direction: " + currentDir;
+}
+
+$("rotate-btn").addEventListener("click", () => {
+  currentDir = DIRECTIONS[(DIRECTIONS.indexOf(currentDir) + 1) % DIRECTIONS.length];
+  updateRotateBtn();
+  clearPreview();
+  if (isPlacementPhase) {
+    const def = SHIP_DEFS[placementIdx];
+    setStatus("Place your " + def.name + " (length " + def.length + ") \u2014 Direction: " + currentDir);
+  }
+});
+
+$("new-game-btn").addEventListener("click", () => {
+  if (!gameOver && !isPlacementPhase && !confirm("Start a new game? Current game will be lost.")) return;
+  startGame();
+});
+
+$("overlay-play-btn").addEventListener("click", startGame);
+
+startGame();